@@ -0,0 +1,5 @@
+# Bursts of hunger: every 2 seconds, for half a second, everybody thinks a tenth as long,
+# so the whole table reaches for its forks at once. Exponential think and eat times otherwise.
+think = exponential
+eat = exponential
+burst = 2s 0.25 0.1
@@ -0,0 +1,5 @@
+# Heavy-tailed holds everywhere: most meals are short, a few are very long (Pareto, shape 1.2).
+# Shows the tail of the fork waits that constant times hide.
+think = exponential
+eat = pareto:1.2
+fork = lognormal:1.0
@@ -0,0 +1,6 @@
+# A few slow holders: every 10th seat eats five times as long, with a heavy tail,
+# so its neighbors queue behind it. Everybody else eats with some log-normal spread.
+think = exponential
+eat = lognormal:0.5
+seats %10: eat = pareto:1.5
+seats %10: eat-scale = 5
@@ -0,0 +1,84 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// ForkHandoffBenchmark.java
+//
+// JMH: latency of a pickUp/putDown pair on one shared Fork, for each ForkType,
+// with 1, 2, 4 and all available threads contending for it.
+////////////////////////////////////
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForkHandoffBenchmark {
+
+    @Param({ "semaphore", "atomic" })
+    public String forkType;
+
+    private edu.du.ict4361.philosophers.Fork fork;
+    private final AtomicInteger seats = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        fork = ForkType.forName(forkType).newFork("Fork 1");
+    }
+
+    // Each benchmark thread sits in its own seat
+    @State(Scope.Thread)
+    public static class Seat {
+        int number;
+
+        @Setup
+        public void setUp(ForkHandoffBenchmark benchmark) {
+            number = benchmark.seats.getAndIncrement();
+        }
+    }
+
+    private void handoff(Seat seat) {
+        fork.pickUp(seat.number);
+        fork.putDown(seat.number);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void uncontended(Seat seat) {
+        handoff(seat);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void contended2(Seat seat) {
+        handoff(seat);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void contended4(Seat seat) {
+        handoff(seat);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void contendedMax(Seat seat) {
+        handoff(seat);
+    }
+}
@@ -0,0 +1,90 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// LayoutScalingBenchmark.java
+//
+// JMH: meals per second of a zero-delay Table as the number of seats (threads) grows,
+// with the compact and the padded Layout, so the two scaling curves can be compared.
+// Atomic forks and resource ordering: the combination where the fork holder words and
+// the Philosophers' state, meal counts and time accounting are written the most.
+// The default seat counts go up to 64; for a curve from 2 to all cores of a machine, pass
+// them explicitly, e.g. -p seats=2,4,8,16,32,$(nproc)
+// The "meals" secondary result (meals per second) is the number to look at.
+////////////////////////////////////
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class LayoutScalingBenchmark {
+
+    @Param({ "2", "4", "8", "16", "32", "64" })
+    public int seats;
+
+    @Param({ "compact", "padded" })
+    public String layout;
+
+    private Table table;
+
+    @Setup(Level.Trial)
+    public void setTable() {
+        table = new Table(seats);
+        table.setThinkTime(0);
+        table.setEatTime(0);
+        table.setForkTime(0);
+        table.setPauseTime(0);
+        table.setStaggeredStart(false);
+        table.setForkType(ForkType.ATOMIC);
+        table.setLayout(Layout.forName(layout));
+        table.setForkStrategy(ForkStrategy.forName("ordering", table));
+        table.populateTable();
+    }
+
+    // The same Table runs every iteration: it is restarted after each clean stop
+    @Setup(Level.Iteration)
+    public void startTable() {
+        table.startTable();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopTable() {
+        ShutdownReport shutdown = table.stop();
+        if (!shutdown.isClean()) {
+            throw new IllegalStateException("Table did not stop: " + shutdown.describe());
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Meals {
+        public long meals;
+    }
+
+    @Benchmark
+    public void sample(Meals counter) throws InterruptedException {
+        long before = table.getTotalMeals();
+        Thread.sleep(10);
+        counter.meals += table.getTotalMeals() - before;
+    }
+}
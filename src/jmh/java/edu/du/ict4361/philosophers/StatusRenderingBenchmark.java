@@ -0,0 +1,55 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// StatusRenderingBenchmark.java
+//
+// JMH: the cost of the status report, for the whole Table and for one Philosopher.
+// The Table is populated but not started, so only the rendering is measured.
+// Run with "-prof gc" to see the garbage each report leaves behind.
+////////////////////////////////////
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatusRenderingBenchmark {
+
+    @Param({ "5", "1000", "100000" })
+    public int seats;
+
+    private Table table;
+    private Philosopher philosopher;
+
+    @Setup
+    public void setUp() {
+        table = new Table(seats);
+        table.populateTable();
+        philosopher = table.getPhilosopher(seats / 2);
+    }
+
+    @Benchmark
+    public String tableStatus() {
+        return table.getTableStatus();
+    }
+
+    @Benchmark
+    public String philosopherStatus() {
+        return philosopher.getStatus();
+    }
+}
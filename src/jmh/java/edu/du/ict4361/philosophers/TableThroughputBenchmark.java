@@ -0,0 +1,96 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// TableThroughputBenchmark.java
+//
+// JMH: end-to-end meals per second of a running Table with zero think, eat and fork times.
+// One Table per trial, started and stopped (Table.stop) around each iteration.
+// The benchmark thread only samples the meal count; the "meals" secondary result (meals per second) is the number to look at.
+// The naive strategy is left out: with zero delays it deadlocks almost at once.
+// waitMode "sleep" is the original loop (Thread.sleep(0) and a yield per state change);
+// "spin" skips both, so the number is the cost of the fork hand-off itself.
+////////////////////////////////////
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class TableThroughputBenchmark {
+
+    @Param({ "2", "5", "16", "64" })
+    public int seats;
+
+    @Param({ "ordering", "chandy", "waiter" })
+    public String strategy;
+
+    @Param({ "semaphore", "atomic" })
+    public String forkType;
+
+    @Param({ "sleep", "spin" })
+    public String waitMode;
+
+    private Table table;
+
+    @Setup(Level.Trial)
+    public void setTable() {
+        table = new Table(seats);
+        table.setThinkTime(0);
+        table.setEatTime(0);
+        table.setForkTime(0);
+        table.setPauseTime(0);
+        table.setStaggeredStart(false);
+        table.setWaitMode(WaitMode.forName(waitMode));
+        table.setYieldOnStateChange(table.getWaitMode() == WaitMode.SLEEP);
+        table.setForkType(ForkType.forName(forkType));
+        table.setForkStrategy(ForkStrategy.forName(strategy, table));
+        table.populateTable();
+    }
+
+    // The same Table runs every iteration: it is restarted after each clean stop
+    @Setup(Level.Iteration)
+    public void startTable() {
+        table.startTable();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopTable() {
+        ShutdownReport shutdown = table.stop();
+        if (!shutdown.isClean()) {
+            throw new IllegalStateException("Table did not stop: " + shutdown.describe());
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Meals {
+        public long meals;
+    }
+
+    @Benchmark
+    public void sample(Meals counter) throws InterruptedException {
+        long before = table.getTotalMeals();
+        Thread.sleep(10);
+        counter.meals += table.getTotalMeals() - before;
+    }
+}
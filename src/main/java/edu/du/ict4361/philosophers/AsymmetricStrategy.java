@@ -0,0 +1,38 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// AsymmetricStrategy.java
+//
+// Even seats pick up the left fork first, odd seats the right fork first.
+// Neighbors then compete for the same first fork, which breaks the circular wait.
+// (With an odd number of seats the last and first seats both go left first; still no cycle.)
+////////////////////////////////////
+public class AsymmetricStrategy implements ForkStrategy {
+
+    @Override
+    public String getName() {
+        return "asymmetric";
+    }
+
+    @Override
+    public void pickUpForks(Philosopher philosopher) {
+        if (philosopher.getSeatNumber() % 2 == 0) {
+            philosopher.pickUp(philosopher.getLeftFork());
+            philosopher.pickUp(philosopher.getRightFork());
+        } else {
+            philosopher.pickUp(philosopher.getRightFork());
+            philosopher.pickUp(philosopher.getLeftFork());
+        }
+    }
+
+    @Override
+    public void putDownForks(Philosopher philosopher) {
+        if (philosopher.getSeatNumber() % 2 == 0) {
+            philosopher.putDown(philosopher.getRightFork());
+            philosopher.putDown(philosopher.getLeftFork());
+        } else {
+            philosopher.putDown(philosopher.getLeftFork());
+            philosopher.putDown(philosopher.getRightFork());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package edu.du.ict4361.philosophers;
+
+/////////////////////////////////////
+// AtomicFork.java
+//
+// A lock-free Fork: the holder's seat number is the whole lock.
+// Picking up the fork is a single compare-and-set of the holder from "free" to the seat number;
+// putting it down is a single write back to -1. There is no Semaphore and no AQS queue.
+//
+// A Philosopher who finds the fork taken spins briefly (the holder may be about to put it down),
+// then parks in a queue of waiters. Putting the fork down unparks the first waiter, which
+// tries the CAS again (so it can lose to a spinning newcomer; the fork is not fair).
+//
+// The holder is a volatile int updated through a VarHandle, so getCurrentHolder() is a volatile read:
+// everything the previous holder did before putDown happens-before the next holder's pickUp,
+// and status readers always see the latest holder.
+// The holder is only touched through holder(), casHolder() and setHolder(), so PaddedAtomicFork
+// can keep it on a cache line of its own.
+/////////////////////////////////////
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+public class AtomicFork extends Fork {
+    private static final int SPINS = 64; // CAS attempts before parking
+
+    private static final VarHandle HOLDER;
+    static {
+        try {
+            HOLDER = MethodHandles.lookup().findVarHandle(AtomicFork.class, "holder", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile int holder = -1;
+    private final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    public AtomicFork(String name) {
+        super(name);
+    }
+
+    /// The holder word
+
+    protected int holder() {
+        return holder;
+    }
+
+    protected boolean casHolder(int expected, int seatNumber) {
+        return HOLDER.compareAndSet(this, expected, seatNumber);
+    }
+
+    protected void setHolder(int seatNumber) {
+        holder = seatNumber;
+    }
+
+    // -1 (free) and -2 (shut down) can both be claimed, like the released semaphore
+    private boolean tryClaim(int seatNumber) {
+        int current = holder();
+        return current < 0 && casHolder(current, seatNumber);
+    }
+
+    // Spin, then park until the fork is claimed. timeoutNanos < 0 waits forever.
+    private boolean acquire(int seatNumber, long timeoutNanos) throws InterruptedException {
+        for (int i = 0; i < SPINS; i++) {
+            if (tryClaim(seatNumber)) {
+                acquired(i > 0);
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        long deadline = System.nanoTime() + timeoutNanos;
+        Thread me = Thread.currentThread();
+        waiters.add(me);
+        try {
+            // Claim after queueing, so a putDown between the spin and the queueing is not missed
+            while (!tryClaim(seatNumber)) {
+                if (timeoutNanos < 0) {
+                    LockSupport.park(this);
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            acquired(true);
+            return true;
+        } finally {
+            waiters.remove(me);
+            // We may have been handed a wake-up we did not use
+            if (holder() < 0) {
+                wakeNext();
+            }
+        }
+    }
+
+    private void wakeNext() {
+        Thread next = waiters.peek();
+        if (next != null) {
+            LockSupport.unpark(next);
+        }
+    }
+
+    @Override
+    public boolean pickUp(int seatNumber) {
+        if (holder() != seatNumber) {
+            try {
+                return acquire(seatNumber, -1);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt(); // The caller decides whether that is an error
+                return false;
+            }
+        } else { // Can't pick up the fork if I have already picked it up.
+            System.err.println("Thread " + name + ": attempt to pick up fork already picked up!" +
+                    " (" + holder() + " != " + seatNumber + " )");
+            return true;
+        }
+    }
+
+    @Override
+    public boolean tryPickUp(int seatNumber, long timeout) {
+        if (holder() != seatNumber) {
+            try {
+                return acquire(seatNumber, TimeUnit.MILLISECONDS.toNanos(timeout));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt(); // The caller decides whether that is an error
+            }
+            return false;
+        } else { // Can't pick up the fork if I have already picked it up.
+            System.err.println("Thread " + name + ": attempt to pick up fork already picked up!" +
+                    " (" + holder() + " != " + seatNumber + " )");
+            return true;
+        }
+    }
+
+    @Override
+    public void putDown(int seatNumber) {
+        if (seatNumber == -2) { // Special value for shutdown. Put it down and wake everybody.
+            setHolder(-2);
+            for (Thread waiter : waiters) {
+                LockSupport.unpark(waiter);
+            }
+        } else if (holder() == seatNumber) { // I currently have it. Put it down.
+            long held = heldNanos();
+            if (casHolder(seatNumber, -1)) { // unless it was just reclaimed
+                released(held);
+                wakeNext();
+            }
+        } else if (holder() == -1) { // No one has it. That's an error.
+            System.err.println("Thread " + name + ": attempt to put down fork never picked up!" +
+                    " (" + holder() + " != " + seatNumber + " )");
+        }
+    }
+
+    @Override
+    public boolean forceRelease(int holder) {
+        if (holder >= 0 && casHolder(holder, -1)) {
+            wakeNext();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int getCurrentHolder() {
+        return holder();
+    }
+}
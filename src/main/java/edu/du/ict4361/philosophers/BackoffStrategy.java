@@ -0,0 +1,84 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// BackoffStrategy.java
+//
+// Pick up the left fork, then *try* the right fork for a limited time.
+// If the right fork does not become free in time, put the left fork back down,
+// back off for a random, exponentially growing delay, and start over.
+// Nobody holds a fork while waiting forever, so the table cannot stall in the
+// everybody-holds-the-left-fork deadlock. Retries and back-off time are counted per seat.
+////////////////////////////////////
+
+import java.util.concurrent.ThreadLocalRandom;
+
+public class BackoffStrategy implements ForkStrategy {
+    private long tryTimeout = -1;   // milliseconds to wait for the second fork (-1: the Table's fork time)
+    private long baseBackoff = 10;  // milliseconds, first back-off ceiling
+    private long maxBackoff = 1000; // milliseconds, back-off ceiling cap
+
+    @Override
+    public String getName() {
+        return "backoff";
+    }
+
+    @Override
+    public boolean isResizable() {
+        return true;
+    }
+
+    // Randomized ("full jitter") exponential back-off: uniform in [0, min(max, base * 2^attempt)]
+    private long backoffDelay(int attempt) {
+        long ceiling = baseBackoff << Math.min(attempt, 20);
+        if (ceiling <= 0 || ceiling > maxBackoff) {
+            ceiling = maxBackoff;
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    @Override
+    public void pickUpForks(Philosopher philosopher) {
+        Fork first = philosopher.getLeftFork();
+        Fork second = philosopher.getRightFork();
+        long timeout = (tryTimeout >= 0) ? tryTimeout : philosopher.getTable().getForkTime();
+        int attempt = 0;
+        while (philosopher.isAtTable()) {
+            philosopher.pickUp(first);
+            if (philosopher.tryPickUp(second, timeout)) {
+                return;
+            }
+            philosopher.putDown(first);
+            philosopher.backOff(backoffDelay(attempt++));
+        }
+    }
+
+    @Override
+    public void putDownForks(Philosopher philosopher) {
+        philosopher.putDown(philosopher.getLeftFork());
+        philosopher.putDown(philosopher.getRightFork());
+    }
+
+    public long getTryTimeout() {
+        return tryTimeout;
+    }
+
+    public void setTryTimeout(long tryTimeout) {
+        this.tryTimeout = tryTimeout;
+    }
+
+    public long getBaseBackoff() {
+        return baseBackoff;
+    }
+
+    public void setBaseBackoff(long baseBackoff) {
+        this.baseBackoff = Math.max(1, baseBackoff);
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = Math.max(1, maxBackoff);
+    }
+}
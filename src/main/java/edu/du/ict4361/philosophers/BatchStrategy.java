@@ -0,0 +1,33 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// BatchStrategy.java
+//
+// Acquire the whole set of forks a seat needs as one batch: lowest fork number first
+// (so, like resource ordering, no circular wait can form), with forkTime spent once for the
+// batch instead of once per fork. Putting down is one batch too.
+// Meant for Topologies where a seat needs many forks (torus, kforks), where paying
+// forkTime per fork while holding the earlier ones makes the hold chains long.
+////////////////////////////////////
+public class BatchStrategy implements ForkStrategy {
+
+    @Override
+    public String getName() {
+        return "batch";
+    }
+
+    @Override
+    public boolean isResizable() {
+        return true;
+    }
+
+    @Override
+    public void pickUpForks(Philosopher philosopher) {
+        philosopher.pickUpAll(philosopher.getOrderedForks());
+    }
+
+    @Override
+    public void putDownForks(Philosopher philosopher) {
+        philosopher.putDownAll(philosopher.getOrderedForks());
+    }
+}
@@ -0,0 +1,132 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// ChandyMisraStrategy.java
+//
+// Chandy-Misra: every fork belongs to one of its two Philosophers and is either clean or dirty.
+//   - Initially each fork belongs to the lower numbered of its two neighbors, and is dirty.
+//   - A hungry Philosopher asks for a fork it does not own. A dirty fork is handed over
+//     (cleaned) unless its owner is eating; a clean fork is kept until its owner has eaten.
+//   - Eating makes both forks dirty.
+// Here the "hand over" happens in shared memory: the requester takes a dirty, unused fork.
+// Ownership is bookkeeping on top of the Fork semaphores; once a Philosopher owns both forks
+// it still picks them up, so the Table status and the Fork holders look the same as always.
+////////////////////////////////////
+public class ChandyMisraStrategy implements ForkStrategy {
+    private final Object[] locks;
+    private final int[] owner;
+    private final boolean[] dirty;
+    private final boolean[] inUse;
+
+    public ChandyMisraStrategy(Table table) {
+        int n = table.getNumberOfPhilosophers();
+        locks = new Object[n];
+        owner = new int[n];
+        dirty = new boolean[n];
+        inUse = new boolean[n];
+        for (int f = 0; f < n; f++) {
+            locks[f] = new Object();
+            // Fork f sits between seat f-1 (its right fork) and seat f (its left fork)
+            owner[f] = Math.min(f, (f - 1 + n) % n);
+            dirty[f] = true;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "chandy";
+    }
+
+    // Wait until this seat owns fork f
+    private boolean obtain(int f, int seat) {
+        synchronized (locks[f]) {
+            while (owner[f] != seat) {
+                if (dirty[f] && !inUse[f]) {
+                    owner[f] = seat;
+                    dirty[f] = false;
+                } else {
+                    try {
+                        locks[f].wait();
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    // Lock in a fork that is still owned; a dirty fork may have been taken meanwhile
+    private boolean claim(int f, int seat) {
+        synchronized (locks[f]) {
+            if (owner[f] == seat) {
+                inUse[f] = true;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private void unclaim(int f) {
+        synchronized (locks[f]) {
+            inUse[f] = false;
+            locks[f].notifyAll();
+        }
+    }
+
+    // Done eating: the fork stays with this seat, but dirty
+    private void release(int f, int seat) {
+        synchronized (locks[f]) {
+            if (owner[f] == seat) {
+                inUse[f] = false;
+                dirty[f] = true;
+            }
+            locks[f].notifyAll();
+        }
+    }
+
+    @Override
+    public void pickUpForks(Philosopher philosopher) {
+        Table table = philosopher.getTable();
+        int seat = philosopher.getSeatNumber();
+        int left = table.getLeftForkIndex(seat);
+        int right = table.getRightForkIndex(seat);
+        while (true) {
+            if (!obtain(left, seat) || !obtain(right, seat)) {
+                if (table.isPartyIsOn()) {
+                    Thread.interrupted();
+                    System.err.println("      Chandy-Misra: " + philosopher.getName() + " was interrupted waiting for a fork");
+                }
+                return;
+            }
+            if (claim(left, seat)) {
+                if (claim(right, seat)) {
+                    break;
+                }
+                unclaim(left);
+            }
+        }
+        philosopher.pickUp(philosopher.getLeftFork());
+        philosopher.pickUp(philosopher.getRightFork());
+    }
+
+    @Override
+    public void putDownForks(Philosopher philosopher) {
+        Table table = philosopher.getTable();
+        int seat = philosopher.getSeatNumber();
+        philosopher.putDown(philosopher.getLeftFork());
+        philosopher.putDown(philosopher.getRightFork());
+        release(table.getLeftForkIndex(seat), seat);
+        release(table.getRightForkIndex(seat), seat);
+    }
+
+    // The forks stay with the lost seat, dirty and unused: the neighbors may take them
+    @Override
+    public void seatLost(Philosopher philosopher) {
+        Table table = philosopher.getTable();
+        int seat = philosopher.getSeatNumber();
+        release(table.getLeftForkIndex(seat), seat);
+        release(table.getRightForkIndex(seat), seat);
+    }
+}
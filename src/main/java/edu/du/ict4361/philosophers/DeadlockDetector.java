@@ -0,0 +1,142 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// DeadlockDetector.java
+//
+// Finds deadlocks from the wait-for graph instead of from stalled meal counts.
+//
+// A Philosopher blocked in pickUp waits for exactly one Fork (its pending fork), and that Fork
+// has at most one holder, so each seat has at most one outgoing edge:
+//     seat -> holder of the seat's pending fork
+// A deadlock is a cycle of such edges. A cycle can only close when somebody starts waiting,
+// so the waiting Philosopher checks before it blocks: follow the edges from its own seat and
+// see whether they lead back to it. That costs one step per seat in the chain, happens at the
+// moment the cycle forms, and names the exact seats involved.
+//
+// With recovery on, the Philosopher that closes the cycle is the victim: it puts down the forks
+// it holds (the forced release), which lets its neighbor eat, and picks them up again afterwards.
+// With recovery off, the deadlock is reported and awaitDeadlock() wakes up the Dinner.
+////////////////////////////////////
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+public class DeadlockDetector {
+    private final IntFunction<Philosopher> seats; // Philosopher by seat id (fork holders are seat ids)
+    private final IntSupplier numberOfSeats;  // seats join and leave a running ring Table
+    private final LongSupplier startedNanos;
+    private final boolean recover;
+
+    private final AtomicLong deadlockCount = new AtomicLong();
+    private final CountDownLatch firstDeadlock = new CountDownLatch(1);
+    private volatile int[] lastCycle;
+    private volatile long lastCheckNanos;        // how long the detecting check took
+    private volatile long firstDetectionNanos = -1; // since the Table started
+
+    public DeadlockDetector(Table table, boolean recover) {
+        this(table::getPhilosopherById, table::getNumberOfPhilosophers, table::getStartedNanos, recover);
+    }
+
+    // One detector over all the shards of a ShardedTable: cycles can run through bridge forks
+    public DeadlockDetector(ShardedTable table, boolean recover) {
+        this(table::getPhilosopher, table::getNumberOfPhilosophers, table::getStartedNanos, recover);
+    }
+
+    private DeadlockDetector(IntFunction<Philosopher> seats, IntSupplier numberOfSeats, LongSupplier startedNanos, boolean recover) {
+        this.seats = seats;
+        this.numberOfSeats = numberOfSeats;
+        this.startedNanos = startedNanos;
+        this.recover = recover;
+    }
+
+    // Called by a Philosopher just before it blocks on its pending fork.
+    // Returns true if the Philosopher closes a cycle and should release its forks.
+    boolean onWait(Philosopher waiter) {
+        long start = System.nanoTime();
+        int seat = waiter.getSeatId();
+        int length = cycleLength(seat);
+        if (length == 0) {
+            return false;
+        }
+        int[] cycle = new int[length];
+        int current = seat;
+        for (int i = 0; i < length; i++) {
+            cycle[i] = current;
+            Philosopher phil = seats.apply(current);
+            Fork pending = (phil == null) ? null : phil.getPendingFork();
+            if (pending == null) {
+                return false; // the cycle broke up while we were looking at it
+            }
+            current = pending.getCurrentHolder();
+        }
+        long now = System.nanoTime();
+        lastCheckNanos = now - start;
+        lastCycle = cycle;
+        if (deadlockCount.incrementAndGet() == 1) {
+            firstDetectionNanos = now - startedNanos.getAsLong();
+        }
+        if (!recover) {
+            System.err.println("Deadlock: seats " + Arrays.toString(cycle) + " wait for each other"
+                               + " (found in " + (lastCheckNanos / 1000) + " microseconds)");
+            firstDeadlock.countDown();
+        }
+        return recover;
+    }
+
+    // Number of seats in the cycle through seat, or 0 if the chain of waits ends
+    private int cycleLength(int seat) {
+        int current = seat;
+        int numberOfSeats = this.numberOfSeats.getAsInt();
+        for (int steps = 1; steps <= numberOfSeats; steps++) {
+            Philosopher phil = seats.apply(current);
+            Fork pending = (phil == null) ? null : phil.getPendingFork();
+            if (pending == null) {
+                return 0;
+            }
+            int holder = pending.getCurrentHolder();
+            if (holder < 0 || holder == current) {
+                return 0; // free (or shutting down): the wait will end
+            }
+            if (holder == seat) {
+                return steps;
+            }
+            current = holder;
+        }
+        return 0; // a cycle that does not include seat; one of its members reports it
+    }
+
+    // Wait up to ms milliseconds for an unrecovered deadlock. True if there is one.
+    public boolean awaitDeadlock(long ms) throws InterruptedException {
+        return firstDeadlock.await(ms, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isDeadlocked() {
+        return !recover && deadlockCount.get() > 0;
+    }
+
+    public boolean isRecovering() {
+        return recover;
+    }
+
+    public long getDeadlockCount() {
+        return deadlockCount.get();
+    }
+
+    public int[] getLastCycle() {
+        return lastCycle;
+    }
+
+    public long getLastCheckNanos() {
+        return lastCheckNanos;
+    }
+
+    // Nanoseconds from the start of the Table to the first deadlock, -1 if none yet
+    public long getFirstDetectionNanos() {
+        return firstDetectionNanos;
+    }
+}
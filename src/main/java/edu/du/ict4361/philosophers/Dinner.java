@@ -10,9 +10,15 @@ package edu.du.ict4361.philosophers;
 // The dinner populates and starts the Table.
 ////////////////////////////////////
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.management.JMException;
 
 /**
  * Runs a Dining Philosopher table with provided parameters
@@ -22,24 +28,41 @@ import java.util.Random;
 public class Dinner {
 
     private final Table table;
-    private int numberOfEatenMeals = -1;
+    private long numberOfEatenMeals = -1;
     private Instant instant;
+    private Instant startTime;
+    private Instant endTime;      // when the dinner was over (before the Table stopped)
+    private ShutdownReport shutdown;
+    private long bytesPerSeat;
+    private Simulation simulation; // set when the dinner runs in virtual time
+    private final TableStatusRenderer statusRenderer = new TableStatusRenderer();
+    private final Writer statusOut = new OutputStreamWriter(System.out);
+    private TableMetrics metrics;
+    private MetricsServer metricsServer;
 
     public Dinner(int seats) {
         table = new Table(seats);
     }
 
+    public Dinner(Topology topology) {
+        table = new Table(topology);
+    }
+
     public boolean isDeadlocked() {
+        DeadlockDetector detector = table.getDeadlockDetector();
+        if (detector != null) { // Wait-for graph: the detector knows right away
+            return detector.isDeadlocked();
+        }
         boolean result = false;
         if (instant == null) {
             instant = Instant.now();
             numberOfEatenMeals = table.getTotalMeals();
 
         } else {
-            int numMeals = table.getTotalMeals();
+            long numMeals = table.getTotalMeals();
             Instant t = Instant.now();
             if ( Duration.between(instant, t).compareTo(Duration.ofSeconds(deadlockTime / 1000) ) >= 0 ) {
-                int diff = numMeals - numberOfEatenMeals;
+                long diff = numMeals - numberOfEatenMeals;
                 instant = t;
                 numberOfEatenMeals = numMeals;
                 if (diff == 0) {
@@ -52,29 +75,102 @@ public class Dinner {
     
     // Compute a pseudo-random integer between min and max (uniform distribution)
     private static int getRandomNumber(int min, int max ) {
-        Random random = new Random();
-        return random.nextInt(max - min + 1) + min;
+        return ThreadLocalRandom.current().nextInt(min, max + 1);
     }
 
     public static void usage() {
         System.out.println("Usage");
         System.out.println("Dinner"
                            + " --philosophers num"
-                           + " --think-time ms"
-                           + " --eat-time ms"
-                           + " --fork-time ms"
+                           + " --topology ring|grid:RxC|torus:RxC|random:D[:seed]|kforks:M:K[:seed]"
+                           + " --think-time time"
+                           + " --eat-time time"
+                           + " --fork-time time"
                            + " --status-time ms"
                            + " --deadlock ms" 
                            + " --wait-time ms"
-                           + " --iterations num");
+                           + " --iterations num"
+                           + " --strategy " + String.join("|", ForkStrategy.getNames())
+                           + " --try-timeout ms"
+                           + " --backoff ms"
+                           + " --max-backoff ms"
+                           + " --max-consecutive num"
+                           + " --threads platform|virtual"
+                           + " --launch staggered|immediate"
+                           + " --wait-mode sleep|park|spin"
+                           + " --no-yield"
+                           + " --stress"
+                           + " --fork-type semaphore|fair|atomic"
+                           + " --layout compact|padded"
+                           + " --detector graph|meals"
+                           + " --recover"
+                           + " --simulate"
+                           + " --status full|compact|none"
+                           + " --event-log file"
+                           + " --event-log-size MB"
+                           + " --metrics-port port"
+                           + " --target-utilization u"
+                           + " --control-period ms"
+                           + " --lease-meals K"
+                           + " --think-distribution dist"
+                           + " --eat-distribution dist"
+                           + " --fork-distribution dist"
+                           + " --profile file"
+                           + " --faults plan"
+                           + " --fork-lease time"
+                           + " --drain-time ms"
+                           + " --stop-time ms");
         System.exit(0);
     }
     
     /*
-     * -p: Number of philosophers --philosophers -t: Think time (millis)
-     * --think-time -e: Eat time (millis) --eat-time -f: Time needed to pick up
-     * fork (millis) --fork-time -s: Status interval (millis) --status-time -d:
-     * Deadlock detection interval (millis) --deadlock-time
+     * -p: Number of philosophers --philosophers -t: Think time (millis, or with a unit:
+     * 250us, 800ns, 1.5ms) --think-time -e: Eat time --eat-time -f: Time needed to pick up
+     * fork --fork-time -s: Status interval (millis) --status-time -d:
+     * Deadlock detection interval (millis, with --detector meals) --deadlock-time
+     * --topology: which forks each seat needs: ring (the round table), grid:RxC or torus:RxC
+     *   (R*C seats, a fork between grid neighbors), random:D (a random graph of average degree D
+     *   over --philosophers seats) or kforks:M:K (--philosophers seats, M forks, K random forks each)
+     * -S: Fork strategy (naive, ordering, waiter, chandy, asymmetric, backoff, fair, batch) --strategy
+     * --try-timeout, --backoff, --max-backoff: second fork timeout and back-off range (millis)
+     *   for the backoff strategy
+     * --max-consecutive: for the fair strategy, at most this many meals of a seat while a
+     *   neighbor stays hungry (0: no bound)
+     * --threads: platform or virtual threads for the Philosophers
+     * --launch: staggered (pause --wait-time between launches) or immediate
+     * --wait-mode: how the think, eat and fork times are spent: sleep (the original, whole
+     *   milliseconds), park (sub-millisecond) or spin (busy-wait, one core per philosopher)
+     * --no-yield: skip the Thread.yield() after every state change
+     * --stress: --wait-mode spin --no-yield, to measure the fork hand-off itself
+     * --fork-type: semaphore (the original Fork), fair (with a fair Semaphore) or atomic (CAS on the holder)
+     * --layout: compact, or padded to keep the hot fork and philosopher state of neighboring
+     *   seats off each other's cache lines (pads atomic forks and the philosophers' state and time accounting)
+     * --detector: graph (wait-for graph cycles, the default) or meals (no meals within --deadlock-time)
+     * --recover: with the graph detector, break deadlocks instead of ending the dinner
+     * --simulate: run the dinner as a discrete-event simulation in virtual time
+     * --status: status report per seat (full), summarized (compact) or none;
+     *   by default full up to 1000 seats and compact above
+     * --event-log: write every state change, fork pick up/put down and meal to a binary
+     *   file (replay it with EventLogReplay); --event-log-size: its capacity in megabytes
+     * --metrics-port: serve live metrics in the Prometheus text format on localhost:port/metrics
+     *   (the same metrics are always available over JMX as edu.du.ict4361.philosophers:type=Table)
+     * --target-utilization: adapt each philosopher's think time while the table runs (feedback) to keep
+     *   the forks in use this share of the time, e.g. 0.6 (default 0: fixed think time)
+     * --control-period: how often the think times are adjusted (millis, default 100)
+     * --lease-meals: fork leases: a philosopher holding its forks eats up to K meals in a row
+     *   before putting them down, unless a neighbor waits for one of them (default 1: no leases)
+     * --think-distribution, --eat-distribution, --fork-distribution: draw every think, eat or fork
+     *   time around its mean: constant (default), exponential, lognormal[:sigma], pareto[:shape]
+     *   or trace:file (see TimingDistribution)
+     * --profile: a workload profile file: per seat distributions and scales, and bursts of hunger
+     *   (see WorkloadProfile); the distribution options above override its defaults for every seat
+     * --faults: make seats fail while the table runs, a comma separated plan of kill:seat@time,
+     *   pause:seat@time:duration and slow:seat@time:duration:factor (see FaultInjector)
+     * --fork-lease: reclaim the forks of a seat that stops showing signs of life for this long
+     *   (millis, or with a unit; see ForkLeaseMonitor); longer than any meal (default: no leases)
+     * --drain-time: at the end, how long meals in progress may finish before the philosophers still
+     *   at the table are interrupted (default: one eat time and two fork times; none after a deadlock)
+     * --stop-time: how long to wait for the interrupted philosophers to leave (default 2000)
      */
     public static void parseArgs(String[ ] args) {
         for (int i=0; i<args.length; i++) {
@@ -84,20 +180,24 @@ public class Dinner {
                 i++;
                 numberOfPhilosophers = Integer.valueOf(args[i]);
                 break;
+            case "--topology":
+                i++;
+                topology = args[i];
+                break;
             case "-t":
             case "--think-time":
                 i++;
-                thinkTime = Integer.valueOf(args[i]);
+                thinkNanos = WaitMode.parseDuration(args[i]);
                 break;
             case "-e":
             case "--eat-time":
                 i++;
-                eatTime = Integer.valueOf(args[i]);
+                eatNanos = WaitMode.parseDuration(args[i]);
                 break;
             case "-f":
             case "--fork-time":
                 i++;
-                forkTime = Integer.valueOf(args[i]);
+                forkNanos = WaitMode.parseDuration(args[i]);
                 break;
             case "-s":
             case "--status-time":
@@ -117,6 +217,123 @@ public class Dinner {
                 i++;
                 waitTime = Integer.valueOf(args[i]);
                 break;
+            case "-S": case "--strategy":
+                i++;
+                strategy = args[i];
+                break;
+            case "--try-timeout":
+                i++;
+                tryTimeout = Integer.valueOf(args[i]);
+                break;
+            case "--backoff":
+                i++;
+                backoffTime = Integer.valueOf(args[i]);
+                break;
+            case "--max-consecutive":
+                i++;
+                maxConsecutive = Integer.valueOf(args[i]);
+                break;
+            case "--max-backoff":
+                i++;
+                maxBackoffTime = Integer.valueOf(args[i]);
+                break;
+            case "--threads":
+                i++;
+                executionMode = ExecutionMode.forName(args[i]);
+                break;
+            case "--launch":
+                i++;
+                launch = args[i];
+                break;
+            case "--wait-mode":
+                i++;
+                waitMode = WaitMode.forName(args[i]);
+                break;
+            case "--no-yield":
+                yieldOnStateChange = false;
+                break;
+            case "--stress":
+                waitMode = WaitMode.SPIN;
+                yieldOnStateChange = false;
+                break;
+            case "--fork-type":
+                i++;
+                forkType = ForkType.forName(args[i]);
+                break;
+            case "--layout":
+                i++;
+                layout = Layout.forName(args[i]);
+                break;
+            case "--detector":
+                i++;
+                detector = args[i];
+                break;
+            case "--recover":
+                recover = true;
+                break;
+            case "--simulate":
+                simulate = true;
+                break;
+            case "--status":
+                i++;
+                statusMode = TableStatusRenderer.modeFor(args[i]);
+                break;
+            case "--event-log":
+                i++;
+                eventLogFile = args[i];
+                break;
+            case "--event-log-size":
+                i++;
+                eventLogSize = Integer.valueOf(args[i]);
+                break;
+            case "--metrics-port":
+                i++;
+                metricsPort = Integer.valueOf(args[i]);
+                break;
+            case "--target-utilization":
+                i++;
+                targetUtilization = Double.valueOf(args[i]);
+                break;
+            case "--control-period":
+                i++;
+                controlPeriod = Integer.valueOf(args[i]);
+                break;
+            case "--lease-meals":
+                i++;
+                leaseMeals = Integer.valueOf(args[i]);
+                break;
+            case "--think-distribution":
+                i++;
+                thinkDistribution = args[i];
+                break;
+            case "--eat-distribution":
+                i++;
+                eatDistribution = args[i];
+                break;
+            case "--fork-distribution":
+                i++;
+                forkDistribution = args[i];
+                break;
+            case "--profile":
+                i++;
+                profileFile = args[i];
+                break;
+            case "--faults":
+                i++;
+                faultPlan = args[i];
+                break;
+            case "--fork-lease":
+                i++;
+                forkLeaseNanos = WaitMode.parseDuration(args[i]);
+                break;
+            case "--drain-time":
+                i++;
+                drainTime = Integer.valueOf(args[i]);
+                break;
+            case "--stop-time":
+                i++;
+                stopTime = Integer.valueOf(args[i]);
+                break;
             case "-h": case "--help":
                 usage();
                 break;
@@ -129,90 +346,380 @@ public class Dinner {
     
     // Default values
     private static int numberOfPhilosophers=5;
-    private static int thinkTime=1000;
-    private static int eatTime=1000;
-    private static int forkTime=1000;
+    private static String topology = "ring";
+    private static long thinkNanos=1_000_000_000L;
+    private static long eatNanos=1_000_000_000L;
+    private static long forkNanos=1_000_000_000L;
+    private static WaitMode waitMode = WaitMode.SLEEP;
+    private static boolean yieldOnStateChange = true;
     private static int statusTime=6000;
     private static int deadlockTime=3000;
     private static int iterations = 7;
+    private static String strategy = "naive";
+    private static int tryTimeout = -1; // -1: use the fork time
+    private static int backoffTime = 10;
+    private static int maxBackoffTime = 1000;
+    private static int maxConsecutive = 0; // 0: no bound
+    private static ExecutionMode executionMode = ExecutionMode.PLATFORM;
+    private static ForkType forkType = ForkType.SEMAPHORE;
+    private static Layout layout = Layout.COMPACT;
+    private static String detector = "graph";
+    private static boolean recover = false;
+    private static boolean simulate = false;
+    private static TableStatusRenderer.Mode statusMode = null;
+    private static String eventLogFile = null;
+    private static int eventLogSize = 256; // megabytes
+    private static int metricsPort = -1; // -1: no HTTP endpoint
+    private static String launch = null; // default: staggered for platform, immediate for virtual threads
+    private static double targetUtilization = 0; // 0: fixed think time
+    private static int controlPeriod = (int) ThinkTimeController.DEFAULT_PERIOD_MILLIS;
+    private static int leaseMeals = 1;
+    private static String thinkDistribution = null; // null: constant, or the profile's
+    private static String eatDistribution = null;
+    private static String forkDistribution = null;
+    private static String profileFile = null;
+    private static String faultPlan = null;
+    private static long forkLeaseNanos = 0; // 0: forks are held for as long as their holder likes
+    private static int drainTime = -1; // -1: the Table's default
+    private static int stopTime = 2000;
     // To avoid early deadlock, waitTime > forkTime (perhaps waitTime = forktime + 10)
-    private static int waitTime = forkTime + getRandomNumber(-8,10); 
+    private static int waitTime = (int) (forkNanos / 1_000_000) + getRandomNumber(-8,10); 
     
     public static void main(String[] args) {
         parseArgs(args);
-        Dinner dinner = new Dinner(numberOfPhilosophers);
-        Dinner.setThinkTime(thinkTime);
-        Dinner.setEatTime(eatTime);
-        Dinner.setForkTime(forkTime);
-        Table.setPauseTime(waitTime);
+        Dinner dinner = new Dinner(Topology.forName(topology, numberOfPhilosophers));
+        dinner.table.setThinkNanos(thinkNanos);
+        dinner.table.setEatNanos(eatNanos);
+        dinner.table.setForkNanos(forkNanos);
+        dinner.table.setWaitMode(waitMode);
+        dinner.table.setYieldOnStateChange(yieldOnStateChange);
+        dinner.table.setPauseTime(waitTime);
+        ForkStrategy forkStrategy = ForkStrategy.forName(strategy, dinner.table);
+        if (forkStrategy instanceof BackoffStrategy) {
+            BackoffStrategy backoff = (BackoffStrategy) forkStrategy;
+            backoff.setTryTimeout(tryTimeout >= 0 ? tryTimeout : dinner.getForkTime());
+            backoff.setBaseBackoff(backoffTime);
+            backoff.setMaxBackoff(maxBackoffTime);
+        }
+        if (forkStrategy instanceof FairStrategy) {
+            ((FairStrategy) forkStrategy).setMaxConsecutive(maxConsecutive);
+        }
+        dinner.table.setForkStrategy(forkStrategy);
+        dinner.table.setExecutionMode(executionMode);
+        if (launch == null) {
+            launch = (executionMode == ExecutionMode.VIRTUAL) ? "immediate" : "staggered";
+        }
+        dinner.table.setStaggeredStart(!"immediate".equals(launch));
+        dinner.table.setForkType(forkType);
+        dinner.table.setLayout(layout);
+        dinner.table.setLeaseMeals(leaseMeals);
+        WorkloadProfile profile = (profileFile != null) ? WorkloadProfile.load(profileFile) : null;
+        if (thinkDistribution != null || eatDistribution != null || forkDistribution != null) {
+            if (profile == null) {
+                profile = new WorkloadProfile("command line");
+            }
+            if (thinkDistribution != null) {
+                profile.setDistribution(WorkloadProfile.Activity.THINK, TimingDistribution.forName(thinkDistribution));
+            }
+            if (eatDistribution != null) {
+                profile.setDistribution(WorkloadProfile.Activity.EAT, TimingDistribution.forName(eatDistribution));
+            }
+            if (forkDistribution != null) {
+                profile.setDistribution(WorkloadProfile.Activity.FORK, TimingDistribution.forName(forkDistribution));
+            }
+        }
+        dinner.table.setWorkloadProfile(profile);
+        if (targetUtilization > 0) {
+            if (simulate) {
+                System.err.println("The think time controller needs threads; the simulation keeps the fixed think time.");
+            } else {
+                ThinkTimeController controller = new ThinkTimeController(dinner.table, targetUtilization);
+                controller.setPeriodMillis(controlPeriod);
+                dinner.table.setThinkTimeController(controller);
+            }
+        }
+        if (faultPlan != null || forkLeaseNanos > 0) {
+            if (simulate) {
+                System.err.println("Faults and fork leases need threads; the simulation runs without them.");
+            } else {
+                if (forkLeaseNanos > 0) {
+                    dinner.table.setForkLeaseMonitor(new ForkLeaseMonitor(dinner.table, forkLeaseNanos));
+                }
+                if (faultPlan != null) {
+                    dinner.table.setFaultInjector(FaultInjector.forPlan(dinner.table, faultPlan));
+                }
+            }
+        }
+        if ("graph".equals(detector)) {
+            if (!simulate) { // The simulation sees a deadlock itself: every seat waiting, nothing scheduled
+                dinner.table.setDeadlockDetector(new DeadlockDetector(dinner.table, recover));
+            }
+        } else if (!"meals".equals(detector)) {
+            throw new IllegalArgumentException("Unknown deadlock detector: " + detector);
+        }
+        if (eventLogFile != null) {
+            try {
+                dinner.table.setEventLog(new EventLog(Paths.get(eventLogFile), dinner.table,
+                                                      eventLogSize * 1024L * 1024L, simulate));
+            } catch (IOException e) {
+                System.err.println("Cannot open event log " + eventLogFile + ": " + e.getMessage() + ". Not logging.");
+            }
+        }
         
+        long heapBefore = usedHeap();
         dinner.table.populateTable();
         
         dinner.printConfiguration();
+        dinner.startMetrics();
+
+        if (simulate) {
+            dinner.simulate();
+            return;
+        }
 
+        dinner.startTime = Instant.now();
         dinner.table.startTable();
+        dinner.bytesPerSeat = (usedHeap() - heapBefore) / dinner.table.getNumberOfPhilosophers();
+        dinner.printStartup();
         
         // Run the table for a number of status iterations
+        DeadlockDetector graph = dinner.table.getDeadlockDetector();
+        boolean deadlocked = false;
         for (int i = 0; i < iterations; i++) {
             try {
-                Thread.sleep(statusTime);
+                if (graph != null) {
+                    graph.awaitDeadlock(statusTime); // Returns early if the dinner deadlocks
+                } else {
+                    Thread.sleep(statusTime);
+                }
             } catch (Exception e) {
             }
-            System.out.println(dinner.table.getTableStatus());
+            dinner.printStatus();
             if (dinner.isDeadlocked()) {
-                System.err.println("Deadlock detected. Shutdown may generate error messages.");
+                System.err.println("Deadlock detected. Stopping the table.");
+                deadlocked = true;
                 break;
             }
         }
-        dinner.table.setPartyIsOn(false); // Release locks so Philosophers can exit
+        dinner.stopTable(deadlocked);
         dinner.printSummaryResult();
+        dinner.closeEventLog();
+        dinner.stopMetrics();
+    }
+
+    // Drain (unless deadlocked: nothing would finish), interrupt the rest, join them all
+    private void stopTable(boolean deadlocked) {
+        endTime = Instant.now();
+        long drain = deadlocked ? 0 : (drainTime >= 0 ? drainTime : table.getDefaultDrainMillis());
+        shutdown = table.stop(drain, stopTime);
+    }
+
+    // Run the same dinner in virtual time with the discrete-event Simulation, no threads
+    private void simulate() {
+        simulation = new Simulation(table);
+        startTime = Instant.now();
+        for (int i = 0; i < iterations; i++) {
+            simulation.run((i + 1) * statusTime * 1_000_000L);
+            printStatus();
+            if (simulation.isDeadlocked()) {
+                System.err.println("Deadlock: every philosopher is waiting (virtual time "
+                                   + String.format("%.3f", simulation.getVirtualTime() / 1e9) + " seconds)");
+                break;
+            }
+        }
+        table.setPartyIsOn(false);
+        printSummaryResult();
+        closeEventLog();
+        stopMetrics();
+    }
+
+    // Live metrics: always as an MBean, and over HTTP if there is a --metrics-port
+    private void startMetrics() {
+        metrics = new TableMetrics(table);
+        try {
+            metrics.register();
+        } catch (JMException e) {
+            System.err.println("Cannot register the metrics MBean: " + e.getMessage());
+        }
+        if (metricsPort >= 0) {
+            try {
+                metricsServer = new MetricsServer(metrics, metricsPort);
+                metricsServer.start();
+                System.out.println("Metrics: http://localhost:" + metricsServer.getPort() + "/metrics");
+            } catch (IOException e) {
+                System.err.println("Cannot serve metrics on port " + metricsPort + ": " + e.getMessage());
+                metricsServer = null;
+            }
+        }
+    }
+
+    private void stopMetrics() {
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
+        try {
+            metrics.unregister();
+        } catch (JMException e) {
+            System.err.println("Cannot unregister the metrics MBean: " + e.getMessage());
+        }
     }
 
-    public static int getThinkTime() {
-        return Philosopher.getThinkTime();
+    private void closeEventLog() {
+        EventLog log = table.getEventLog();
+        if (log == null) {
+            return;
+        }
+        try {
+            log.close();
+            System.out.println("Event log: " + log.getPath() + ", " + log.getBytesUsed() + " bytes"
+                               + (log.getDroppedEvents() > 0 ? ", " + log.getDroppedEvents() + " events dropped (log full)" : "")
+                               + " (replay with EventLogReplay " + log.getPath() + ")");
+        } catch (IOException e) {
+            System.err.println("Cannot close event log " + log.getPath() + ": " + e.getMessage());
+        }
     }
 
-    public static void setThinkTime(int thinkTime) {
-        Philosopher.setThinkTime(thinkTime);
+    // Status report from a snapshot, through a reusable renderer (no garbage per seat)
+    public void printStatus() {
+        if (statusMode == null) {
+            statusMode = table.getNumberOfPhilosophers() <= 1000 ? TableStatusRenderer.Mode.FULL : TableStatusRenderer.Mode.COMPACT;
+        }
+        if (statusMode == TableStatusRenderer.Mode.NONE) {
+            return;
+        }
+        try {
+            statusRenderer.render(table, statusMode);
+            statusRenderer.writeTo(statusOut);
+        } catch (IOException e) {
+            System.err.println("Status report failed: " + e.getMessage());
+        }
+        System.out.println();
     }
 
-    public static int getEatTime() {
-        return Philosopher.getEatTime();
+    public int getThinkTime() {
+        return table.getThinkTime();
     }
 
-    public static void setEatTime(int eatTime) {
-        Philosopher.setEatTime(eatTime);
+    public void setThinkTime(int thinkTime) {
+        table.setThinkTime(thinkTime);
     }
 
-    public static int getForkTime() {
-        return Philosopher.getForkTime();
+    public int getEatTime() {
+        return table.getEatTime();
     }
 
-    public static void setForkTime(int forkTime) {
-        Philosopher.setForkTime(forkTime);
+    public void setEatTime(int eatTime) {
+        table.setEatTime(eatTime);
+    }
+
+    public int getForkTime() {
+        return table.getForkTime();
+    }
+
+    public void setForkTime(int forkTime) {
+        table.setForkTime(forkTime);
     }
     
+    // Heap in use, after asking for a collection so the figure is mostly live objects
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public void printStartup() {
+        StringBuffer sb = new StringBuffer();
+        sb.append("Startup:");
+        sb.append("\n");
+        sb.append("  Startup time:           "+String.format("%.3f", table.getStartupNanos() / 1e6)+" milliseconds");
+        sb.append("\n");
+        sb.append("  Heap per seat:          "+bytesPerSeat+" bytes"
+                  +" (Philosopher, Forks and thread; platform thread stacks are not on the heap)");
+        System.out.println(sb);
+    }
+
     public void printConfiguration() {
         StringBuffer sb = new StringBuffer();
         sb.append("Configuration:");
         sb.append("\n");
         sb.append("  Number of philosophers: "+table.getNumberOfPhilosophers());
         sb.append("\n");
-        sb.append("  Think time:             "+getThinkTime()+" milliseconds");
+        sb.append("  Topology:               "+table.getTopology().getDescription()+" ("+table.getNumberOfForks()+" forks)");
         sb.append("\n");
-        sb.append("  Eat time:               "+getEatTime()+" milliseconds");
+        sb.append("  Think time:             "+WaitMode.formatDuration(table.getThinkNanos()));
+        sb.append("\n");
+        ThinkTimeController controller = table.getThinkTimeController();
+        if (controller != null) {
+            sb.append("  Think time control:     feedback to fork utilization "+String.format("%.2f", controller.getTarget())
+                      +", every "+controller.getPeriodMillis()+" milliseconds");
+            sb.append("\n");
+        }
+        sb.append("  Eat time:               "+WaitMode.formatDuration(table.getEatNanos()));
         sb.append("\n");
-        sb.append("  Fork time:              "+getForkTime()+" milliseconds");
+        sb.append("  Fork time:              "+WaitMode.formatDuration(table.getForkNanos()));
         sb.append("\n");
-        sb.append("  Inter-launch wait time: "+Table.getPauseTime()+" milliseconds");
+        WorkloadProfile profile = table.getWorkloadProfile();
+        if (profile != null) {
+            sb.append("  Workload profile:       "+profile.describe());
+            sb.append("\n");
+        }
+        sb.append("  Inter-launch wait time: "+table.getPauseTime()+" milliseconds");
         sb.append("\n");
         sb.append("  Status interval:        "+statusTime+" milliseconds");
         sb.append("\n");
+        sb.append("  Fork strategy:          "+table.getForkStrategy().getName());
+        sb.append("\n");
+        sb.append("  Fork type:              "+table.getForkType().name().toLowerCase()
+                  +", "+table.getLayout().name().toLowerCase()+" layout");
+        sb.append("\n");
+        ForkLeaseMonitor leaseMonitor = table.getForkLeaseMonitor();
+        if (leaseMonitor != null) {
+            sb.append("  Fork ownership:         leased, reclaimed after "+WaitMode.formatDuration(leaseMonitor.getLeaseNanos())
+                      +" without a heartbeat (checked every "+WaitMode.formatDuration(leaseMonitor.getPeriodNanos())+")");
+            sb.append("\n");
+        }
+        FaultInjector injector = table.getFaultInjector();
+        if (injector != null) {
+            sb.append("  Faults:                ");
+            for (FaultInjector.Fault fault : injector.getFaults()) {
+                sb.append(" "+fault.describe()+";");
+            }
+            sb.setLength(sb.length() - 1);
+            sb.append("\n");
+        }
+        if (table.getLeaseMeals() > 1) {
+            sb.append("  Fork leases:            up to "+table.getLeaseMeals()+" meals per pick up, while no neighbor waits");
+            sb.append("\n");
+        }
+        sb.append("  Deadlock detection:     "+(simulate ? "every seat waiting in virtual time"
+                  : table.getDeadlockDetector() == null ? "meals per "+deadlockTime+" milliseconds"
+                  : "wait-for graph"+(recover ? ", with recovery" : "")));
+        sb.append("\n");
+        sb.append("  Execution mode:         "+table.getExecutionMode().getDescription()
+                  +(table.isStaggeredStart() ? ", staggered launch" : ", immediate launch"));
+        sb.append("\n");
+        sb.append("  Wait mode:              "+table.getWaitMode().name().toLowerCase()
+                  +(table.isYieldOnStateChange() ? ", yield on state change" : ", no yield"));
+        sb.append("\n");
+        if (table.getForkStrategy() instanceof BackoffStrategy) {
+            BackoffStrategy backoff = (BackoffStrategy) table.getForkStrategy();
+            sb.append("  Second fork timeout:    "+backoff.getTryTimeout()+" milliseconds");
+            sb.append("\n");
+            sb.append("  Back-off range:         "+backoff.getBaseBackoff()+" to "+backoff.getMaxBackoff()+" milliseconds");
+            sb.append("\n");
+        }
+        if (table.getForkStrategy() instanceof FairStrategy) {
+            int bound = ((FairStrategy) table.getForkStrategy()).getMaxConsecutive();
+            sb.append("  Consecutive meal bound: "+(bound > 0 ? bound+" meals while a neighbor is hungry" : "none"));
+            sb.append("\n");
+        }
         sb.append("  Status iterations:      "+iterations+" (about "+(iterations*statusTime / 1000 )+" seconds)");
         System.out.println(sb);
     }
     
     public void printSummaryResult() {
+        Duration wallTime = Duration.between(startTime, endTime != null ? endTime : Instant.now());
+        Duration elapsed = (simulation == null) ? wallTime : Duration.ofNanos(simulation.getVirtualTime());
         StringBuffer sb = new StringBuffer() ;
         sb.append("Results:");
         sb.append("\n");
@@ -222,7 +729,94 @@ public class Dinner {
         sb.append("\n");
         sb.append("  Minimum meals:           "+table.getMinimumMeals());
         sb.append("\n");
+        sb.append("  Meal spread (max - min): "+(table.getMaximumMeals() - table.getMinimumMeals()));
+        sb.append("\n");
         sb.append("  Average meals:           "+String.format("%.2f",table.getAverageMeals()));
+        sb.append("\n");
+        sb.append("  Standard deviation:      "+String.format("%.2f",Math.sqrt(table.getMealVariance())));
+        sb.append("\n");
+        sb.append("  Fairness (Jain's index): "+String.format("%.4f",table.getFairnessIndex()));
+        sb.append("\n");
+        sb.append("  Meals per second:        "+String.format("%.2f",table.getTotalMeals() / Math.max(1e-9, elapsed.toNanos() / 1e9)));
+        sb.append("\n");
+        if (table.getTotalMeals() > 0) {
+            // Per meal of the whole table, and per meal of one seat (all seats run at once)
+            double nanosPerMeal = elapsed.toNanos() / (double) table.getTotalMeals();
+            sb.append("  Time per meal:           "+String.format("%.3f", nanosPerMeal / 1e3)+" microseconds (table), "
+                      +String.format("%.3f", nanosPerMeal * table.getNumberOfPhilosophers() / 1e3)+" microseconds (seat)");
+            sb.append("\n");
+        }
+        LatencyHistogram forkWait = table.getForkWaitHistogram();
+        sb.append("  Fork wait (ms):          p50 "+String.format("%.2f", forkWait.getValueAtPercentile(50) / 1e6)
+                  +"  p99 "+String.format("%.2f", forkWait.getValueAtPercentile(99) / 1e6)
+                  +"  max "+String.format("%.2f", forkWait.getMaxValue() / 1e6)
+                  +"  ("+forkWait.getTotalCount()+" pick ups)");
+        sb.append("\n");
+        sb.append("  Utilization (eating):    "+String.format("%.1f%%", 100 * table.getStateShare(Philosopher.STATE.EATING)));
+        sb.append("\n");
+        sb.append("  Time in state:          ");
+        for (Philosopher.STATE state : Philosopher.STATE.values()) {
+            sb.append(" "+state+" "+String.format("%.1f%%", 100 * table.getStateShare(state)));
+        }
+        sb.append("\n");
+        DeadlockDetector graph = table.getDeadlockDetector();
+        if (graph != null) {
+            sb.append("  Deadlocks detected:      "+graph.getDeadlockCount()
+                      +(graph.isRecovering() ? " (all broken by releasing a fork)" : ""));
+            sb.append("\n");
+            if (graph.getLastCycle() != null) {
+                sb.append("  Last deadlock cycle:     seats "+Arrays.toString(graph.getLastCycle())
+                          +", first found after "+String.format("%.3f", graph.getFirstDetectionNanos() / 1e9)+" seconds");
+                sb.append("\n");
+            }
+        }
+        if (table.getTotalRetries() > 0) {
+            sb.append("  Total retries:           "+table.getTotalRetries());
+            sb.append("\n");
+            sb.append("  Total back-off time:     "+table.getTotalBackoffTime()+" milliseconds");
+            sb.append("\n");
+            for (int seat = 0; seat < table.getNumberOfPhilosophers(); seat++) {
+                Philosopher phil = table.getPhilosopher(seat);
+                sb.append("    "+phil.getName()+": "+phil.getNumberOfTimesEating()+" meals, "
+                          +phil.getNumberOfRetries()+" retries, "
+                          +phil.getBackoffTimeTotal()+" ms backed off");
+                sb.append("\n");
+            }
+        }
+        if (table.getLeaseMeals() > 1) {
+            long leases = table.getTotalLeases();
+            sb.append("  Fork leases:             "+leases+" leases, "
+                      +String.format("%.2f", leases == 0 ? 0.0 : (double) (leases + table.getTotalLeasedMeals()) / leases)
+                      +" meals per lease, "+table.getTotalLeasesYielded()+" ended early for a waiting neighbor");
+            sb.append("\n");
+        }
+        ForkLeaseMonitor leaseMonitor = table.getForkLeaseMonitor();
+        if (leaseMonitor != null) {
+            sb.append("  Fork recovery:           "+leaseMonitor.describe()+", "+table.getTotalReclaimedMeals()+" meals lost by stalled holders");
+            sb.append("\n");
+        }
+        FaultInjector injector = table.getFaultInjector();
+        if (injector != null) {
+            sb.append("  Faults:");
+            sb.append("\n");
+            sb.append(injector.report());
+        }
+        ThinkTimeController controller = table.getThinkTimeController();
+        if (controller != null) {
+            sb.append("  Adaptive think time:     "+controller.describe());
+            sb.append("\n");
+        }
+        if (shutdown != null) {
+            sb.append("  Shutdown:                "+shutdown.describe());
+            sb.append("\n");
+        }
+        if (simulation != null) {
+            sb.append("Simulated time: " + elapsed + " in " + wallTime + " of wall time ("
+                      + String.format("%.0f", simulation.getEventsProcessed() / Math.max(1e-9, wallTime.toNanos() / 1e9))
+                      + " events per second)");
+        } else {
+            sb.append("Elapsed time: " + elapsed);
+        }
         System.out.println(sb);
     }
 }
@@ -0,0 +1,320 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// DistributedDinner.java
+//
+// A dinner spread over several processes: starts one JVM per DistributedNode on this machine,
+// each with a block of the seats, lets them pass forks to each other as Chandy-Misra messages over
+// localhost sockets, and adds up the results they print. Then, for comparison, runs the same
+// dinner in this process on a Table with the chandy strategy. For example
+//   DistributedDinner --philosophers 50 --nodes 4 --think-time 5 --eat-time 5 --duration 5000
+// Prints the results like Dinner does, with the round trip of a fork hand off (request sent to fork
+// received, less the time the holder kept the request waiting) between seats of one process and
+// of two processes, and how many messages went out per write. With --placement interleaved every
+// fork is shared by two processes. There is no fork time: passing a fork is a message, and its
+// latency is the cost.
+//
+// With --node it is one of the nodes (the launcher starts them so): node i of --nodes P listens on
+// --port + i, waits for --start-at (milliseconds since the epoch, the same for every node), runs
+// for --duration and prints its RESULT line.
+////////////////////////////////////
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DistributedDinner {
+    private int seats = 20;
+    private int nodes = 2;
+    private boolean interleaved = false; // seat placement: blocks of seats, or seat s on node s % nodes
+    private long thinkNanos = 10_000_000;
+    private long eatNanos = 10_000_000;
+    private int duration = 5000; // milliseconds
+    private int port = 47000;
+    private WaitMode waitMode = WaitMode.PARK; // of the in-process Table
+    private long seed = System.nanoTime();
+    private boolean baseline = true;
+    private int node = -1;      // >= 0: run as this node
+    private long startAt = 0;   // the nodes' common start, System.currentTimeMillis
+
+    public static void usage() {
+        System.out.println("Usage");
+        System.out.println("DistributedDinner"
+                           + " --philosophers num"
+                           + " --nodes num"
+                           + " --placement block|interleaved"
+                           + " --think-time time"
+                           + " --eat-time time"
+                           + " --duration ms"
+                           + " --port num"
+                           + " --wait-mode sleep|park|spin"
+                           + " --seed num"
+                           + " --no-baseline");
+        System.out.println("  Times are milliseconds, or with a unit: 250us, 800ns, 1.5ms."
+                           + " Node i listens on port + i. The wait mode is the in-process Table's.");
+    }
+
+    public void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "-p":
+            case "--philosophers":
+                i++;
+                seats = Integer.valueOf(args[i]);
+                break;
+            case "--nodes":
+                i++;
+                nodes = Integer.valueOf(args[i]);
+                break;
+            case "--placement":
+                i++;
+                if (!args[i].equals("block") && !args[i].equals("interleaved")) {
+                    throw new IllegalArgumentException("Unknown placement: " + args[i] + " (block or interleaved)");
+                }
+                interleaved = args[i].equals("interleaved");
+                break;
+            case "-t":
+            case "--think-time":
+                i++;
+                thinkNanos = WaitMode.parseDuration(args[i]);
+                break;
+            case "-e":
+            case "--eat-time":
+                i++;
+                eatNanos = WaitMode.parseDuration(args[i]);
+                break;
+            case "--duration":
+                i++;
+                duration = Integer.valueOf(args[i]);
+                break;
+            case "--port":
+                i++;
+                port = Integer.valueOf(args[i]);
+                break;
+            case "--wait-mode":
+                i++;
+                waitMode = WaitMode.forName(args[i]);
+                break;
+            case "--seed":
+                i++;
+                seed = Long.valueOf(args[i]);
+                break;
+            case "--no-baseline":
+                baseline = false;
+                break;
+            case "--node":
+                i++;
+                node = Integer.valueOf(args[i]);
+                break;
+            case "--start-at":
+                i++;
+                startAt = Long.valueOf(args[i]);
+                break;
+            case "-h": case "--help":
+                usage();
+                System.exit(0);
+                break;
+            default:
+                System.err.println("Command line option " + args[i] + " not understood. Ignored.");
+                break;
+            }
+        }
+    }
+
+    // As node: connect, run, print the results line
+    private void runNode() throws IOException, InterruptedException {
+        DistributedNode me = new DistributedNode(node, nodes, seats, interleaved, port, thinkNanos, eatNanos, seed);
+        try {
+            me.connect();
+            long late = System.currentTimeMillis() - startAt;
+            if (late > 0) {
+                System.err.println("Node " + node + " is " + late + " ms late for the start");
+            }
+            me.run(startAt, duration);
+            System.out.println(me.result());
+        } finally {
+            me.close();
+        }
+    }
+
+    // As launcher: one JVM per node, on the class path of this one
+    private List<Map<String, String>> launchNodes() throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        long start = System.currentTimeMillis() + 1000 + 300L * nodes; // time for every JVM to start and connect
+        List<Process> processes = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                DistributedDinner.class.getName(), "--node", String.valueOf(i), "--nodes", String.valueOf(nodes),
+                "--philosophers", String.valueOf(seats), "--placement", interleaved ? "interleaved" : "block", "--think-time", thinkNanos + "ns",
+                "--eat-time", eatNanos + "ns", "--duration", String.valueOf(duration),
+                "--port", String.valueOf(port), "--seed", String.valueOf(seed), "--start-at", String.valueOf(start));
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            processes.add(builder.start());
+        }
+        List<Map<String, String>> results = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            Process process = processes.get(i);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("RESULT ")) {
+                        results.add(parseResult(line));
+                    } else {
+                        System.out.println("  Node " + i + ": " + line);
+                    }
+                }
+            }
+            if (process.waitFor() != 0) {
+                System.err.println("Node " + i + " failed (exit code " + process.exitValue() + ")");
+            }
+        }
+        return results;
+    }
+
+    static Map<String, String> parseResult(String line) {
+        Map<String, String> result = new HashMap<>();
+        for (String field : line.substring("RESULT ".length()).split(" ")) {
+            int equals = field.indexOf('=');
+            result.put(field.substring(0, equals), field.substring(equals + 1));
+        }
+        return result;
+    }
+
+    private static LatencyHistogram histogram(Map<String, String> result, String key) {
+        return LatencyHistogram.fromText(result.get(key).replace('/', ' '));
+    }
+
+    private static String latencies(LatencyHistogram histogram, String what) {
+        return "p50 " + String.format("%.3f", histogram.getValueAtPercentile(50) / 1e6)
+               + "  p99 " + String.format("%.3f", histogram.getValueAtPercentile(99) / 1e6)
+               + "  max " + String.format("%.3f", histogram.getMaxValue() / 1e6)
+               + "  (" + histogram.getTotalCount() + " " + what + ")";
+    }
+
+    // Adds up the nodes' results and prints them; returns the meals per second
+    private double printDistributedResult(List<Map<String, String>> results) {
+        long meals = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        double squares = 0;
+        int seated = 0;
+        long nanos = 0;
+        long localMessages = 0;
+        long remoteMessages = 0;
+        long writes = 0;
+        LatencyHistogram localRoundTrip = new LatencyHistogram();
+        LatencyHistogram remoteRoundTrip = new LatencyHistogram();
+        LatencyHistogram forkWait = new LatencyHistogram();
+        for (Map<String, String> result : results) {
+            meals += Long.parseLong(result.get("meals"));
+            min = Math.min(min, Long.parseLong(result.get("min")));
+            max = Math.max(max, Long.parseLong(result.get("max")));
+            squares += Double.parseDouble(result.get("squares"));
+            seated += Integer.parseInt(result.get("seats"));
+            nanos = Math.max(nanos, Long.parseLong(result.get("nanos")));
+            localMessages += Long.parseLong(result.get("local-messages"));
+            remoteMessages += Long.parseLong(result.get("remote-messages"));
+            writes += Long.parseLong(result.get("writes"));
+            localRoundTrip.add(histogram(result, "local-rtt"));
+            remoteRoundTrip.add(histogram(result, "remote-rtt"));
+            forkWait.add(histogram(result, "fork-wait"));
+        }
+        double average = seated == 0 ? 0.0 : (double) meals / seated;
+        double variance = seated == 0 ? 0.0 : Math.max(0.0, squares / seated - average * average);
+        double mealsPerSecond = meals / Math.max(1e-9, nanos / 1e9);
+        StringBuffer sb = new StringBuffer();
+        sb.append("Results (" + results.size() + " of " + nodes + " nodes, " + seated + " seats):");
+        sb.append("\n");
+        sb.append("  Total number of eatings: "+meals);
+        sb.append("\n");
+        sb.append("  Maximum meals:           "+max);
+        sb.append("\n");
+        sb.append("  Minimum meals:           "+(seated == 0 ? 0 : min));
+        sb.append("\n");
+        sb.append("  Meal spread (max - min): "+(seated == 0 ? 0 : max - min));
+        sb.append("\n");
+        sb.append("  Average meals:           "+String.format("%.2f", average));
+        sb.append("\n");
+        sb.append("  Standard deviation:      "+String.format("%.2f", Math.sqrt(variance)));
+        sb.append("\n");
+        sb.append("  Fairness (Jain's index): "+String.format("%.4f", squares == 0 ? 1.0 : (double) meals * meals / (seated * squares)));
+        sb.append("\n");
+        sb.append("  Meals per second:        "+String.format("%.2f", mealsPerSecond));
+        sb.append("\n");
+        sb.append("  Fork wait (ms):          "+latencies(forkWait, "pick ups"));
+        sb.append("\n");
+        sb.append("  Hand off in process:     "+latencies(localRoundTrip, "round trips"));
+        sb.append("\n");
+        sb.append("  Hand off between nodes:  "+latencies(remoteRoundTrip, "round trips"));
+        sb.append("\n");
+        sb.append("  Messages:                "+localMessages+" in process, "+remoteMessages+" between nodes in "
+                  +writes+" writes ("+String.format("%.2f", writes == 0 ? 0.0 : (double) remoteMessages / writes)+" per write)");
+        System.out.println(sb.toString());
+        return mealsPerSecond;
+    }
+
+    // The same dinner on one Table in this process
+    private void runBaseline(double distributed) throws InterruptedException {
+        Table table = new Table(seats);
+        table.setThinkNanos(thinkNanos);
+        table.setEatNanos(eatNanos);
+        table.setForkNanos(0);
+        table.setWaitMode(waitMode);
+        table.setStaggeredStart(false);
+        table.setForkStrategy(ForkStrategy.forName("chandy", table));
+        table.populateTable();
+        table.startTable();
+        Thread.sleep(duration);
+        long nanos = System.nanoTime() - table.getStartedNanos();
+        table.stop();
+        double mealsPerSecond = table.getTotalMeals() / Math.max(1e-9, nanos / 1e9);
+        StringBuffer sb = new StringBuffer();
+        sb.append("In-process Table (chandy strategy, " + waitMode.name().toLowerCase() + " waits):");
+        sb.append("\n");
+        sb.append("  Total number of eatings: "+table.getTotalMeals());
+        sb.append("\n");
+        sb.append("  Fairness (Jain's index): "+String.format("%.4f", table.getFairnessIndex()));
+        sb.append("\n");
+        sb.append("  Meals per second:        "+String.format("%.2f", mealsPerSecond));
+        sb.append("\n");
+        sb.append("  Fork wait (ms):          "+latencies(table.getForkWaitHistogram(), "pick ups"));
+        sb.append("\n");
+        sb.append("  Distributed / in-process meals per second: "
+                  +String.format("%.2f", mealsPerSecond == 0 ? 0.0 : distributed / mealsPerSecond));
+        System.out.println(sb.toString());
+    }
+
+    public static void main(String[] args) throws Exception {
+        DistributedDinner dinner = new DistributedDinner();
+        try {
+            dinner.parseArgs(args);
+            if (dinner.node >= 0) {
+                dinner.runNode();
+                return;
+            }
+            if (dinner.nodes < 1 || dinner.nodes > dinner.seats || dinner.seats < 2) {
+                throw new IllegalArgumentException("Cannot seat " + dinner.seats + " philosophers on " + dinner.nodes + " nodes");
+            }
+            if (dinner.interleaved && dinner.seats % dinner.nodes != 0) {
+                throw new IllegalArgumentException("Interleaved seats need a multiple of " + dinner.nodes
+                                                   + " philosophers, not " + dinner.seats);
+            }
+            System.out.println("Distributed dinner: " + dinner.seats + " philosophers on " + dinner.nodes
+                               + " processes (" + (dinner.interleaved ? "interleaved" : "block") + " placement), think/eat " + WaitMode.formatDuration(dinner.thinkNanos)
+                               + " / " + WaitMode.formatDuration(dinner.eatNanos)
+                               + ", " + dinner.duration + " milliseconds, ports from " + dinner.port);
+            double mealsPerSecond = dinner.printDistributedResult(dinner.launchNodes());
+            if (dinner.baseline) {
+                dinner.runBaseline(mealsPerSecond);
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// DistributedNode.java
+//
+// One process of a distributed dinner: a block of seats of one ring, spread over several JVMs.
+// There are no Fork objects. A fork is a token passed by message, as in Chandy-Misra: it belongs
+// to one of its two seats at a time and is clean or dirty, and so is its request token. A hungry
+// seat sends the request token for every fork it lacks. The holder hands a dirty fork over at once
+// (and asks for it back right away if it is hungry itself), and keeps a clean one, or one it is
+// eating with, until it has eaten. Eating makes both forks dirty. At the start every fork is
+// dirty and belongs to the lower numbered of its seats, so the precedence graph has no cycle.
+//
+// The seats are placed on the P nodes
+//   block        - node i has the seats [i*N/P, (i+1)*N/P): only the forks at the block ends cross
+//                  to node i-1 and node i+1
+//   interleaved  - seat s is on node s % P (N a multiple of P): every fork crosses between nodes
+// Either way the other seat of a fork is on node i-1, i or i+1: every node has two peers, and talks
+// to them over two localhost TCP connections. It connects to node i+1 and accepts node i-1.
+//
+// Each node is one thread in one event loop: a Selector for the connections, a due time per seat
+// for the end of thinking and eating, and a queue for the messages between its own seats.
+// A message is 16 bytes: type, fork (the fork between seats s-1 and s is fork s), to seat, and for
+// a fork how long its holder kept the request waiting (microseconds).
+//   - batching:   all the messages to a peer from one turn of the loop go out in one write; what the
+//                 socket does not take stays buffered until the Selector finds the connection writable
+//   - pipelining: a node never waits for a reply; any number of requests to a peer are in flight
+// The round trip of a hand off is the time from sending a request to receiving the fork, less the
+// time the holder kept it (eating, or hungry with a clean fork): the cost of the transport alone.
+// It is recorded by where the other seat is: in this process, or in another one.
+//
+// At the end a node prints its results as one line, "RESULT key=value ...", which the
+// DistributedDinner launcher reads from every node and adds up.
+////////////////////////////////////
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Random;
+
+public class DistributedNode {
+    static final int REQUEST = 1;
+    static final int FORK = 2;
+    static final int MESSAGE_BYTES = 16;
+
+    private static final int THINKING = 0;
+    private static final int HUNGRY = 1;
+    private static final int EATING = 2;
+
+    private static final long CONNECT_TIMEOUT_MILLIS = 10_000;
+
+    // A connection to a peer node, with its buffers
+    private static class Peer {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private final ByteBuffer in = ByteBuffer.allocateDirect(64 * 1024);
+        private ByteBuffer out = ByteBuffer.allocateDirect(64 * 1024); // grows while the peer does not keep up
+
+        Peer(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final int node;
+    private final int nodes;
+    private final int seats; // of the whole ring
+    private final boolean interleaved;
+    private final int first; // the first seat of this node (block)
+    private final int count; // seats of this node
+    private final int port;  // node i listens on port + i
+    private final long thinkNanos;
+    private final long eatNanos;
+    private final long seed;
+
+    // By local seat k (see localIndex), and for the forks by 2 * k + side (0: left, 1: right)
+    private final int[] state;
+    private final long[] dueNanos;     // the end of thinking or eating
+    private final long[] hungryNanos;  // when the seat got hungry
+    private final long[] meals;
+    private final boolean[] hasFork;
+    private final boolean[] dirty;
+    private final boolean[] hasRequest; // the request token: with the fork, a neighbor is waiting for it
+    private final long[] requestedNanos;
+    private final long[] requestArrivedNanos;
+
+    // Messages between this node's own seats: type, fork, seat, held, in a growing ring buffer
+    private int[] local = new int[4 * 64];
+    private int localHead;
+    private int localSize;
+
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Peer next; // node + 1
+    private Peer prev; // node - 1 (the same as next with two nodes)
+    private Peer back; // the connection node - 1 opened
+
+    private final LatencyHistogram localRoundTrip = new LatencyHistogram();
+    private final LatencyHistogram remoteRoundTrip = new LatencyHistogram();
+    private final LatencyHistogram forkWait = new LatencyHistogram();
+    private long localMessages;
+    private long remoteMessages;
+    private long writes;
+    private long elapsedNanos;
+
+    public DistributedNode(int node, int nodes, int seats, boolean interleaved, int port,
+                           long thinkNanos, long eatNanos, long seed) {
+        if (seats < 2 || nodes < 1 || nodes > seats || node < 0 || node >= nodes) {
+            throw new IllegalArgumentException("Node " + node + " of " + nodes + " cannot seat " + seats + " philosophers");
+        }
+        if (interleaved && seats % nodes != 0) {
+            throw new IllegalArgumentException("Interleaved seats need a multiple of " + nodes + " philosophers, not " + seats);
+        }
+        this.node = node;
+        this.nodes = nodes;
+        this.seats = seats;
+        this.interleaved = interleaved;
+        this.first = interleaved ? node : firstSeat(node, nodes, seats);
+        this.count = interleaved ? seats / nodes : firstSeat(node + 1, nodes, seats) - first;
+        this.port = port;
+        this.thinkNanos = thinkNanos;
+        this.eatNanos = eatNanos;
+        this.seed = seed;
+        state = new int[count];
+        dueNanos = new long[count];
+        hungryNanos = new long[count];
+        meals = new long[count];
+        hasFork = new boolean[2 * count];
+        dirty = new boolean[2 * count];
+        hasRequest = new boolean[2 * count];
+        requestedNanos = new long[2 * count];
+        requestArrivedNanos = new long[2 * count];
+        for (int k = 0; k < count; k++) {
+            int s = seatOf(k);
+            for (int side = 0; side < 2; side++) {
+                // The lower numbered seat holds the fork, dirty; the other holds the request token
+                boolean holder = s < neighbor(s, side);
+                hasFork[2 * k + side] = holder;
+                dirty[2 * k + side] = holder;
+                hasRequest[2 * k + side] = !holder;
+            }
+        }
+    }
+
+    static int firstSeat(int node, int nodes, int seats) {
+        return (int) ((long) node * seats / nodes);
+    }
+
+    private int neighbor(int seat, int side) {
+        return (side == 0) ? (seat - 1 + seats) % seats : (seat + 1) % seats;
+    }
+
+    private int forkOf(int seat, int side) {
+        return (side == 0) ? seat : (seat + 1) % seats;
+    }
+
+    // The node a seat is on
+    private int owner(int seat) {
+        return interleaved ? seat % nodes : (int) (((long) seat + 1) * nodes - 1) / seats;
+    }
+
+    private int seatOf(int k) {
+        return interleaved ? node + k * nodes : first + k;
+    }
+
+    private int localIndex(int seat) {
+        return interleaved ? seat / nodes : seat - first;
+    }
+
+    // Listen, connect to the next node and accept the previous one (nothing to do alone)
+    public void connect() throws IOException, InterruptedException {
+        selector = Selector.open();
+        if (nodes == 1) {
+            return;
+        }
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("localhost", port + node));
+        SocketChannel out = null;
+        long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+        while (out == null) {
+            try {
+                out = SocketChannel.open(new InetSocketAddress("localhost", port + (node + 1) % nodes));
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IOException("Node " + node + " cannot reach node " + (node + 1) % nodes + ": " + e.getMessage());
+                }
+                Thread.sleep(20);
+            }
+        }
+        next = register(out);
+        back = register(server.accept());
+        // Two nodes are each other's next and previous: both send on the connection they opened
+        prev = (nodes == 2) ? next : back;
+    }
+
+    private Peer register(SocketChannel channel) throws IOException {
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.configureBlocking(false);
+        Peer peer = new Peer(channel);
+        peer.key = channel.register(selector, SelectionKey.OP_READ, peer);
+        return peer;
+    }
+
+    // Run the dinner from startAtMillis (System.currentTimeMillis, the same for every node) for durationMillis
+    public void run(long startAtMillis, long durationMillis) throws IOException, InterruptedException {
+        long wait = startAtMillis - System.currentTimeMillis();
+        if (wait > 0) {
+            Thread.sleep(wait);
+        }
+        long start = System.nanoTime();
+        long end = start + durationMillis * 1_000_000L;
+        // Every seat starts at a random point of its first think: seats hungry all at once would line up
+        // behind each other, each holding a clean fork while waiting for the next one's
+        Random random = new Random(seed + node);
+        for (int k = 0; k < count; k++) {
+            dueNanos[k] = start + (long) (random.nextDouble() * thinkNanos);
+        }
+        long now = start;
+        while (now - end < 0) {
+            long soonest = end;
+            for (int k = 0; k < count; k++) {
+                if (dueNanos[k] - now <= 0) {
+                    if (state[k] == THINKING) {
+                        hungry(k, now);
+                    } else if (state[k] == EATING) {
+                        doneEating(k, now);
+                    }
+                }
+                if (state[k] != HUNGRY && dueNanos[k] - soonest < 0) {
+                    soonest = dueNanos[k];
+                }
+            }
+            deliverLocal(now);
+            flush(next);
+            if (prev != next) {
+                flush(prev);
+            }
+            long timeout = (localSize > 0) ? 0 : soonest - System.nanoTime();
+            if (timeout > 0) {
+                selector.select((timeout + 999_999) / 1_000_000); // a Selector waits whole milliseconds
+            } else {
+                selector.selectNow();
+            }
+            now = System.nanoTime();
+            for (SelectionKey key : selector.selectedKeys()) {
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isWritable()) {
+                    flush((Peer) key.attachment());
+                }
+                if (key.isReadable()) {
+                    receive((Peer) key.attachment(), now);
+                }
+            }
+            selector.selectedKeys().clear();
+        }
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    public void close() {
+        try {
+            if (next != null) {
+                next.channel.close();
+            }
+            if (back != null) {
+                back.channel.close();
+            }
+            if (server != null) {
+                server.close();
+            }
+            if (selector != null) {
+                selector.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Node " + node + ": " + e.getMessage());
+        }
+    }
+
+    private void hungry(int k, long now) {
+        state[k] = HUNGRY;
+        hungryNanos[k] = now;
+        for (int side = 0; side < 2; side++) {
+            int f = 2 * k + side;
+            if (!hasFork[f] && hasRequest[f]) {
+                request(k, side, now);
+            }
+        }
+        tryEat(k, now);
+    }
+
+    private void tryEat(int k, long now) {
+        if (state[k] == HUNGRY && hasFork[2 * k] && hasFork[2 * k + 1]) {
+            state[k] = EATING;
+            forkWait.record(now - hungryNanos[k]);
+            dueNanos[k] = now + eatNanos;
+        }
+    }
+
+    private void doneEating(int k, long now) {
+        meals[k]++;
+        state[k] = THINKING;
+        dueNanos[k] = now + thinkNanos;
+        for (int side = 0; side < 2; side++) {
+            int f = 2 * k + side;
+            dirty[f] = true;
+            if (hasRequest[f]) { // deferred while eating
+                handOver(k, side, now);
+            }
+        }
+    }
+
+    private void onRequest(int k, int side, long now) {
+        int f = 2 * k + side;
+        hasRequest[f] = true;
+        requestArrivedNanos[f] = now;
+        if (hasFork[f] && dirty[f] && state[k] != EATING) {
+            handOver(k, side, now);
+            if (state[k] == HUNGRY) {
+                request(k, side, now);
+            }
+        }
+    }
+
+    private void onFork(int k, int side, int heldMicros, long now) {
+        int f = 2 * k + side;
+        hasFork[f] = true;
+        dirty[f] = false;
+        long roundTrip = Math.max(0, now - requestedNanos[f] - heldMicros * 1000L);
+        if (owner(neighbor(seatOf(k), side)) == node) {
+            localRoundTrip.record(roundTrip);
+        } else {
+            remoteRoundTrip.record(roundTrip);
+        }
+        tryEat(k, now);
+    }
+
+    private void request(int k, int side, long now) {
+        int f = 2 * k + side;
+        hasRequest[f] = false;
+        requestedNanos[f] = now;
+        send(REQUEST, k, side, 0);
+    }
+
+    private void handOver(int k, int side, long now) {
+        int f = 2 * k + side;
+        hasFork[f] = false;
+        send(FORK, k, side, (int) Math.min(Integer.MAX_VALUE, (now - requestArrivedNanos[f]) / 1000));
+    }
+
+    private void send(int type, int k, int side, int heldMicros) {
+        int seat = seatOf(k);
+        int to = neighbor(seat, side);
+        int fork = forkOf(seat, side);
+        int toNode = owner(to);
+        if (toNode == node) {
+            localMessages++;
+            enqueueLocal(type, fork, to, heldMicros);
+            return;
+        }
+        remoteMessages++;
+        Peer peer = (toNode == (node + 1) % nodes) ? next : prev;
+        if (peer.out.remaining() < MESSAGE_BYTES) {
+            flush(peer);
+        }
+        if (peer.out.remaining() < MESSAGE_BYTES) { // the socket is full: keep the messages
+            ByteBuffer grown = ByteBuffer.allocateDirect(2 * peer.out.capacity());
+            peer.out.flip();
+            grown.put(peer.out);
+            peer.out = grown;
+        }
+        peer.out.putInt(type).putInt(fork).putInt(to).putInt(heldMicros);
+    }
+
+    private void enqueueLocal(int type, int fork, int to, int heldMicros) {
+        if (4 * localSize == local.length) {
+            int[] grown = new int[2 * local.length];
+            for (int i = 0; i < localSize; i++) {
+                System.arraycopy(local, 4 * ((localHead + i) % localSize), grown, 4 * i, 4);
+            }
+            local = grown;
+            localHead = 0;
+        }
+        int at = 4 * ((localHead + localSize) % (local.length / 4));
+        local[at] = type;
+        local[at + 1] = fork;
+        local[at + 2] = to;
+        local[at + 3] = heldMicros;
+        localSize++;
+    }
+
+    // The messages between this node's seats, including the ones they send on the way
+    private void deliverLocal(long now) {
+        while (localSize > 0) {
+            int at = 4 * localHead;
+            int type = local[at];
+            int fork = local[at + 1];
+            int to = local[at + 2];
+            int heldMicros = local[at + 3];
+            localHead = (localHead + 1) % (local.length / 4);
+            localSize--;
+            deliver(type, fork, to, heldMicros, now);
+        }
+    }
+
+    private void deliver(int type, int fork, int to, int heldMicros, long now) {
+        int k = localIndex(to);
+        int side = (fork == to) ? 0 : 1;
+        if (type == REQUEST) {
+            onRequest(k, side, now);
+        } else {
+            onFork(k, side, heldMicros, now);
+        }
+    }
+
+    private void receive(Peer peer, long now) {
+        try {
+            if (peer.channel.read(peer.in) < 0) {
+                return; // the peer is done
+            }
+        } catch (IOException e) {
+            return; // the peer is gone
+        }
+        peer.in.flip();
+        while (peer.in.remaining() >= MESSAGE_BYTES) {
+            deliver(peer.in.getInt(), peer.in.getInt(), peer.in.getInt(), peer.in.getInt(), now);
+        }
+        peer.in.compact();
+    }
+
+    // One write for everything queued for the peer. Whatever the socket does not take stays in out,
+    // and the connection is watched for OP_WRITE until it is sent: the loop never waits on a peer.
+    private void flush(Peer peer) {
+        if (peer == null || peer.out.position() == 0) {
+            return;
+        }
+        peer.out.flip();
+        try {
+            peer.channel.write(peer.out);
+            peer.out.compact();
+        } catch (IOException e) {
+            peer.out.clear(); // the peer is gone: nobody to tell
+        }
+        writes++;
+        if (peer.key.isValid()) {
+            peer.key.interestOps(peer.out.position() == 0 ? SelectionKey.OP_READ
+                                 : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    public long getTotalMeals() {
+        long total = 0;
+        for (long m : meals) {
+            total += m;
+        }
+        return total;
+    }
+
+    // The results line read by DistributedDinner
+    public String result() {
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        double squares = 0;
+        for (long m : meals) {
+            min = Math.min(min, m);
+            max = Math.max(max, m);
+            squares += (double) m * m;
+        }
+        StringBuilder sb = new StringBuilder(300);
+        sb.append("RESULT node=").append(node)
+          .append(" seats=").append(count)
+          .append(" meals=").append(getTotalMeals())
+          .append(" min=").append(min)
+          .append(" max=").append(max)
+          .append(" squares=").append(squares)
+          .append(" nanos=").append(elapsedNanos)
+          .append(" local-messages=").append(localMessages)
+          .append(" remote-messages=").append(remoteMessages)
+          .append(" writes=").append(writes)
+          .append(" local-rtt=").append(localRoundTrip.toText().replace(' ', '/'))
+          .append(" remote-rtt=").append(remoteRoundTrip.toText().replace(' ', '/'))
+          .append(" fork-wait=").append(forkWait.toText().replace(' ', '/'));
+        return sb.toString();
+    }
+}
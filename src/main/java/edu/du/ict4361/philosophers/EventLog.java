@@ -0,0 +1,173 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// EventLog.java
+//
+// An append-only binary log of every state change, fork pick up, fork put down, fork reclaim and meal,
+// in a memory-mapped file, for post-mortems (EventLogReplay reads it back).
+//
+// Writing must never hold up a Philosopher, so there is no lock and no shared buffer:
+//   - the file is cut into chunks (4 KB, smaller when a big table would not give every seat
+//     a few chunks of its own); a Writer claims a whole chunk with one atomic add
+//     and then fills it alone, with plain puts into the mapped memory
+//   - each seat gets its own Writer (a seat's events come from one thread at a time),
+//     so a chunk holds one seat's events in time order; the ForkLeaseMonitor has one more
+//     for the forks it reclaims
+//   - when the file is full, events are counted as dropped instead of waiting for space
+// Unused space at the end of a chunk stays zero (kind 0), which the reader skips.
+//
+// File layout (big-endian):
+//   header (64 bytes): magic, version, seats, forks, chunk size, virtual time flag,
+//                      think/eat/fork times (ms), end of the data, dropped events,
+//                      topology (0: the ring, 1: another Topology)
+//   chunks of 20-byte records: time (long, nanoseconds since the log opened, or virtual),
+//                              seat (int), fork (int, -1 if none), kind << 24 | value (int)
+////////////////////////////////////
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class EventLog implements Closeable {
+    static final long MAGIC = 0x5048494c4c4f4731L; // "PHILLOG1"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_BYTES = 20;
+    static final int MAX_CHUNK_BYTES = 4096;
+    static final int MIN_CHUNK_BYTES = 256;
+
+    // Header offsets
+    static final int SEATS_OFFSET = 12;
+    static final int FORKS_OFFSET = 16;
+    static final int CHUNK_OFFSET = 20;
+    static final int VIRTUAL_OFFSET = 24;
+    static final int THINK_OFFSET = 28;
+    static final int EAT_OFFSET = 32;
+    static final int FORK_TIME_OFFSET = 36;
+    static final int END_OFFSET = 40;
+    static final int DROPPED_OFFSET = 48;
+    static final int TOPOLOGY_OFFSET = 56;
+
+    // Record kinds (0 is unused space)
+    public static final int STATE = 1;         // value: the new Philosopher.STATE ordinal
+    public static final int FORK_PICKED_UP = 2; // value: microseconds blocked in the pick up (version 2)
+    public static final int FORK_PUT_DOWN = 3;
+    public static final int MEAL = 4;          // value: meals eaten before this one (low 24 bits)
+    public static final int FORK_RECLAIMED = 5; // the ForkLeaseMonitor took the fork from the seat
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped;
+    private final int chunkBytes;
+    private final long chunks;
+    private final AtomicLong nextChunk = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final long originNanos;
+    private boolean closed = false;
+    private long end = -1; // set by close
+
+    // Open (and truncate) path, with room for capacityBytes of events.
+    // Timestamps are taken as they are with virtualTime, relative to now otherwise.
+    public EventLog(Path path, Table table, long capacityBytes, boolean virtualTime) throws IOException {
+        this.path = path;
+        int seats = table.getNumberOfPhilosophers();
+        int forks = table.getNumberOfForks();
+        this.chunkBytes = Integer.highestOneBit((int) Math.max(MIN_CHUNK_BYTES,
+                                                Math.min(MAX_CHUNK_BYTES, capacityBytes / (4L * seats))));
+        long size = Math.min(capacityBytes, Integer.MAX_VALUE - chunkBytes) / chunkBytes * chunkBytes;
+        this.chunks = Math.max(1, size / chunkBytes);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + chunks * chunkBytes);
+        this.originNanos = virtualTime ? 0 : System.nanoTime();
+        mapped.putLong(0, MAGIC);
+        mapped.putInt(8, VERSION);
+        mapped.putInt(SEATS_OFFSET, seats);
+        mapped.putInt(FORKS_OFFSET, forks);
+        mapped.putInt(CHUNK_OFFSET, chunkBytes);
+        mapped.putInt(VIRTUAL_OFFSET, virtualTime ? 1 : 0);
+        mapped.putInt(THINK_OFFSET, table.getThinkTime());
+        mapped.putInt(EAT_OFFSET, table.getEatTime());
+        mapped.putInt(FORK_TIME_OFFSET, table.getForkTime());
+        mapped.putInt(TOPOLOGY_OFFSET, table.getTopology().isRing() ? 0 : 1);
+    }
+
+    // A Writer for one seat. Not thread-safe: one thread writes through it at a time.
+    public Writer newWriter() {
+        return new Writer();
+    }
+
+    // Claim the next free chunk, or null if the file is full
+    private ByteBuffer reserveChunk() {
+        long chunk = nextChunk.getAndIncrement();
+        if (chunk >= chunks) {
+            return null;
+        }
+        return mapped.slice(HEADER_BYTES + (int) chunk * chunkBytes, chunkBytes);
+    }
+
+    public class Writer {
+        private ByteBuffer chunk;
+        private boolean full = false;
+
+        public void record(long nanos, int seat, int fork, int kind, int value) {
+            if (chunk == null || chunk.remaining() < RECORD_BYTES) {
+                chunk = full ? null : reserveChunk();
+                if (chunk == null) {
+                    full = true;
+                    dropped.increment();
+                    return;
+                }
+            }
+            chunk.putLong(nanos - originNanos);
+            chunk.putInt(seat);
+            chunk.putInt(fork);
+            chunk.putInt(kind << 24 | (value & 0xffffff));
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getDroppedEvents() {
+        return dropped.sum();
+    }
+
+    // Bytes of the file holding events (header included)
+    public long getBytesUsed() {
+        if (end >= 0) {
+            return end;
+        }
+        return HEADER_BYTES + Math.min(nextChunk.get(), chunks) * chunkBytes;
+    }
+
+    // Write the header totals, flush the mapped pages and cut the file to the chunks used.
+    // Best called once the Philosophers have stopped; their later events are dropped.
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // No more chunks from here on: a late Writer drops its events instead of writing past the end
+        long used = Math.min(nextChunk.getAndSet(chunks), chunks);
+        end = HEADER_BYTES + used * chunkBytes;
+        mapped.putLong(END_OFFSET, end);
+        mapped.putLong(DROPPED_OFFSET, dropped.sum());
+        mapped.force();
+        try {
+            channel.truncate(end);
+        } catch (IOException e) {
+            // Some platforms refuse to truncate a mapped file; the header still says where the data ends
+            System.err.println("Event log: could not truncate " + path + ": " + e.getMessage());
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,412 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// EventLogReplay.java
+//
+// Reads an EventLog back and rebuilds the table from it: each seat's state and meals,
+// each fork's holder, up to any point in time. Prints the table at that point and the
+// same statistics as Dinner.printSummaryResult (meal spread, fairness, fork wait, time in state).
+//
+// Each chunk of the log holds one seat's events in time order, so the replay merges the chunks
+// by time with a binary heap of chunk cursors (a k-way merge) instead of sorting every record.
+//
+// Usage: EventLogReplay file [--at ms] [--status full|compact]
+////////////////////////////////////
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class EventLogReplay {
+    private static final Philosopher.STATE[] STATES = Philosopher.STATE.values();
+    private static final int PICKING_UP_FORK = Philosopher.STATE.PICKING_UP_FORK.ordinal();
+    private static final long NOT_SEATED = Long.MIN_VALUE;
+
+    private final Path path;
+    private final ByteBuffer data;
+    private final int seats;
+    private final int forks;
+    private final boolean ring; // otherwise only the number of forks each seat holds is known
+    private final int chunkBytes;
+    private final boolean virtualTime;
+    private final int thinkTime;
+    private final int eatTime;
+    private final int forkTime;
+    private final long droppedEvents;
+
+    // The table, as replayed so far
+    private final int[] states;
+    private final long[] enteredNanos;
+    private final long[] forkWaitNanos; // blocked on forks in the current trip through PICKING_UP_FORK
+    private final int[] meals;
+    private final int[] forkHolders;
+    private final long[] stateNanos = new long[STATES.length];
+    private final MealStatistics mealStatistics;
+    private final LatencyHistogram forkWaitHistogram = new LatencyHistogram();
+    private long events;
+    private long firstNanos = Long.MAX_VALUE;
+    private long now;
+
+    // Chunk cursors (absolute positions) in a heap ordered by the time of their next record
+    private final int[] position;
+    private final int[] heap;
+    private int heapSize;
+
+    public EventLogReplay(Path path) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (data.capacity() < EventLog.HEADER_BYTES || data.getLong(0) != EventLog.MAGIC) {
+            throw new IOException(path + " is not an event log");
+        }
+        if (data.getInt(8) != EventLog.VERSION) {
+            throw new IOException(path + ": unsupported event log version " + data.getInt(8));
+        }
+        seats = data.getInt(EventLog.SEATS_OFFSET);
+        forks = data.getInt(EventLog.FORKS_OFFSET);
+        ring = data.getInt(EventLog.TOPOLOGY_OFFSET) == 0;
+        chunkBytes = data.getInt(EventLog.CHUNK_OFFSET);
+        virtualTime = data.getInt(EventLog.VIRTUAL_OFFSET) != 0;
+        thinkTime = data.getInt(EventLog.THINK_OFFSET);
+        eatTime = data.getInt(EventLog.EAT_OFFSET);
+        forkTime = data.getInt(EventLog.FORK_TIME_OFFSET);
+        long end = data.getLong(EventLog.END_OFFSET);
+        if (end <= 0 || end > data.capacity()) {
+            // Not closed (the run crashed or was killed): take whatever is in the file
+            end = data.capacity();
+            System.err.println("Event log " + path + " was not closed; reading all " + end + " bytes");
+        }
+        droppedEvents = data.getLong(EventLog.DROPPED_OFFSET);
+
+        states = new int[seats];
+        enteredNanos = new long[seats];
+        forkWaitNanos = new long[seats];
+        meals = new int[seats];
+        forkHolders = new int[forks];
+        Arrays.fill(enteredNanos, NOT_SEATED);
+        Arrays.fill(forkHolders, -1);
+        mealStatistics = new MealStatistics(seats);
+
+        int chunks = (int) ((end - EventLog.HEADER_BYTES) / chunkBytes);
+        position = new int[chunks];
+        heap = new int[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            position[chunk] = EventLog.HEADER_BYTES + chunk * chunkBytes;
+            if (hasRecord(chunk)) {
+                push(chunk);
+            }
+        }
+    }
+
+    /// Chunk cursors
+
+    private boolean hasRecord(int chunk) {
+        int pos = position[chunk];
+        int chunkEnd = EventLog.HEADER_BYTES + (chunk + 1) * chunkBytes;
+        return pos + EventLog.RECORD_BYTES <= chunkEnd && data.getInt(pos + 16) >>> 24 != 0;
+    }
+
+    private long timeOf(int chunk) {
+        return data.getLong(position[chunk]);
+    }
+
+    private boolean before(int a, int b) {
+        long ta = timeOf(a);
+        long tb = timeOf(b);
+        return ta < tb || (ta == tb && a < b);
+    }
+
+    private void push(int chunk) {
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(chunk, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = chunk;
+    }
+
+    // Restore the heap after the top chunk moved on (or ran out)
+    private void siftTop() {
+        int top = heap[0];
+        if (!hasRecord(top)) {
+            top = heap[--heapSize];
+        }
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], top)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (heapSize > 0) {
+            heap[i] = top;
+        }
+    }
+
+    /// The replay
+
+    // Apply every event up to untilNanos (log time) and charge each seat's current state up to it.
+    // Returns the time reached: untilNanos, or the last event if the log ends before it.
+    public long replay(long untilNanos) {
+        long last = now;
+        while (heapSize > 0 && timeOf(heap[0]) <= untilNanos) {
+            int chunk = heap[0];
+            int pos = position[chunk];
+            long time = data.getLong(pos);
+            int seat = data.getInt(pos + 8);
+            int fork = data.getInt(pos + 12);
+            int kindAndValue = data.getInt(pos + 16);
+            position[chunk] = pos + EventLog.RECORD_BYTES;
+            siftTop();
+            apply(time, seat, fork, kindAndValue >>> 24, kindAndValue & 0xffffff);
+            last = time;
+        }
+        now = (heapSize > 0) ? untilNanos : last;
+        for (int seat = 0; seat < seats; seat++) {
+            changeState(seat, states[seat], now);
+        }
+        return now;
+    }
+
+    private void apply(long time, int seat, int fork, int kind, int value) {
+        if (seat < 0 || seat >= seats) {
+            return; // a torn record from a run that did not shut down cleanly
+        }
+        events++;
+        firstNanos = Math.min(firstNanos, time);
+        switch (kind) {
+        case EventLog.STATE:
+            changeState(seat, value, time);
+            break;
+        case EventLog.FORK_PICKED_UP:
+            forkWaitNanos[seat] += value * 1000L; // microseconds blocked in the pick up
+            if (fork >= 0 && fork < forks) {
+                forkHolders[fork] = seat;
+            }
+            break;
+        case EventLog.FORK_PUT_DOWN:
+        case EventLog.FORK_RECLAIMED:
+            if (fork >= 0 && fork < forks && forkHolders[fork] == seat) {
+                forkHolders[fork] = -1;
+            }
+            break;
+        case EventLog.MEAL:
+            mealStatistics.mealEaten(meals[seat]++);
+            break;
+        default:
+            break;
+        }
+    }
+
+    // Same accounting as Philosopher.changeState
+    private void changeState(int seat, int state, long time) {
+        if (enteredNanos[seat] != NOT_SEATED) {
+            int leaving = states[seat];
+            long spent = time - enteredNanos[seat];
+            stateNanos[leaving] += spent;
+            if (leaving == PICKING_UP_FORK && state != leaving) {
+                forkWaitHistogram.record(forkWaitNanos[seat]);
+                forkWaitNanos[seat] = 0;
+            }
+        }
+        enteredNanos[seat] = time;
+        states[seat] = state;
+    }
+
+    private double getStateShare(int state) {
+        long total = 0;
+        for (long nanos : stateNanos) {
+            total += nanos;
+        }
+        return total == 0 ? 0.0 : (double) stateNanos[state] / total;
+    }
+
+    /// The table as replayed so far
+
+    public long getEvents() {
+        return events;
+    }
+
+    public Philosopher.STATE getState(int seat) {
+        return STATES[states[seat]];
+    }
+
+    public int getMeals(int seat) {
+        return meals[seat];
+    }
+
+    // The seat holding the fork, or -1
+    public int getForkHolder(int fork) {
+        return forkHolders[fork];
+    }
+
+    /// Reports
+
+    public void printHeader() {
+        StringBuffer sb = new StringBuffer();
+        sb.append("Event log: " + path);
+        sb.append("\n");
+        sb.append("  Seats:                  " + seats + " (" + forks + " forks)");
+        sb.append("\n");
+        sb.append("  Think/eat/fork time:    " + thinkTime + "/" + eatTime + "/" + forkTime + " milliseconds");
+        sb.append("\n");
+        sb.append("  Clock:                  " + (virtualTime ? "virtual (simulation)" : "wall"));
+        sb.append("\n");
+        sb.append("  Chunks:                 " + position.length + " of " + chunkBytes + " bytes");
+        if (droppedEvents > 0) {
+            sb.append("\n");
+            sb.append("  Dropped events:         " + droppedEvents + " (the log was full; the replay is incomplete)");
+        }
+        System.out.println(sb);
+    }
+
+    public void printTable(boolean full) {
+        int[] stateCounts = new int[STATES.length];
+        int forksInUse = 0;
+        int bothForks = 0;
+        int[] held = null;
+        if (!ring) {
+            held = new int[seats];
+            for (int fork = 0; fork < forks; fork++) {
+                if (forkHolders[fork] >= 0 && forkHolders[fork] < seats) {
+                    held[forkHolders[fork]]++;
+                }
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("Table status at ").append(String.format("%.3f", now / 1e9)).append(" seconds: ")
+          .append(seats).append(" seats").append('\n');
+        for (int seat = 0; seat < seats; seat++) {
+            stateCounts[states[seat]]++;
+            if (!ring) {
+                if (full) {
+                    sb.append("  Phil ").append(seat + 1).append(" has eaten ").append(meals[seat])
+                      .append(" times, and is holding ").append(held[seat])
+                      .append(" forks in state ").append(STATES[states[seat]]).append('\n');
+                }
+                continue;
+            }
+            boolean left = forkHolders[seat % forks] == seat;
+            boolean right = forkHolders[(seat + 1) % forks] == seat;
+            if (left && right) {
+                bothForks++;
+            }
+            if (full) {
+                sb.append("  Phil ").append(seat + 1).append(" has eaten ").append(meals[seat])
+                  .append(" times, and is holding ")
+                  .append(left && right ? "both forks" : left ? "the left fork" : right ? "the right fork" : "neither fork")
+                  .append(" in state ").append(STATES[states[seat]]).append('\n');
+            }
+        }
+        for (int fork = 0; fork < forks; fork++) {
+            if (forkHolders[fork] >= 0) {
+                forksInUse++;
+            }
+        }
+        sb.append("  States:");
+        for (int s = 0; s < STATES.length; s++) {
+            sb.append(' ').append(STATES[s]).append(' ').append(stateCounts[s]);
+        }
+        sb.append('\n');
+        sb.append("  Forks in use: ").append(forksInUse).append(" of ").append(forks);
+        if (ring) {
+            sb.append(", seats holding both forks: ").append(bothForks);
+        }
+        System.out.println(sb);
+    }
+
+    // The statistics of Dinner.printSummaryResult, from the log
+    public void printSummaryResult() {
+        double seconds = Math.max(1e-9, (now - Math.min(firstNanos, now)) / 1e9);
+        StringBuffer sb = new StringBuffer();
+        sb.append("Results (replayed from " + events + " events):");
+        sb.append("\n");
+        sb.append("  Total number of eatings: " + mealStatistics.getTotal());
+        sb.append("\n");
+        sb.append("  Maximum meals:           " + mealStatistics.getMaximum());
+        sb.append("\n");
+        sb.append("  Minimum meals:           " + mealStatistics.getMinimum());
+        sb.append("\n");
+        sb.append("  Average meals:           " + String.format("%.2f", mealStatistics.getAverage()));
+        sb.append("\n");
+        sb.append("  Standard deviation:      " + String.format("%.2f", Math.sqrt(mealStatistics.getVariance())));
+        sb.append("\n");
+        sb.append("  Fairness (Jain's index): " + String.format("%.4f", mealStatistics.getFairnessIndex()));
+        sb.append("\n");
+        sb.append("  Meals per second:        " + String.format("%.2f", mealStatistics.getTotal() / seconds));
+        sb.append("\n");
+        sb.append("  Fork wait (ms):          p50 " + String.format("%.2f", forkWaitHistogram.getValueAtPercentile(50) / 1e6)
+                  + "  p99 " + String.format("%.2f", forkWaitHistogram.getValueAtPercentile(99) / 1e6)
+                  + "  max " + String.format("%.2f", forkWaitHistogram.getMaxValue() / 1e6)
+                  + "  (" + forkWaitHistogram.getTotalCount() + " pick ups)");
+        sb.append("\n");
+        sb.append("  Utilization (eating):    " + String.format("%.1f%%", 100 * getStateShare(Philosopher.STATE.EATING.ordinal())));
+        sb.append("\n");
+        sb.append("  Time in state:          ");
+        for (Philosopher.STATE state : STATES) {
+            sb.append(" " + state + " " + String.format("%.1f%%", 100 * getStateShare(state.ordinal())));
+        }
+        sb.append("\n");
+        sb.append("Replayed time: " + String.format("%.3f", seconds) + " seconds");
+        System.out.println(sb);
+    }
+
+    public static void usage() {
+        System.out.println("Usage");
+        System.out.println("EventLogReplay file"
+                           + " --at ms"
+                           + " --status full|compact");
+        System.out.println("  Replays the event log written by Dinner --event-log up to --at milliseconds"
+                           + " (default: the end) and prints the table and the summary statistics");
+    }
+
+    public static void main(String[] args) throws IOException {
+        String file = null;
+        long at = Long.MAX_VALUE;
+        Boolean full = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "--at":
+                i++;
+                at = Long.parseLong(args[i]) * 1_000_000L;
+                break;
+            case "--status":
+                i++;
+                full = "full".equals(args[i]);
+                break;
+            case "-h": case "--help":
+                usage();
+                return;
+            default:
+                file = args[i];
+                break;
+            }
+        }
+        if (file == null) {
+            usage();
+            return;
+        }
+        EventLogReplay replay = new EventLogReplay(Paths.get(file));
+        replay.printHeader();
+        replay.replay(at);
+        replay.printTable(full != null ? full : replay.seats <= 1000);
+        replay.printSummaryResult();
+    }
+}
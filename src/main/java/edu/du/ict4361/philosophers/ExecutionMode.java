@@ -0,0 +1,89 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// ExecutionMode.java
+//
+// How the Table runs its Philosophers:
+//   PLATFORM - one platform (operating system) Thread per Philosopher, the original way
+//   VIRTUAL  - one virtual Thread per Philosopher. Virtual threads are cheap enough for
+//              100k+ seats: their stacks live in the heap and only grow as deep as needed.
+//
+// Virtual threads need Java 21 or later. The builder is looked up reflectively so the
+// sources still build and run on older JVMs; there VIRTUAL falls back to platform threads
+// with a small stack, which stretches the seat count but is no substitute.
+//
+// The Table runs its Philosophers on an executor from newExecutor: one thread per seat,
+// so it can join them (through their Futures) when it stops, and grow it as seats join.
+////////////////////////////////////
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+public enum ExecutionMode {
+    PLATFORM, VIRTUAL;
+
+    private static final long FALLBACK_STACK_SIZE = 128 * 1024;
+    private static final ThreadFactory VIRTUAL_FACTORY = lookupVirtualThreadFactory();
+
+    // Thread.ofVirtual().factory(), if this JVM has it
+    private static ThreadFactory lookupVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_FACTORY != null;
+    }
+
+    public static ExecutionMode forName(String name) {
+        switch (name) {
+        case "platform":
+            return PLATFORM;
+        case "virtual":
+            return VIRTUAL;
+        default:
+            throw new IllegalArgumentException("Unknown execution mode: " + name);
+        }
+    }
+
+    public Thread newThread(Runnable runnable, String name) {
+        Thread thread;
+        if (this == PLATFORM) {
+            thread = new Thread(runnable);
+        } else if (VIRTUAL_FACTORY != null) {
+            thread = VIRTUAL_FACTORY.newThread(runnable);
+        } else {
+            thread = new Thread(null, runnable, name, FALLBACK_STACK_SIZE);
+        }
+        thread.setName(name);
+        return thread;
+    }
+
+    // An executor with one thread of this mode per task, for the given number of tasks (a fixed pool,
+    // whose pool sizes the caller may raise). It creates its k-th thread for the k-th task submitted,
+    // so it is named threadName(k).
+    public ThreadPoolExecutor newExecutor(int threads, IntFunction<String> threadName) {
+        AtomicInteger created = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                                      r -> newThread(r, threadName.apply(created.getAndIncrement())));
+    }
+
+    // What this mode really runs on in this JVM
+    public String getDescription() {
+        if (this == PLATFORM) {
+            return "platform threads";
+        } else if (VIRTUAL_FACTORY != null) {
+            return "virtual threads";
+        }
+        return "platform threads with " + (FALLBACK_STACK_SIZE / 1024) + " KB stacks (no virtual threads before Java 21)";
+    }
+}
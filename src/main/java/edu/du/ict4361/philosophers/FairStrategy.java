@@ -0,0 +1,176 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// FairStrategy.java
+//
+// A scheduler that hands contested forks to the hungriest neighbor, so nobody falls far behind.
+//
+// A hungry Philosopher asks the scheduler for both forks at once. It may go ahead when
+//   - neither neighbor holds the forks (is between permission and putting its forks down), and
+//   - no hungry neighbor goes before it.
+// Among hungry seats, the one with fewer meals goes first (the bigger meal deficit); on equal
+// meals, the one that has waited longer. That is a total order, so there is always a hungry seat
+// nobody goes before: the table cannot deadlock, and a seat's wait is bounded by how far its
+// neighbors can get ahead of it.
+//
+// With a bound on consecutive meals (setMaxConsecutive), a seat that has watched a neighbor eat
+// that many times while it was hungry becomes urgent, and urgent seats go before all others.
+// Urgency belongs to the waiting seat (not to a pair of seats), so the order stays total.
+// The bound holds against every neighbor that is not itself urgent; among urgent seats, meals decide.
+//
+// Permission is granted under one lock, with one Condition per seat: finishing a meal only
+// wakes the two neighbors, the only seats it can unblock.
+////////////////////////////////////
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class FairStrategy implements ForkStrategy {
+    private final int seats;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition[] turn;
+
+    // Guarded by lock
+    private final boolean[] hungry;
+    private final boolean[] eating;
+    private final boolean[] urgent;
+    private final long[] served;      // meals granted per seat
+    private final long[] hungrySince; // arrival ticket, for ties
+    private final int[] passedLeft;   // meals granted while the left neighbor stayed hungry
+    private final int[] passedRight;  // meals granted while the right neighbor stayed hungry
+    private long tickets = 0;
+
+    private int maxConsecutive = 0;   // 0: no bound
+
+    public FairStrategy(Table table) {
+        seats = table.getNumberOfPhilosophers();
+        turn = new Condition[seats];
+        for (int seat = 0; seat < seats; seat++) {
+            turn[seat] = lock.newCondition();
+        }
+        hungry = new boolean[seats];
+        eating = new boolean[seats];
+        urgent = new boolean[seats];
+        served = new long[seats];
+        hungrySince = new long[seats];
+        passedLeft = new int[seats];
+        passedRight = new int[seats];
+    }
+
+    @Override
+    public String getName() {
+        return "fair";
+    }
+
+    public int getMaxConsecutive() {
+        return maxConsecutive;
+    }
+
+    // At most this many meals of a seat while a (non-urgent) neighbor is hungry; 0 for no bound
+    public void setMaxConsecutive(int maxConsecutive) {
+        this.maxConsecutive = maxConsecutive;
+    }
+
+    private int left(int seat) {
+        return (seat - 1 + seats) % seats;
+    }
+
+    private int right(int seat) {
+        return (seat + 1) % seats;
+    }
+
+    // True if hungry seat a goes before hungry seat b
+    private boolean before(int a, int b) {
+        if (urgent[a] != urgent[b]) {
+            return urgent[a];
+        }
+        if (served[a] != served[b]) {
+            return served[a] < served[b];
+        }
+        return hungrySince[a] < hungrySince[b];
+    }
+
+    private boolean mayEat(int seat) {
+        int l = left(seat);
+        int r = right(seat);
+        return !eating[l] && !eating[r]
+               && !(hungry[l] && before(l, seat))
+               && !(hungry[r] && before(r, seat));
+    }
+
+    @Override
+    public void pickUpForks(Philosopher philosopher) {
+        int seat = philosopher.getSeatNumber();
+        lock.lock();
+        try {
+            hungry[seat] = true;
+            hungrySince[seat] = tickets++;
+            while (!mayEat(seat)) {
+                try {
+                    turn[seat].await();
+                } catch (InterruptedException ie) {
+                    if (philosopher.getTable().isPartyIsOn()) {
+                        System.err.println("      Fair scheduler: " + philosopher.getName() + " was interrupted waiting for its turn");
+                    } else {
+                        Thread.currentThread().interrupt();
+                    }
+                    hungry[seat] = false;
+                    signalNeighbors(seat);
+                    return;
+                }
+            }
+            grant(seat);
+        } finally {
+            lock.unlock();
+        }
+        philosopher.pickUp(philosopher.getLeftFork());
+        philosopher.pickUp(philosopher.getRightFork());
+    }
+
+    private void grant(int seat) {
+        int l = left(seat);
+        int r = right(seat);
+        hungry[seat] = false;
+        eating[seat] = true;
+        urgent[seat] = false;
+        served[seat]++;
+        // The neighbors no longer watch this seat go hungry
+        passedRight[l] = 0;
+        passedLeft[r] = 0;
+        if (hungry[l] && ++passedLeft[seat] >= maxConsecutive && maxConsecutive > 0) {
+            urgent[l] = true;
+        }
+        if (hungry[r] && ++passedRight[seat] >= maxConsecutive && maxConsecutive > 0) {
+            urgent[r] = true;
+        }
+    }
+
+    private void signalNeighbors(int seat) {
+        turn[left(seat)].signal();
+        turn[right(seat)].signal();
+    }
+
+    @Override
+    public void putDownForks(Philosopher philosopher) {
+        philosopher.putDown(philosopher.getLeftFork());
+        philosopher.putDown(philosopher.getRightFork());
+        doneEating(philosopher.getSeatNumber());
+    }
+
+    @Override
+    public void seatLost(Philosopher philosopher) {
+        doneEating(philosopher.getSeatNumber());
+    }
+
+    private void doneEating(int seat) {
+        lock.lock();
+        try {
+            if (eating[seat]) {
+                eating[seat] = false;
+                signalNeighbors(seat);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
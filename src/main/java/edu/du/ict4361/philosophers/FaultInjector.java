@@ -0,0 +1,232 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// FaultInjector.java
+//
+// Makes seats fail on purpose while the Table runs, to see what a failure costs and how fast the
+// table recovers. A fault plan is a comma separated list of faults, kind:seat@time[:duration[:factor]]:
+//   kill:3@2s          - at 2 seconds, seat 3 dies at its next meal, with both forks in hand
+//   pause:5@1s:500ms   - at 1 second, seat 5 stalls for 500 ms at its next meal, forks in hand
+//   slow:2@1s:2s:4     - from 1 second on, for 2 seconds, seat 2's think, eat and fork times are 4x
+// Times are since the Table started, in milliseconds or with a unit (250us, 1.5s).
+//
+// Kills and pauses strike when the seat next starts eating: the moment a failure hurts most,
+// because the neighbors cannot eat until the forks come back. Without a ForkLeaseMonitor they never
+// come back from a killed seat, and the neighbors starve. With one, the forks are reclaimed once the
+// seat's heartbeat is older than the lease, and report() shows for each fault how long that took
+// (recovery), and the meals per second before the fault and until the recovery: the throughput lost.
+//
+// The Table starts and stops the injector with itself, like the ThinkTimeController.
+////////////////////////////////////
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class FaultInjector {
+    public enum Kind { KILL, PAUSE, SLOW }
+
+    // One planned fault, and what happened when it struck
+    public static class Fault {
+        private final Kind kind;
+        private final int seat;
+        private final long atNanos;       // since the Table started
+        private final long durationNanos; // pause and slow
+        private final double factor;      // slow
+        private volatile long struckNanos = -1; // System.nanoTime when it took effect, -1: not yet
+        private volatile long mealsWhenStruck;
+
+        Fault(Kind kind, int seat, long atNanos, long durationNanos, double factor) {
+            this.kind = kind;
+            this.seat = seat;
+            this.atNanos = atNanos;
+            this.durationNanos = durationNanos;
+            this.factor = factor;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public int getSeat() {
+            return seat;
+        }
+
+        public long getAtNanos() {
+            return atNanos;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        public double getFactor() {
+            return factor;
+        }
+
+        public long getStruckNanos() {
+            return struckNanos;
+        }
+
+        // Called by the failing Philosopher (or the injector, for a slow down)
+        void struck(long now, long meals) {
+            mealsWhenStruck = meals;
+            struckNanos = now;
+        }
+
+        public String describe() {
+            StringBuilder sb = new StringBuilder(60);
+            sb.append(kind.name().toLowerCase()).append(" seat ").append(seat)
+              .append(" at ").append(WaitMode.formatDuration(atNanos));
+            if (kind != Kind.KILL) {
+                sb.append(" for ").append(WaitMode.formatDuration(durationNanos));
+            }
+            if (kind == Kind.SLOW) {
+                sb.append(" (x").append(factor).append(")");
+            }
+            return sb.toString();
+        }
+    }
+
+    private final Table table;
+    private final List<Fault> faults = new ArrayList<>();
+    private ScheduledExecutorService scheduler;
+
+    public FaultInjector(Table table) {
+        this.table = table;
+    }
+
+    // A fault plan: "kill:3@2s,pause:5@1s:500ms,slow:2@1s:2s:4"
+    public static FaultInjector forPlan(Table table, String plan) {
+        FaultInjector injector = new FaultInjector(table);
+        for (String spec : plan.split(",")) {
+            injector.add(parse(spec.trim(), table.getNumberOfPhilosophers()));
+        }
+        return injector;
+    }
+
+    static Fault parse(String spec, int seats) {
+        int at = spec.indexOf('@');
+        int colon = spec.indexOf(':');
+        if (colon < 0 || at < colon) {
+            throw new IllegalArgumentException("Expected kind:seat@time[:duration[:factor]], not " + spec);
+        }
+        Kind kind;
+        switch (spec.substring(0, colon)) {
+        case "kill":
+            kind = Kind.KILL;
+            break;
+        case "pause":
+            kind = Kind.PAUSE;
+            break;
+        case "slow":
+            kind = Kind.SLOW;
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown fault: " + spec + " (kill, pause or slow)");
+        }
+        int seat = Integer.parseInt(spec.substring(colon + 1, at).trim());
+        if (seat < 0 || seat >= seats) {
+            throw new IllegalArgumentException("No seat " + seat + " for fault " + spec);
+        }
+        String[] times = spec.substring(at + 1).split(":");
+        long atNanos = WaitMode.parseDuration(times[0]);
+        long durationNanos = 0;
+        double factor = 1.0;
+        if (kind != Kind.KILL) {
+            if (times.length < 2) {
+                throw new IllegalArgumentException("A " + kind.name().toLowerCase() + " needs a duration: " + spec);
+            }
+            durationNanos = WaitMode.parseDuration(times[1]);
+        }
+        if (kind == Kind.SLOW) {
+            if (times.length < 3) {
+                throw new IllegalArgumentException("A slow down needs a factor: " + spec);
+            }
+            factor = Double.parseDouble(times[2]);
+            if (factor <= 0) {
+                throw new IllegalArgumentException("A slow down factor must be positive: " + spec);
+            }
+        }
+        return new Fault(kind, seat, atNanos, durationNanos, factor);
+    }
+
+    public void add(Fault fault) {
+        faults.add(fault);
+    }
+
+    public List<Fault> getFaults() {
+        return faults;
+    }
+
+    // Called by Table.startTable once the Philosophers are running
+    synchronized void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Fault injector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sinceStart = System.nanoTime() - table.getStartedNanos();
+        for (Fault fault : faults) {
+            if (fault.struckNanos < 0) { // a restarted Table does not fail twice
+                scheduler.schedule(() -> inject(fault), Math.max(0, fault.atNanos - sinceStart), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    private void inject(Fault fault) {
+        Philosopher phil = table.getPhilosopher(fault.seat);
+        if (phil == null) {
+            return;
+        }
+        if (fault.kind == Kind.SLOW) {
+            long now = System.nanoTime();
+            phil.slowDown(fault.factor, now + fault.durationNanos);
+            fault.struck(now, table.getTotalMeals());
+        } else {
+            phil.fail(fault); // at its next meal
+        }
+    }
+
+    // One line per fault: when it struck, when the ForkLeaseMonitor reclaimed the seat's forks,
+    // and the meals per second before the fault and between the fault and the recovery
+    public String report() {
+        ForkLeaseMonitor monitor = table.getForkLeaseMonitor();
+        StringBuilder sb = new StringBuilder(100 * faults.size());
+        for (Fault fault : faults) {
+            sb.append("    ").append(fault.describe()).append(": ");
+            long struck = fault.struckNanos;
+            if (struck < 0) {
+                sb.append("did not strike\n");
+                continue;
+            }
+            long sinceStart = struck - table.getStartedNanos();
+            double before = fault.mealsWhenStruck / Math.max(1e-9, sinceStart / 1e9);
+            sb.append("struck after ").append(String.format("%.3f", sinceStart / 1e9)).append(" s");
+            ForkLeaseMonitor.Reclaim reclaim = (monitor == null) ? null
+                : monitor.firstReclaim(table.getPhilosopher(fault.seat).getSeatId(), struck);
+            if (reclaim == null) {
+                sb.append(fault.kind == Kind.KILL ? ", its forks were never reclaimed" : ", no forks reclaimed")
+                  .append(" (").append(String.format("%.1f", before)).append(" meals/s before)\n");
+                continue;
+            }
+            long recovery = reclaim.getNanos() - struck;
+            double during = (reclaim.getMeals() - fault.mealsWhenStruck) / Math.max(1e-9, recovery / 1e9);
+            sb.append(", forks reclaimed ").append(String.format("%.3f", recovery / 1e6)).append(" ms later");
+            sb.append(" (").append(String.format("%.1f", before)).append(" meals/s before, ")
+              .append(String.format("%.1f", during)).append(" until then: ")
+              .append(String.format("%.1f", Math.max(0.0, (before - during) * recovery / 1e9))).append(" meals lost)\n");
+        }
+        return sb.toString();
+    }
+}
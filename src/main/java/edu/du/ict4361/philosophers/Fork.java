@@ -2,68 +2,140 @@ package edu.du.ict4361.philosophers;
 
 /////////////////////////////////////
 // Fork.java
-// Author: M Schwartz
 //
-// This implementation of a Fork is a semaphore.
-// Threads (Philosophers) trying to acquire the fork may wait if the semaphore is in use.
-// Threads are expected to release the fork, and thus the semaphore, when done.
-//
-// When a semaphore is acquired, the caller blocks until it is available--or the acquisition is interrupted.
-// Shutting down our Philosopher's Diner interrupts all the "pickUp"s.
+// A Fork is a lockable resource shared by two neighboring Philosophers
+// (or, in some Topologies, by more: every seat that needs it).
+// A Philosopher picks it up (waiting while a neighbor holds it) and puts it down when done.
+// There is more than one way to build such a lock, so Fork only fixes the contract:
+//   SemaphoreFork - the original: a Semaphore plus the holder's seat number
+//   AtomicFork    - the holder's seat number *is* the lock, claimed with a single CAS
 //
 // The current holder is noted by hir seat number at the table.
 //   -1 means no one is holding the fork
 //   -2 means shutdown is in progress.
+// getCurrentHolder() must return the latest holder (a volatile read or equivalent).
+//
+// Each Fork also counts its pick ups, how many of them had to wait, and how long it was held.
+// Only the holder updates the pick up counters (an implementation calls acquired() right after a
+// pick up), and each pick up happens-after the previous put down, so they are exact without any
+// atomic operation; they are written and read opaque, so a reader on another thread sees whole and
+// ever newer values without fencing the holder. The held time is taken (heldNanos()) while the holder still holds the fork
+// and added (released()) only once its put down has won the compare-and-set from it: an atomic add,
+// since with an AtomicFork the next holder may already be putting the fork down again.
+// Metrics readers read the counters without locking.
+//
+// forceRelease takes the fork away from a holder that died or stopped responding (see
+// ForkLeaseMonitor): a compare-and-set from that holder to -1, so it cannot race with the holder's
+// own putDown into releasing the fork twice. A reclaimed hold is not added to the held time.
+//
+// With fork leases (Table.setLeaseMeals) a Philosopher about to wait for a held Fork also adds
+// itself to the Fork's demand, so the holder knows to end its lease. Without leases nobody counts.
 /////////////////////////////////////
 
-import java.util.concurrent.Semaphore;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
-public class Fork {
-    private Semaphore semaphore = new Semaphore(1); // or Semaphore(1,true);
-    private final String name;
-    private int currentHolder = -1;
-    
-    public Fork(String name) {
-        this.name = name;
-    }
-    
-    public void pickUp(int seatNumber) {
-        if (currentHolder != seatNumber ) {
-          try {
-              semaphore.acquire();
-              currentHolder = seatNumber;
-          } catch ( InterruptedException ie) {
-              System.err.println("      Fork: "+name+" was interrupted in pickUp");
-          }
-        } else { // Can't pick up the fork if I have already picked it up.
-            System.err.println("Thread "+name+": attempt to pick up fork already picked up!"+
-                    " ("+currentHolder+" != "+seatNumber+" )");
+public abstract class Fork {
+    private static final VarHandle DEMAND;
+    private static final VarHandle HELD;
+    private static final VarHandle ACQUISITIONS;
+    private static final VarHandle CONTENDED;
+    static {
+        try {
+            DEMAND = MethodHandles.lookup().findVarHandle(Fork.class, "demand", int.class);
+            HELD = MethodHandles.lookup().findVarHandle(Fork.class, "heldNanosTotal", long.class);
+            ACQUISITIONS = MethodHandles.lookup().findVarHandle(Fork.class, "acquisitions", long.class);
+            CONTENDED = MethodHandles.lookup().findVarHandle(Fork.class, "contendedAcquisitions", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
         }
     }
-    
-    public void putDown(int seatNumber) {
-        if ( seatNumber == -2 ) { // Special value for shutdown. Put it down.
-            currentHolder = -2;
-            semaphore.release();
-        } else if ( currentHolder == seatNumber ) { // I current have it. Put it down.
-            currentHolder = -1;
-            semaphore.release();
-        } else if ( currentHolder == -1 ) {  // No one has it. That's an error.
-            System.err.println("Thread "+name+": attempt to put down fork never picked up!"+
-                    " ("+currentHolder+" != "+seatNumber+" )");            
-        }
+
+    protected final String name;
+    private int index = -1; // position at the Table
+
+    private long acquisitions;          // opaque (ACQUISITIONS), written only by the holder
+    private long contendedAcquisitions; // opaque (CONTENDED), written only by the holder
+    private volatile long heldNanosTotal;
+    private long acquiredNanos;
+    private volatile int demand; // seats waiting for the fork (only counted with leases)
+
+    protected Fork(String name) {
+        this.name = name;
     }
-    
+
+    // Block until the fork is picked up (true), or the pick up is interrupted (false).
+    // An interrupted pick up keeps the thread's interrupt status set, for the caller to handle.
+    public abstract boolean pickUp(int seatNumber);
+
+    // Try to pick up the fork, waiting at most timeout milliseconds. True if the fork was picked up.
+    // Like pickUp, an interrupted try returns false with the interrupt status set.
+    public abstract boolean tryPickUp(int seatNumber, long timeout);
+
+    // Put the fork down; seatNumber -2 forces it down at shutdown
+    public abstract void putDown(int seatNumber);
+
+    public abstract int getCurrentHolder();
+
+    // Put the fork down for the seat holding it, if holder still holds it. True if it was reclaimed.
+    public abstract boolean forceRelease(int holder);
+
     public boolean isInUse() {
-        return currentHolder != -1;
+        return getCurrentHolder() != -1;
     }
 
     public String getName() {
         return name;
     }
-    
-    public int getCurrentHolder() {
-        return currentHolder;
+
+    // The Fork's number at the Table (set by populateTable)
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    // The caller just picked up the fork; contended if it had to wait for it
+    protected void acquired(boolean contended) {
+        ACQUISITIONS.setOpaque(this, acquisitions + 1);
+        if (contended) {
+            CONTENDED.setOpaque(this, contendedAcquisitions + 1);
+        }
+        acquiredNanos = System.nanoTime();
+    }
+
+    // How long the caller has held the fork so far; read before it lets go, while acquiredNanos is its own
+    protected long heldNanos() {
+        return System.nanoTime() - acquiredNanos;
+    }
+
+    // The holder's put down went through (its compare-and-set won): count the hold
+    protected void released(long heldNanos) {
+        HELD.getAndAdd(this, heldNanos);
+    }
+
+    // A seat starts (+1) or stops (-1) waiting for the fork
+    void addDemand(int delta) {
+        DEMAND.getAndAdd(this, delta);
     }
 
+    // Somebody is waiting for this fork (with leases)
+    public boolean isWanted() {
+        return demand > 0;
+    }
+
+    public long getAcquisitions() {
+        return (long) ACQUISITIONS.getOpaque(this);
+    }
+
+    public long getContendedAcquisitions() {
+        return (long) CONTENDED.getOpaque(this);
+    }
+
+    // Nanoseconds the fork has been held, not counting a current hold
+    public long getHeldNanosTotal() {
+        return heldNanosTotal;
+    }
 }
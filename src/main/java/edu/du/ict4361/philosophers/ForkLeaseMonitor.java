@@ -0,0 +1,218 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// ForkLeaseMonitor.java
+//
+// Fork ownership as a lease: a seat holds its forks only as long as it shows signs of life.
+// A seat that dies or stalls with forks in hand would otherwise keep them forever (a Semaphore
+// has no owner to check), and its neighbors would starve until the whole Table shut down.
+//
+// With a monitor, every Philosopher writes a heartbeat (System.nanoTime) at each state change and
+// meal. Every period (a quarter of the lease) the monitor looks at the held forks. A holder has
+// lost its lease when its heartbeat is older than the lease, while it is not itself waiting for a
+// fork (a seat blocked on a neighbor is alive; breaking such waits is the DeadlockDetector's job).
+// A seat that died and one that stalled look the same: both stop beating.
+// Its forks are then reclaimed with Fork.forceRelease, a compare-and-set from the holder, so they
+// go back to the waiting neighbors within the lease plus one period. If the holder wakes up, it
+// finds the forks gone, counts no meal and carries on (see Philosopher.eat).
+//
+// The holder may wake up between the look and the reclaim, put its forks down and pick them up
+// again: a fresh hold under the same seat id. So the monitor first reads the seat's hold stamp,
+// then looks again, and takes only the forks it saw the seat hold, and only by revoking that
+// stamp. A seat moves its stamp on before every pick up and put down (Philosopher.fence), so a
+// revoke made on an old look fails, and the seat waits out a revoke already under way.
+// Reclaiming also tells the Table's ForkStrategy (seatLost), so the neighbors are not left
+// waiting on a permit or a grant the lost seat will never give back.
+//
+// The lease must be longer than anything a healthy seat does with forks in hand without a
+// heartbeat: a meal (the longest sample of the eat time), a fork time, a back-off try.
+// With an EventLog, every fork taken back is logged as FORK_RECLAIMED, so a replay shows it free.
+// The Table starts and stops the monitor with itself.
+////////////////////////////////////
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class ForkLeaseMonitor {
+    // The forks of one seat taken back at once
+    public static class Reclaim {
+        private final int seatId;
+        private final long nanos;       // System.nanoTime of the reclaim
+        private final long silentNanos; // since the holder's last heartbeat
+        private final int forks;
+        private final long meals;       // the Table's total at the reclaim
+
+        Reclaim(int seatId, long nanos, long silentNanos, int forks, long meals) {
+            this.seatId = seatId;
+            this.nanos = nanos;
+            this.silentNanos = silentNanos;
+            this.forks = forks;
+            this.meals = meals;
+        }
+
+        public int getSeatId() {
+            return seatId;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getSilentNanos() {
+            return silentNanos;
+        }
+
+        public int getForks() {
+            return forks;
+        }
+
+        public long getMeals() {
+            return meals;
+        }
+    }
+
+    private final Table table;
+    private final long leaseNanos;
+    private final List<Reclaim> reclaims = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+    private EventLog.Writer eventLog; // only the monitor's thread writes through it
+
+    public ForkLeaseMonitor(Table table, long leaseNanos) {
+        if (leaseNanos <= 0) {
+            throw new IllegalArgumentException("A fork lease must be positive");
+        }
+        this.table = table;
+        this.leaseNanos = leaseNanos;
+    }
+
+    public long getLeaseNanos() {
+        return leaseNanos;
+    }
+
+    public long getPeriodNanos() {
+        return Math.max(1_000_000, leaseNanos / 4);
+    }
+
+    // Called by Table.startTable
+    synchronized void start() {
+        if (table.getEventLog() != null && eventLog == null) {
+            eventLog = table.getEventLog().newWriter();
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Fork lease monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::check, getPeriodNanos(), getPeriodNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    // Called by Table.stop before the Table drains
+    synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    // One pass over the held forks
+    void check() {
+        if (!table.isPartyIsOn()) {
+            return;
+        }
+        SeatRing ring = table.getSeatRing();
+        long now = System.nanoTime();
+        for (int f = 0; f < ring.getNumberOfForks(); f++) {
+            int holder = ring.getFork(f).getCurrentHolder();
+            if (holder < 0) {
+                continue;
+            }
+            Philosopher phil = ring.getPhilosopherById(holder);
+            if (phil != null && hasLostLease(phil, now)) {
+                reclaim(phil, now);
+            }
+        }
+    }
+
+    private boolean hasLostLease(Philosopher phil, long now) {
+        return phil.getPendingFork() == null && now - phil.getHeartbeatNanos() > leaseNanos;
+    }
+
+    // Take back the forks the seat holds, unless it has touched a fork since the look
+    private void reclaim(Philosopher phil, long now) {
+        long stamp = phil.getHoldStamp();
+        if (stamp < 0) {
+            return;
+        }
+        now = System.nanoTime();
+        if (!hasLostLease(phil, now)) {
+            return;
+        }
+        Fork[] forks = phil.getForks();
+        Fork[] lost = new Fork[forks.length];
+        int seen = 0;
+        for (Fork fork : forks) {
+            if (fork.getCurrentHolder() == phil.getSeatId()) {
+                lost[seen++] = fork;
+            }
+        }
+        if (seen == 0 || !phil.revokeHold(stamp)) {
+            return;
+        }
+        int taken = 0;
+        try {
+            // The seat is stalled, or held at its next fence: it cannot reach putDownForks meanwhile
+            table.getForkStrategy().seatLost(phil);
+            for (int i = 0; i < seen; i++) {
+                long released = System.nanoTime(); // before a neighbor can pick the fork up
+                if (lost[i].forceRelease(phil.getSeatId())) {
+                    taken++;
+                    if (eventLog != null) {
+                        eventLog.record(released, phil.getSeatNumber(), lost[i].getIndex(), EventLog.FORK_RECLAIMED, 0);
+                    }
+                }
+            }
+        } finally {
+            phil.endRevoke(stamp);
+        }
+        if (taken > 0) {
+            reclaims.add(new Reclaim(phil.getSeatId(), System.nanoTime(), now - phil.getHeartbeatNanos(),
+                                     taken, table.getTotalMeals()));
+        }
+    }
+
+    public List<Reclaim> getReclaims() {
+        return reclaims;
+    }
+
+    // The first reclaim of a seat's forks at or after the given time (null if none)
+    public Reclaim firstReclaim(int seatId, long sinceNanos) {
+        for (Reclaim reclaim : reclaims) {
+            if (reclaim.seatId == seatId && reclaim.nanos - sinceNanos >= 0) {
+                return reclaim;
+            }
+        }
+        return null;
+    }
+
+    public int getForksReclaimed() {
+        int forks = 0;
+        for (Reclaim reclaim : reclaims) {
+            forks += reclaim.forks;
+        }
+        return forks;
+    }
+
+    public String describe() {
+        long worst = 0;
+        for (Reclaim reclaim : reclaims) {
+            worst = Math.max(worst, reclaim.silentNanos);
+        }
+        return reclaims.size() + " holders lost their lease, " + getForksReclaimed() + " forks reclaimed"
+               + (reclaims.isEmpty() ? "" : ", at most " + String.format("%.3f", worst / 1e6)
+                                            + " ms after the last heartbeat");
+    }
+}
@@ -0,0 +1,91 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// ForkStrategy.java
+//
+// A ForkStrategy decides how a Philosopher acquires and releases its Forks.
+// The original protocol (left fork, then right fork) is the "naive" strategy and
+// deadlocks sooner or later. The other strategies are the textbook ways out:
+//   ordering   - pick up the lowest numbered fork first (resource ordering)
+//   waiter     - an arbitrator lets at most n-1 philosophers reach for forks
+//   chandy     - Chandy-Misra clean/dirty fork hand-off
+//   asymmetric - even seats go left first, odd seats go right first
+//   backoff    - try the second fork with a timeout; on failure drop the first and back off
+//   fair       - a scheduler gives contested forks to the hungriest neighbor (fewest meals)
+//   batch      - pick up all forks lowest number first as one batch (forkTime once)
+//
+// On a Table with another Topology than the ring, a seat may need any number of forks.
+// naive, ordering and batch work with any Topology; the others assume left and right
+// neighbors on a ring and refuse other Topologies.
+//
+// naive, ordering, backoff and batch keep nothing by seat, so seats can join and leave a running
+// ring Table with them (isResizable); the others size their state for the first seats.
+// A seat whose forks the ForkLeaseMonitor reclaims never gets to putDownForks: seatLost lets go
+// of whatever the strategy still holds for it (a waiter's permit, a fair scheduler's grant, the
+// Chandy-Misra forks in use), or its neighbors would wait on the strategy forever.
+//
+// The strategy only decides the order and the gating; the Philosopher still does the
+// actual pickUp/putDown (and spends forkTime doing it).
+////////////////////////////////////
+
+/**
+ * How a Philosopher gets hold of (and lets go of) both of its Forks
+ */
+public interface ForkStrategy {
+
+    String getName();
+
+    void pickUpForks(Philosopher philosopher);
+
+    void putDownForks(Philosopher philosopher);
+
+    // The ForkLeaseMonitor is taking the seat's forks: undo what pickUpForks granted it, as
+    // putDownForks would. The seat may wake up and put its forks down later; that must not count twice.
+    default void seatLost(Philosopher philosopher) {
+    }
+
+    // Whether seats can join and leave a running Table with this strategy
+    default boolean isResizable() {
+        return false;
+    }
+
+    static String[] getNames() {
+        return new String[] { "naive", "ordering", "waiter", "chandy", "asymmetric", "backoff", "fair", "batch" };
+    }
+
+    // Strategies may keep per-seat state, so each Table gets its own instance
+    static ForkStrategy forName(String name, Table table) {
+        switch (name) {
+        case "naive":
+        case "ordering":
+        case "batch":
+            break;
+        default:
+            if (!table.getTopology().isRing()) {
+                throw new IllegalArgumentException("The " + name + " strategy needs a ring topology, not a "
+                                                   + table.getTopology().getDescription());
+            }
+        }
+        switch (name) {
+        case "naive":
+            return new NaiveStrategy();
+        case "ordering":
+            return new ResourceOrderingStrategy();
+        case "waiter":
+            return new WaiterStrategy(table);
+        case "chandy":
+        case "chandy-misra":
+            return new ChandyMisraStrategy(table);
+        case "asymmetric":
+            return new AsymmetricStrategy();
+        case "backoff":
+            return new BackoffStrategy();
+        case "fair":
+            return new FairStrategy(table);
+        case "batch":
+            return new BatchStrategy();
+        default:
+            throw new IllegalArgumentException("Unknown fork strategy: " + name);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// ForkType.java
+//
+// Which Fork implementation the Table lays out:
+//   SEMAPHORE - SemaphoreFork, the original Semaphore-based fork
+//   FAIR      - SemaphoreFork with a fair Semaphore: waiting Philosophers get the fork in arrival order
+//   ATOMIC    - AtomicFork, a single CAS on the holder, spinning briefly and then parking
+// With Layout.PADDED, atomic forks are PaddedAtomicForks (the holder on a cache line pair of its own).
+////////////////////////////////////
+public enum ForkType {
+    SEMAPHORE, FAIR, ATOMIC;
+
+    public static ForkType forName(String name) {
+        switch (name) {
+        case "semaphore":
+            return SEMAPHORE;
+        case "fair":
+            return FAIR;
+        case "atomic":
+            return ATOMIC;
+        default:
+            throw new IllegalArgumentException("Unknown fork type: " + name);
+        }
+    }
+
+    public Fork newFork(String name) {
+        return newFork(name, Layout.COMPACT);
+    }
+
+    public Fork newFork(String name, Layout layout) {
+        switch (this) {
+        case ATOMIC:
+            return (layout == Layout.PADDED) ? new PaddedAtomicFork(name) : new AtomicFork(name);
+        case FAIR:
+            return new SemaphoreFork(name, true);
+        default:
+            return new SemaphoreFork(name);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// LatencyHistogram.java
+//
+// A small HDR-style histogram of nanosecond latencies.
+// Values below 64 get a bucket each; above that every power of two is split into 32
+// sub-buckets, so any recorded value is known to within about 3%.
+// The buckets come in chunks of 32, one chunk per power of two, allocated the first time a value
+// of that magnitude is recorded. A seat only ever sees a few magnitudes, so a histogram stays
+// around a kilobyte (a million seats fit in the heap), and once warmed up record() does no
+// allocation and no locking.
+// A histogram has a single writer (the Philosopher's own thread); readers may see a value
+// or two in flight, which is fine for reporting. Merge per-seat histograms to report a Table.
+////////////////////////////////////
+
+import java.util.Arrays;
+
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;           // 32
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;               // 64
+    private static final int BUCKETS = (63 - SUB_BUCKET_BITS) * SUB_BUCKETS + LINEAR_LIMIT;
+
+    private final long[][] chunks = new long[BUCKETS / SUB_BUCKETS][];
+    private long totalCount;
+    private long maxValue;
+    private long sum;
+
+    private static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) Math.max(0, value);
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    // Lowest value that lands in the bucket
+    private static long valueOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+        return sub << shift;
+    }
+
+    private long[] chunk(int index) {
+        long[] chunk = chunks[index / SUB_BUCKETS];
+        if (chunk == null) {
+            chunk = new long[SUB_BUCKETS];
+            chunks[index / SUB_BUCKETS] = chunk;
+        }
+        return chunk;
+    }
+
+    private long count(int index) {
+        long[] chunk = chunks[index / SUB_BUCKETS];
+        return chunk == null ? 0 : chunk[index % SUB_BUCKETS];
+    }
+
+    public void record(long value) {
+        int index = indexOf(value);
+        chunk(index)[index % SUB_BUCKETS]++;
+        totalCount++;
+        sum += value;
+        if (value > maxValue) {
+            maxValue = value;
+        }
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int c = 0; c < chunks.length; c++) {
+            long[] theirs = other.chunks[c];
+            if (theirs != null) {
+                long[] mine = chunk(c * SUB_BUCKETS);
+                for (int i = 0; i < SUB_BUCKETS; i++) {
+                    mine[i] += theirs[i];
+                }
+            }
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    public void reset() {
+        for (long[] chunk : chunks) {
+            if (chunk != null) {
+                Arrays.fill(chunk, 0);
+            }
+        }
+        totalCount = 0;
+        sum = 0;
+        maxValue = 0;
+    }
+
+    // Value at the given percentile (0-100), to within the bucket precision
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100.0 * totalCount);
+        rank = Math.max(1, Math.min(totalCount, rank));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += count(i);
+            if (seen >= rank) {
+                return Math.min(valueOf(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    // The histogram as text, to send it to another process: "sum max index:count index:count ..."
+    public String toText() {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append(sum).append(' ').append(maxValue);
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = count(i);
+            if (count > 0) {
+                sb.append(' ').append(i).append(':').append(count);
+            }
+        }
+        return sb.toString();
+    }
+
+    public static LatencyHistogram fromText(String text) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        String[] parts = text.trim().split(" ");
+        histogram.sum = Long.parseLong(parts[0]);
+        histogram.maxValue = Long.parseLong(parts[1]);
+        for (int i = 2; i < parts.length; i++) {
+            int colon = parts[i].indexOf(':');
+            int index = Integer.parseInt(parts[i].substring(0, colon));
+            long count = Long.parseLong(parts[i].substring(colon + 1));
+            histogram.chunk(index)[index % SUB_BUCKETS] += count;
+            histogram.totalCount += count;
+        }
+        return histogram;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0.0 : (double) sum / totalCount;
+    }
+}
@@ -0,0 +1,39 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// Layout.java
+//
+// How the Table lays out the state that Philosophers write all the time:
+//   COMPACT - plain objects, allocated back to back. Forks of neighboring seats, and the time
+//             accounting of neighboring Philosophers, can share a cache line, so with zero
+//             think/eat/fork times every write by one seat invalidates its neighbors' caches
+//             (false sharing).
+//   PADDED  - the hot words get a cache line pair of their own:
+//             atomic forks are PaddedAtomicForks (the holder sits between two PAD_BYTES pads),
+//             and each Philosopher's hot words (state, meal count, time accounting) share
+//             one array that is padded on both ends.
+//             That costs about 300 bytes per seat; it pays off when seats run on many cores.
+//
+// PAD_BYTES is two 64-byte lines, since the adjacent-line prefetcher of many x86 cores pulls
+// lines in pairs. The padding is always inside one object, which survives garbage collection:
+// the order of separate objects is only the allocation order, which a moving collector may change.
+// Semaphore forks keep their AQS state in a separate Semaphore object, which cannot be padded:
+// use PADDED with --fork-type atomic.
+////////////////////////////////////
+public enum Layout {
+    COMPACT, PADDED;
+
+    public static final int PAD_BYTES = 128;
+    public static final int PAD_LONGS = PAD_BYTES / Long.BYTES;
+
+    public static Layout forName(String name) {
+        switch (name) {
+        case "compact":
+            return COMPACT;
+        case "padded":
+            return PADDED;
+        default:
+            throw new IllegalArgumentException("Unknown layout: " + name);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// MealStatistics.java
+//
+// Running meal statistics for a Table, kept up to date as meals are eaten,
+// so reading them is O(1) and allocation-free however many seats there are.
+//
+//   total, sum of squares - striped LongAdders; every meal adds to them without contention
+//                           (a seat going from c to c+1 meals adds 2c+1 to the sum of squares)
+//   min, max             - the max is an AtomicInteger raised with accumulateAndGet (meal counts
+//                           only go up); the min is the floor of a count of seats at each meal count
+//   variance, fairness   - derived from total and sum of squares; fairness is Jain's index
+//                           (sum x)^2 / (n * sum x^2): 1.0 when every seat ate equally, 1/n when one ate
+//
+// The seats at each meal count (level) are AtomicIntegerArray chunks of 1024 levels, from the
+// floor (the lowest level a seat is at) up to the max. A meal adds one at c+1 before taking one
+// from c, so a seat is always counted; whoever empties a level raises the floor past the empty
+// levels, and chunks below the floor are dropped. The floor and the chunks are one immutable
+// Levels, replaced with a compare-and-set, so a seat joining with no meals (which lowers the
+// floor to 0) cannot race a raise past level 0. No meal takes a lock.
+// Seats can join (with no meals) and leave a running Table: the total still counts the meals of
+// seats that left, everything else (average, variance, fairness, min, max) is over the seats present.
+////////////////////////////////////
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MealStatistics {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final VarHandle LEVELS;
+    static {
+        try {
+            LEVELS = MethodHandles.lookup().findVarHandle(MealStatistics.class, "levels", Levels.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // The floor and the seats at each level from there: chunks[i] holds levels (base + i) * CHUNK
+    // and up (null: no seat there). Never changed, only replaced.
+    private static final class Levels {
+        final int floor;
+        final int base;
+        final AtomicIntegerArray[] chunks;
+
+        Levels(int floor, int base, AtomicIntegerArray[] chunks) {
+            this.floor = floor;
+            this.base = base;
+            this.chunks = chunks;
+        }
+
+        AtomicIntegerArray chunk(int level) {
+            int i = (level >>> CHUNK_BITS) - base;
+            return (i >= 0 && i < chunks.length) ? chunks[i] : null;
+        }
+
+        int count(int level) {
+            AtomicIntegerArray chunk = chunk(level);
+            return chunk == null ? 0 : chunk.get(level & (CHUNK - 1));
+        }
+
+        // With a new chunk for level (at or above the floor)
+        Levels withChunk(int level) {
+            int i = (level >>> CHUNK_BITS) - base;
+            AtomicIntegerArray[] grown = Arrays.copyOf(chunks, Math.max(chunks.length, i + 1));
+            grown[i] = new AtomicIntegerArray(CHUNK);
+            return new Levels(floor, base, grown);
+        }
+
+        // The floor one level up (to the next chunk past a missing one), dropping the chunk it leaves
+        Levels raised() {
+            int raised = chunk(floor) == null ? ((floor >>> CHUNK_BITS) + 1) << CHUNK_BITS : floor + 1;
+            int dropped = (raised >>> CHUNK_BITS) - base;
+            if (dropped == 0) {
+                return new Levels(raised, base, chunks);
+            }
+            return new Levels(raised, base + dropped, Arrays.copyOfRange(chunks, Math.min(dropped, chunks.length), chunks.length));
+        }
+
+        // The floor back at 0, with chunk0 (holding the joining seat) for levels 0 and up
+        Levels rebased(AtomicIntegerArray chunk0) {
+            AtomicIntegerArray[] rebased = new AtomicIntegerArray[base + chunks.length];
+            System.arraycopy(chunks, 0, rebased, base, chunks.length);
+            rebased[0] = chunk0;
+            return new Levels(0, 0, rebased);
+        }
+    }
+
+    private volatile int seats;
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sumOfSquares = new LongAdder(); // of the seats present
+    private volatile long departedMeals = 0;                 // eaten by seats that left
+    private final AtomicInteger max = new AtomicInteger();
+    private volatile Levels levels;
+
+    public MealStatistics(int seats) {
+        this.seats = seats;
+        AtomicIntegerArray chunk0 = new AtomicIntegerArray(CHUNK);
+        chunk0.set(0, seats);
+        levels = new Levels(0, 0, new AtomicIntegerArray[] { chunk0 });
+    }
+
+    // A seat that had eaten mealsBefore meals just ate another one
+    public void mealEaten(int mealsBefore) {
+        total.increment();
+        sumOfSquares.add(2L * mealsBefore + 1);
+        int mealsAfter = mealsBefore + 1;
+        chunkFor(mealsAfter).incrementAndGet(mealsAfter & (CHUNK - 1));
+        max.accumulateAndGet(mealsAfter, Math::max);
+        leaveLevel(mealsBefore);
+    }
+
+    // The chunk of a level above the floor, added if no seat got there yet
+    private AtomicIntegerArray chunkFor(int level) {
+        for (;;) {
+            Levels current = levels;
+            AtomicIntegerArray chunk = current.chunk(level);
+            if (chunk != null) {
+                return chunk;
+            }
+            LEVELS.compareAndSet(this, current, current.withChunk(level));
+        }
+    }
+
+    // A seat counted at level (so at or above the floor) moved on or left
+    private void leaveLevel(int level) {
+        if (levels.chunk(level).decrementAndGet(level & (CHUNK - 1)) == 0) {
+            raiseFloor();
+        }
+    }
+
+    // Past the empty levels up to the lowest seat (every seat present is counted at a level)
+    private void raiseFloor() {
+        for (;;) {
+            Levels current = levels;
+            if (seats == 0 || current.count(current.floor) > 0) {
+                return;
+            }
+            LEVELS.compareAndSet(this, current, current.raised());
+        }
+    }
+
+    // A seat with no meals yet joined the Table (called under the Table's resize lock)
+    public synchronized void seatJoined() {
+        AtomicIntegerArray counted = null; // the chunk 0 the seat is counted in
+        for (;;) {
+            Levels current = levels;
+            AtomicIntegerArray chunk0 = current.chunk(0);
+            if (chunk0 == null) {
+                chunk0 = new AtomicIntegerArray(CHUNK);
+                chunk0.set(0, 1);
+                counted = chunk0;
+            } else if (chunk0 != counted) {
+                chunk0.incrementAndGet(0);
+                counted = chunk0;
+            }
+            // A new Levels even if the floor is at 0: a raise that saw level 0 empty must fail
+            if (LEVELS.compareAndSet(this, current, current.rebased(counted))) {
+                break;
+            }
+        }
+        seats++;
+    }
+
+    // A seat that had eaten meals meals left the Table (and eats no more)
+    public synchronized void seatLeft(int meals) {
+        sumOfSquares.add(-(long) meals * meals);
+        departedMeals += meals;
+        seats--;
+        leaveLevel(meals);
+        // The max comes down to the next seat; a meal eaten meanwhile raises it again
+        for (int top = max.get(); top > 0 && levels.count(top) == 0; top = max.get()) {
+            max.compareAndSet(top, top - 1);
+        }
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    // The fewest meals of a seat present (0 if none is)
+    public int getMinimum() {
+        return seats == 0 ? 0 : levels.floor;
+    }
+
+    public int getMaximum() {
+        return max.get();
+    }
+
+    // Sum of the squared meal counts of all seats (to combine the statistics of several Tables)
+    public long getSumOfSquares() {
+        return sumOfSquares.sum();
+    }
+
+    public int getNumberOfSeats() {
+        return seats;
+    }
+
+    // Meals of the seats present
+    private long getSeatedTotal() {
+        return total.sum() - departedMeals;
+    }
+
+    public double getAverage() {
+        return (double) getSeatedTotal() / seats;
+    }
+
+    public double getVariance() {
+        double mean = getAverage();
+        return Math.max(0.0, (double) sumOfSquares.sum() / seats - mean * mean);
+    }
+
+    // Jain's fairness index; 1.0 before anybody has eaten
+    public double getFairnessIndex() {
+        double sum = getSeatedTotal();
+        long squares = sumOfSquares.sum();
+        return squares == 0 ? 1.0 : (sum * sum) / (seats * (double) squares);
+    }
+}
@@ -0,0 +1,36 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// NaiveStrategy.java
+//
+// The original protocol: pick up the left fork, then the right fork.
+// Put down the left fork, then the right fork.
+// If every Philosopher holds a left fork at the same time, nobody eats again.
+// In other Topologies the forks are picked up (and put down) one by one in the Topology's order.
+////////////////////////////////////
+public class NaiveStrategy implements ForkStrategy {
+
+    @Override
+    public String getName() {
+        return "naive";
+    }
+
+    @Override
+    public boolean isResizable() {
+        return true;
+    }
+
+    @Override
+    public void pickUpForks(Philosopher philosopher) {
+        for (Fork fork : philosopher.getForks()) {
+            philosopher.pickUp(fork);
+        }
+    }
+
+    @Override
+    public void putDownForks(Philosopher philosopher) {
+        for (Fork fork : philosopher.getForks()) {
+            philosopher.putDown(fork);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package edu.du.ict4361.philosophers;
+
+/////////////////////////////////////
+// PaddedAtomicFork.java
+//
+// An AtomicFork whose holder word has a cache line pair to itself (Layout.PADDED).
+//
+// Every pick up and put down writes the holder, and waiting neighbors spin on it. In a plain
+// AtomicFork the holder sits next to the fork's other fields and, in memory, next to the
+// neighboring fork: writes by one pair of seats then invalidate the line another pair spins on.
+// Java has no portable way to align a field (@Contended is JDK-internal), but subclass fields
+// are laid out after superclass fields, so a chain of classes puts the holder between two
+// blocks of Layout.PAD_BYTES that nothing ever touches:
+//     AtomicFork fields | PaddedAtomicForkPad0 | PaddedAtomicForkHolder | PaddedAtomicForkPad1
+// The unused holder field of AtomicFork stays -1; AtomicFork only uses the overridden accessors.
+/////////////////////////////////////
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+abstract class PaddedAtomicForkPad0 extends AtomicFork {
+    long p00, p01, p02, p03, p04, p05, p06, p07, p08, p09, p0a, p0b, p0c, p0d, p0e, p0f;
+
+    PaddedAtomicForkPad0(String name) {
+        super(name);
+    }
+}
+
+abstract class PaddedAtomicForkHolder extends PaddedAtomicForkPad0 {
+    // A long, so the layout cannot slip it into a 4-byte gap among the superclass fields
+    volatile long paddedHolder = -1;
+
+    PaddedAtomicForkHolder(String name) {
+        super(name);
+    }
+}
+
+abstract class PaddedAtomicForkPad1 extends PaddedAtomicForkHolder {
+    long p10, p11, p12, p13, p14, p15, p16, p17, p18, p19, p1a, p1b, p1c, p1d, p1e, p1f;
+
+    PaddedAtomicForkPad1(String name) {
+        super(name);
+    }
+}
+
+public class PaddedAtomicFork extends PaddedAtomicForkPad1 {
+    private static final VarHandle PADDED_HOLDER;
+    static {
+        try {
+            PADDED_HOLDER = MethodHandles.lookup().findVarHandle(PaddedAtomicForkHolder.class, "paddedHolder", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public PaddedAtomicFork(String name) {
+        super(name);
+    }
+
+    @Override
+    protected int holder() {
+        return (int) paddedHolder;
+    }
+
+    @Override
+    protected boolean casHolder(int expected, int seatNumber) {
+        return PADDED_HOLDER.compareAndSet(this, (long) expected, (long) seatNumber);
+    }
+
+    @Override
+    protected void setHolder(int seatNumber) {
+        paddedHolder = seatNumber;
+    }
+}
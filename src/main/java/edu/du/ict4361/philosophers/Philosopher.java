@@ -13,105 +13,646 @@ package edu.du.ict4361.philosophers;
 // In this implementation, each Philosopher has a name (final) and a table. 
 // The Table seats them by assigning their seat number (dependency injection).
 // The Philosopher's current activity is tracked in an enumeration (STATE), which changes over time.
-// Each activity has an associated (fixed) time, which is injected statically into the class
-//   (each Philosopher, thus, takes the same amount of time to eat, think, and manipulate a fork).
+// Each activity has an associated time, which comes from the Table (a ThinkTimeController or a
+//   WorkloadProfile may vary it by seat) and is spent the way the Table's WaitMode says.
+// How the Forks are picked up is up to the Table's ForkStrategy, which calls back into the Philosopher.
 // The number of "meals" the Philosopher eats() is tracked.
 // A deadlock could occur if all Philosophers have their left fork in their hand and won't relinquish it.
 //   Then the poor Philosophers will starve :-(
 // The state of the Philosopher uses a setter to change.
-//   This allows, in the future, a way to measure how much time each Philosopher spends in each state.
+//   The setter measures how much time each Philosopher spends in each state, and how long it waits for forks.
+// A seat can also join or leave a running Table, be struck by a FaultInjector, lose its forks to a
+//   ForkLeaseMonitor and write an EventLog; the members that handle each say how.
 ////////////////////////////////////
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
 public class Philosopher implements Runnable {
     private final String name;
     private int tableSeatNumber;
+    private int seatId; // what the Forks know this seat by: the seat number, plus the Table's seat base
     private Table table;
+    private int epoch;  // of the SeatRing the seat number and Forks come from
+    private volatile boolean leaving = false;
+    private volatile boolean killed = false;      // by a FaultInjector: gone, with its forks in hand
+    private volatile FaultInjector.Fault fault;   // to strike at the next meal
+    private volatile long slowUntilNanos = 0;     // a slow down (FaultInjector) lasts until then
+    private volatile double slowFactor = 1.0;
+    private int reclaimedMeals = 0;               // meals lost because the forks were reclaimed
+    private Future<?> seatFuture; // of the running seat, kept by the Table
 
     public enum STATE {
         IDLE, THINKING, EATING, PICKING_UP_FORK, PUTTING_DOWN_FORK
     };
 
-    private volatile STATE state = STATE.IDLE;
+    private static final STATE[] STATES = STATE.values();
+
+    // This seat's hot words, in one array from wordBase on (Layout.PADDED pads it on both ends).
+    // Objects are placed as they are allocated and a moving collector may reorder them, but the
+    // inside of one array stays put: the pads keep every other seat's words off these lines.
+    private static final VarHandle WORD = MethodHandles.arrayElementVarHandle(long[].class);
+    // Words 0 .. STATES.length - 1: nanoseconds in each state, written only by this seat's thread.
+    // The volatile write of the state in changeState publishes them to readers who read the state first.
+    private static final int STATE_WORD = STATES.length; // ordinal of the current state
+    private static final int MEALS_WORD = STATE_WORD + 1;
+    private static final int HEARTBEAT_WORD = STATE_WORD + 2;  // with a ForkLeaseMonitor
+    private static final int HOLD_STAMP_WORD = STATE_WORD + 3; // moved on by fence(); negative while the monitor reclaims
+    private static final int WORDS = STATE_WORD + 4;
+
+    private final long[] seatWords;
+    private final int wordBase;
+    private long stateEnteredNanos = System.nanoTime();
+    private boolean virtualClock = false;
+    private final LatencyHistogram forkWaitHistogram = new LatencyHistogram();
+    private long forkWaitNanos; // blocked on forks so far in this trip through PICKING_UP_FORK
+
+    // The Forks this seat needs, in the Topology's order and in fork number order (set with the seat)
+    private Fork[] forks;
+    private Fork[] orderedForks;
+
+    // Forks in hand, and the fork being waited for (read by the DeadlockDetector)
+    private Fork[] heldForks = new Fork[2];
+    private int heldCount = 0;
+    private volatile Fork pendingFork;
+
+    // Binary event log of this seat: every state change, fork pick up and put down, and meal (null: not logging)
+    private EventLog.Writer eventLog;
 
-    private static int thinkTime = 3000; // milliseconds
-    private static int eatTime = 3000; // milliseconds
-    private static int forkTime = 3000; // milliseconds
+    // The thread running this Philosopher (null when it is not at the table)
+    private volatile Thread runner;
+
+    // This seat's own think time, set by a ThinkTimeController (-1: the Table's)
+    private volatile long thinkNanos = -1;
+
+    // This seat's timing, by WorkloadProfile.Activity (set by the Table's WorkloadProfile)
+    private final TimingDistribution[] timing = {
+        TimingDistribution.CONSTANT, TimingDistribution.CONSTANT, TimingDistribution.CONSTANT
+    };
+    private final double[] timingScale = { 1.0, 1.0, 1.0 };
 
-    private int numberOfTimesEating = 0;
     private int numberOfTimesThinking = 0;
+    private int numberOfRetries = 0;  // times a second fork was not available (back-off strategies)
+    private long backoffTimeTotal = 0; // milliseconds spent backing off
+    private int leases = 0;            // times the forks were held for a lease (with leases)
+    private int leasedMeals = 0;       // meals after the first of a lease, without another pick up
+    private int leasesYielded = 0;     // leases ended early because a neighbor waited
 
     public Philosopher(String name, Table t) {
         this.name = name;
         table = t;
+        wordBase = (t.getLayout() == Layout.PADDED) ? Layout.PAD_LONGS : 0;
+        seatWords = new long[wordBase + WORDS + wordBase];
+        seatWords[wordBase + HEARTBEAT_WORD] = System.nanoTime();
     }
 
     public void setSeatNumber(int seatNumber) {
+        seat(table.getSeatRing(), seatNumber);
+    }
+
+    // Take the seat at this position of the ring, with the Forks the ring gives it
+    void seat(SeatRing ring, int seatNumber) {
+        epoch = ring.getEpoch();
         tableSeatNumber = seatNumber;
+        forks = new Fork[ring.getForkCount(seatNumber)];
+        for (int k = 0; k < forks.length; k++) {
+            forks[k] = ring.getFork(ring.getForkIndex(seatNumber, k));
+        }
+        orderedForks = forks.clone();
+        Arrays.sort(orderedForks, (a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
     }
 
-    private Fork getLeftFork() {
-        return table.getLeftFork(tableSeatNumber);
+    // Seats joined or left since this seat last looked: move to its new position and Forks.
+    // Called before each meal, while the seat holds no forks, so a Fork never changes under a holder.
+    private void reseat() {
+        SeatRing ring = table.getSeatRing();
+        if (ring.getEpoch() != epoch) {
+            int seatNumber = ring.getPosition(seatId);
+            if (seatNumber >= 0) {
+                seat(ring, seatNumber);
+            }
+        }
+    }
+
+    // Set by the Table before setSeatNumber; never changes after
+    void setSeatId(int seatId) {
+        this.seatId = seatId;
+    }
+
+    public int getSeatNumber() {
+        return tableSeatNumber;
+    }
+
+    // The seat number across all shards of a ShardedTable (the seat number for a plain Table).
+    // Fork holders are seat ids.
+    public int getSeatId() {
+        return seatId;
+    }
+
+    public String getName() {
+        return name;
     }
 
-    private Fork getRightFork() {
-        return table.getRightFork(tableSeatNumber);
+    Table getTable() {
+        return table;
     }
 
-    // Helper function to cause a thread to sleeps and ignore
-    // InterruptedException events
-    private void waitTime(int ms) {
+    Fork getLeftFork() {
+        return forks[0];
+    }
+
+    Fork getRightFork() {
+        return (forks.length > 1) ? forks[1] : null;
+    }
+
+    // Every Fork this seat needs (on a ring: left, then right). Do not modify.
+    Fork[] getForks() {
+        return forks;
+    }
+
+    // The same Forks, lowest fork number first. Do not modify.
+    Fork[] getOrderedForks() {
+        return orderedForks;
+    }
+
+    // Helper function to cause a thread to wait (as the Table's WaitMode says) and ignore
+    // InterruptedException events. False if the wait was cut short.
+    private boolean waitTime(long nanos) {
         try {
-            Thread.sleep(ms);
+            table.getWaitMode().pause(nanos);
+            return true;
         } catch (InterruptedException ie) {
-            System.err.println("     Philosopher: " + name + " interrupted while " + getState());
-            // do nothing
+            if (isAtTable()) {
+                System.err.println("     Philosopher: " + name + " interrupted while " + getState());
+            } else {
+                Thread.currentThread().interrupt(); // The Table is stopping: skip the remaining waits
+            }
+            return false;
+        }
+    }
+
+    // Still at the table: the party is on and this seat was not asked to leave (nor killed)
+    boolean isAtTable() {
+        return !leaving && !killed && table.isPartyIsOn();
+    }
+
+    // A kill or pause, for the next meal
+    void fail(FaultInjector.Fault fault) {
+        this.fault = fault;
+    }
+
+    // Think, eat and fork times are factor times as long until the given System.nanoTime
+    void slowDown(double factor, long untilNanos) {
+        slowFactor = factor;
+        slowUntilNanos = untilNanos;
+    }
+
+    // A sign of life for the ForkLeaseMonitor (only written if the Table has one)
+    private void beat(long now) {
+        if (table.getForkLeaseMonitor() != null) {
+            WORD.setVolatile(seatWords, wordBase + HEARTBEAT_WORD, now);
+        }
+    }
+
+    long getHeartbeatNanos() {
+        return (long) WORD.getVolatile(seatWords, wordBase + HEARTBEAT_WORD);
+    }
+
+    // With a ForkLeaseMonitor, before every pick up and put down: moves the hold stamp on, so a
+    // monitor that looked at the seat under the old stamp can no longer revoke its hold. If the
+    // monitor revoked it first (a negative stamp), wait the moment it takes to reclaim the forks.
+    private void fence() {
+        if (table.getForkLeaseMonitor() == null) {
+            return;
+        }
+        for (;;) {
+            long stamp = getHoldStamp();
+            if (stamp >= 0 && WORD.compareAndSet(seatWords, wordBase + HOLD_STAMP_WORD, stamp, stamp + 1)) {
+                return;
+            }
+            Thread.yield();
+        }
+    }
+
+    long getHoldStamp() {
+        return (long) WORD.getVolatile(seatWords, wordBase + HOLD_STAMP_WORD);
+    }
+
+    // The ForkLeaseMonitor takes this seat's forks: true if the seat has not touched a fork since stamp
+    boolean revokeHold(long stamp) {
+        return stamp >= 0 && WORD.compareAndSet(seatWords, wordBase + HOLD_STAMP_WORD, stamp, -1 - stamp);
+    }
+
+    // The ForkLeaseMonitor has taken the forks back: the seat may pick up and put down again
+    void endRevoke(long stamp) {
+        WORD.setVolatile(seatWords, wordBase + HOLD_STAMP_WORD, stamp + 1);
+    }
+
+    public int getReclaimedMeals() {
+        return reclaimedMeals;
+    }
+
+    // The fault strikes, forks in hand. True if the seat was killed: it leaves without a word.
+    private boolean strike(FaultInjector.Fault fault) {
+        this.fault = null;
+        long now = System.nanoTime();
+        fault.struck(now, table.getTotalMeals());
+        if (fault.getKind() == FaultInjector.Kind.KILL) {
+            killed = true;
+            return true;
+        }
+        // A stall: no heartbeat, no reaction, until the pause is over (or the party is)
+        long until = now + fault.getDurationNanos();
+        for (long left = until - now; left > 0 && table.isPartyIsOn(); left = until - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+        }
+        return false;
+    }
+
+    // Forks the ForkLeaseMonitor reclaimed while this seat was unresponsive leave its hand. True if any did.
+    private boolean lostForks() {
+        boolean lost = false;
+        for (int i = heldCount - 1; i >= 0; i--) {
+            if (heldForks[i].getCurrentHolder() != seatId) {
+                heldForks[i] = heldForks[--heldCount];
+                heldForks[heldCount] = null;
+                lost = true;
+            }
+        }
+        return lost;
+    }
+
+    // Ask this seat to leave after the meal in hand; a thinking seat stops thinking at once
+    void leave() {
+        leaving = true;
+        if (getState() == STATE.THINKING) {
+            interrupt();
+        }
+    }
+
+    Future<?> getSeatFuture() {
+        return seatFuture;
+    }
+
+    void setSeatFuture(Future<?> seatFuture) {
+        this.seatFuture = seatFuture;
+    }
+
+    // Cut short whatever this Philosopher waits for (the Table is stopping). Once the party is over
+    // the interrupt stays set: every later wait and pick up returns at once, only the forks in hand
+    // are put down, and no meal is counted.
+    void interrupt() {
+        Thread thread = runner;
+        if (thread != null) {
+            thread.interrupt();
         }
     }
 
     // Represents a delay while the philosopher thinks
     private void think() {
         setState(STATE.THINKING);
-        waitTime(thinkTime);
+        waitTime(nextThinkNanos(System.nanoTime() - table.getStartedNanos()));
         setState(STATE.IDLE);
-        numberOfTimesThinking++;
+        recordThought();
+    }
+
+    // How long this Philosopher thinks: its own think time if it has one, else the Table's
+    public long getThinkNanos() {
+        long nanos = thinkNanos;
+        return (nanos >= 0) ? nanos : table.getThinkNanos();
+    }
+
+    void setThinkNanos(long thinkNanos) {
+        this.thinkNanos = thinkNanos;
+    }
+
+    void setTiming(WorkloadProfile.Activity activity, TimingDistribution distribution, double scale) {
+        timing[activity.ordinal()] = distribution;
+        timingScale[activity.ordinal()] = scale;
+    }
+
+    public TimingDistribution getTiming(WorkloadProfile.Activity activity) {
+        return timing[activity.ordinal()];
+    }
+
+    // The next think, eat or fork time: a sample of this seat's distribution around its mean.
+    // now (nanoseconds since the start, virtual in a Simulation) places the think time in or out of a burst.
+    long nextThinkNanos(long now) {
+        WorkloadProfile profile = table.getWorkloadProfile();
+        double burst = (profile == null) ? 1.0 : profile.getThinkScale(now);
+        return sample(WorkloadProfile.Activity.THINK, getThinkNanos(), burst);
+    }
+
+    long nextEatNanos() {
+        return sample(WorkloadProfile.Activity.EAT, table.getEatNanos(), 1.0);
+    }
+
+    long nextForkNanos() {
+        return sample(WorkloadProfile.Activity.FORK, table.getForkNanos(), 1.0);
+    }
+
+    private long sample(WorkloadProfile.Activity activity, long mean, double factor) {
+        if (slowUntilNanos != 0) {
+            if (System.nanoTime() - slowUntilNanos < 0) {
+                factor *= slowFactor;
+            } else {
+                slowUntilNanos = 0;
+            }
+        }
+        double scale = timingScale[activity.ordinal()] * factor;
+        if (scale != 1.0) {
+            mean = (long) (mean * scale);
+        }
+        TimingDistribution distribution = timing[activity.ordinal()];
+        return distribution.isConstant() ? mean : distribution.sample(mean);
+    }
+
+    // Picking up a fork takes forkTime. Used by the Table's ForkStrategy.
+    // If the Table has a DeadlockDetector and this wait would close a cycle, the detector may
+    // ask this Philosopher to put down the forks it holds first and pick them up again after.
+    void pickUp(Fork fork) {
+        acquire(fork);
+        waitTime(nextForkNanos());
+    }
+
+    // Pick up a set of forks, one after the other in the given order, as one batch:
+    // forkTime is spent once, after the last fork is in hand.
+    void pickUpAll(Fork[] batch) {
+        for (Fork fork : batch) {
+            acquire(fork);
+        }
+        waitTime(nextForkNanos());
+    }
+
+    // Put down a set of forks as one batch: forkTime once, then every fork goes down
+    void putDownAll(Fork[] batch) {
+        if (heldCount == 0) {
+            return;
+        }
+        waitTime(nextForkNanos());
+        for (Fork fork : batch) {
+            release(fork);
+        }
+    }
+
+    // Block until the fork is in hand, with the wait visible to the DeadlockDetector
+    private void acquire(Fork fork) {
+        pendingFork = fork;
+        DeadlockDetector detector = table.getDeadlockDetector();
+        if (detector != null && fork.getCurrentHolder() >= 0 && detector.onWait(this)) {
+            Fork[] released = Arrays.copyOf(heldForks, heldCount);
+            for (Fork held : released) {
+                fence();
+                held.putDown(seatId);
+                logFork(held, EventLog.FORK_PUT_DOWN, System.nanoTime());
+            }
+            heldCount = 0;
+            if (pickedUp(fork)) {
+                for (Fork held : released) {
+                    pickUp(held);
+                }
+            }
+        } else {
+            pickedUp(fork);
+        }
+    }
+
+    // The actual pick up; false if it was interrupted
+    private boolean pickedUp(Fork fork) {
+        boolean demand = table.getLeaseMeals() > 1 && fork.getCurrentHolder() >= 0;
+        if (demand) {
+            fork.addDemand(1);
+        }
+        fence();
+        long start = System.nanoTime();
+        boolean pickedUp = fork.pickUp(seatId);
+        long now = System.nanoTime();
+        if (demand) {
+            fork.addDemand(-1);
+        }
+        if (pickedUp) {
+            beat(now); // the wait may have been long: the lease starts now, before the wait ends
+        }
+        pendingFork = null;
+        forkWaitNanos += now - start;
+        if (pickedUp) {
+            holding(fork, now - start, now);
+        } else {
+            interruptedIn(fork, "pickUp");
+        }
+        return pickedUp;
+    }
+
+    // A fork pick up was interrupted. While the party is on that is an error (and the interrupt
+    // is used up); once it is over, the interrupt stays so the way out does not wait.
+    private void interruptedIn(Fork fork, String what) {
+        if (isAtTable()) {
+            Thread.interrupted();
+            System.err.println("      Fork: " + fork.getName() + " was interrupted in " + what);
+        }
+    }
+
+    // Like pickUp, but gives up after timeout milliseconds. True if the fork was picked up.
+    boolean tryPickUp(Fork fork, long timeout) {
+        boolean demand = timeout > 0 && table.getLeaseMeals() > 1 && fork.getCurrentHolder() >= 0;
+        if (demand) {
+            fork.addDemand(1);
+        }
+        fence();
+        long start = System.nanoTime();
+        boolean pickedUp = fork.tryPickUp(seatId, timeout);
+        long now = System.nanoTime();
+        if (demand) {
+            fork.addDemand(-1);
+        }
+        forkWaitNanos += now - start;
+        if (pickedUp) {
+            beat(now);
+            holding(fork, now - start, now);
+            waitTime(nextForkNanos());
+            return true;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            interruptedIn(fork, "tryPickUp");
+        }
+        return false;
+    }
+
+    // Back off (without holding forks) before another attempt at eating
+    void backOff(long ms) {
+        numberOfRetries++;
+        backoffTimeTotal += ms;
+        waitTime(ms * 1_000_000L);
+    }
+
+    // Putting down a fork takes forkTime. Used by the Table's ForkStrategy.
+    // A fork that is not in hand (its pick up was interrupted) is left alone.
+    void putDown(Fork fork) {
+        if (!isHolding(fork)) {
+            return;
+        }
+        waitTime(nextForkNanos());
+        release(fork);
+    }
+
+    private void release(Fork fork) {
+        for (int i = 0; i < heldCount; i++) {
+            if (heldForks[i] == fork) {
+                fence();
+                fork.putDown(seatId);
+                logFork(fork, EventLog.FORK_PUT_DOWN, System.nanoTime());
+                heldForks[i] = heldForks[--heldCount];
+                heldForks[heldCount] = null;
+                break;
+            }
+        }
+    }
+
+    private boolean isHolding(Fork fork) {
+        for (int i = 0; i < heldCount; i++) {
+            if (heldForks[i] == fork) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void holding(Fork fork, long waitedNanos, long now) {
+        logFork(fork, EventLog.FORK_PICKED_UP, now, waitedNanos);
+        if (heldCount == heldForks.length) {
+            heldForks = Arrays.copyOf(heldForks, heldCount * 2);
+        }
+        heldForks[heldCount++] = fork;
+    }
+
+    // The fork this Philosopher is blocked on (null if none): an edge in the wait-for graph
+    Fork getPendingFork() {
+        return pendingFork;
     }
 
     // Represents the sequence of events for the philosopher eating.
+    // The order (and any gating) of the fork pick ups is up to the Table's ForkStrategy.
     private void eat() {
+        ForkStrategy strategy = table.getForkStrategy();
+        reseat();
         setState(STATE.PICKING_UP_FORK);
-        getLeftFork().pickUp(tableSeatNumber);
-        waitTime(forkTime);
-        getRightFork().pickUp(tableSeatNumber);
-        waitTime(forkTime);
+        strategy.pickUpForks(this);
+        if (heldCount < forks.length) {
+            // A pick up was interrupted (the Table is stopping): give back what is in hand, no meal
+            setState(STATE.PUTTING_DOWN_FORK);
+            strategy.putDownForks(this);
+            setState(STATE.IDLE);
+            return;
+        }
         setState(STATE.EATING);
+        FaultInjector.Fault fault = this.fault;
+        if (fault != null && strike(fault)) {
+            return; // killed: gone with the forks in hand
+        }
 
-        waitTime(eatTime);
+        boolean finished = waitTime(nextEatNanos());
+        int lease = table.getLeaseMeals();
+        if (lease > 1) {
+            finished = eatLeased(lease, finished);
+        }
+        if (table.getForkLeaseMonitor() != null && lostForks()) {
+            reclaimedMeals++;
+            finished = false; // the neighbors had the forks meanwhile: no meal
+        }
 
         setState(STATE.PUTTING_DOWN_FORK);
-        waitTime(forkTime);
-        getLeftFork().putDown(tableSeatNumber);
-        waitTime(forkTime);
-        getRightFork().putDown(tableSeatNumber);
+        strategy.putDownForks(this);
         
-        numberOfTimesEating++;
+        if (finished) {
+            recordMeal();
+        }
         
         setState(STATE.IDLE);
     }
 
+    // Up to lease - 1 more meals with the forks in hand (Table.setLeaseMeals), unless a neighbor
+    // waits for one of them (Fork.isWanted): the pick ups and forkTime are paid once per lease.
+    // Returns whether the last meal finished.
+    private boolean eatLeased(int lease, boolean finished) {
+        int meals = 1;
+        boolean yielded = false;
+        for (; finished && meals < lease && isAtTable(); meals++) {
+            if (table.getForkLeaseMonitor() != null && lostForks()) {
+                reclaimedMeals++;
+                finished = false; // the neighbors had the forks meanwhile: no meal, and no more
+                break;
+            }
+            if (forksWanted()) {
+                yielded = true;
+                break;
+            }
+            recordMeal();
+            finished = waitTime(nextEatNanos());
+        }
+        countLease(meals - 1, yielded);
+        return finished;
+    }
+
+    // A lease ended after extra meals beyond the first (the Simulation counts its leases here too)
+    void countLease(int extraMeals, boolean yielded) {
+        leases++;
+        leasedMeals += extraMeals;
+        if (yielded) {
+            leasesYielded++;
+        }
+    }
+
+    // A neighbor waits for one of the forks in hand
+    boolean forksWanted() {
+        for (int i = 0; i < heldCount; i++) {
+            if (heldForks[i].isWanted()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getLeases() {
+        return leases;
+    }
+
+    public int getLeasedMeals() {
+        return leasedMeals;
+    }
+
+    public int getLeasesYielded() {
+        return leasesYielded;
+    }
+
     public int getNumberOfTimesEating() {
-        return numberOfTimesEating;
+        return (int) (long) WORD.getOpaque(seatWords, wordBase + MEALS_WORD);
     }
     
     public int getNumberOfTimesThinking() {
         return numberOfTimesThinking;
     }
 
+    public int getNumberOfRetries() {
+        return numberOfRetries;
+    }
+
+    public long getBackoffTimeTotal() {
+        return backoffTimeTotal;
+    }
+
     public String getStatus() {
+        if (forks.length != 2) {
+            return getForksStatus();
+        }
         Fork leftFork = getLeftFork();
         Fork rightFork = getRightFork();
         int lHolder = leftFork.getCurrentHolder();
         int rHolder = rightFork.getCurrentHolder();
 
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder(160);
         sb.append(name);
         sb.append(" is assigned forks ");
         sb.append("l: ");
@@ -121,76 +662,168 @@ public class Philosopher implements Runnable {
         sb.append(rightFork.getName());
         sb.append(" and ");
         sb.append(" has eaten ");
-        sb.append(numberOfTimesEating);
+        sb.append(getNumberOfTimesEating());
         sb.append(" times, and currently is holding ");
-        boolean left = (lHolder == tableSeatNumber);
-        boolean right = (rHolder == tableSeatNumber);
+        boolean left = (lHolder == seatId);
+        boolean right = (rHolder == seatId);
         if (left && right) {
             sb.append("both forks");
         } else if (!left && !right) {
             sb.append("neither fork");
         } else if (left) {
             sb.append("the left fork");
-            sb.append(" (" + leftFork.getName() + ") ");
+            sb.append(" (").append(leftFork.getName()).append(") ");
         } else {
             sb.append("the right fork");
-            sb.append(" (" + rightFork.getName() + ") ");
+            sb.append(" (").append(rightFork.getName()).append(") ");
+        }
+        sb.append(" in state ").append(getState());
+        if (numberOfRetries > 0) {
+            sb.append(" (retried ").append(numberOfRetries).append(" times, backed off ")
+              .append(backoffTimeTotal).append(" ms)");
+        }
+        return sb.toString();
+    }
+
+    // Status of a seat that needs some other number of forks than two
+    private String getForksStatus() {
+        int holding = 0;
+        for (Fork fork : forks) {
+            if (fork.getCurrentHolder() == seatId) {
+                holding++;
+            }
         }
-        sb.append(" in state " + state);
+        StringBuilder sb = new StringBuilder(160);
+        sb.append(name);
+        sb.append(" is assigned ").append(forks.length).append(" forks and ");
+        sb.append(" has eaten ");
+        sb.append(getNumberOfTimesEating());
+        sb.append(" times, and currently is holding ");
+        sb.append(holding).append(" of them");
+        sb.append(" in state ").append(getState());
         return sb.toString();
     }
 
     @Override
     public void run() {
-        // Run until the Table shut down the party
-        while (table.isPartyIsOn()) {
-            think();
-            eat();
+        runner = Thread.currentThread();
+        startClock(System.nanoTime(), false); // Time accounting starts when the Philosopher sits down
+        try {
+            // Run until the Table shut down the party; no new meal once it is over
+            while (isAtTable()) {
+                think();
+                if (isAtTable()) {
+                    eat();
+                }
+            }
+        } finally {
+            runner = null;
+        }
+    }
+
+    // Measured wall time spent eating (milliseconds)
+    public long getEatTimeTotal() {
+        return getStateTime(STATE.EATING) / 1_000_000;
+    }
+    
+    // Measured wall time spent thinking (milliseconds)
+    public long getThinkTimeTotal() {
+        return getStateTime(STATE.THINKING) / 1_000_000;
+    }
+
+    // Nanoseconds spent in the given state so far, including the current stay
+    public long getStateTime(STATE s) {
+        STATE current = getState();
+        long total = seatWords[wordBase + s.ordinal()];
+        if (current == s && !virtualClock) {
+            total += System.nanoTime() - stateEnteredNanos;
         }
+        return total;
     }
 
-    public static int getThinkTime() {
-        return thinkTime;
+    // How long each pick up of the forks took (nanoseconds)
+    public LatencyHistogram getForkWaitHistogram() {
+        return forkWaitHistogram;
     }
 
-    public static void setThinkTime(int thinkTime) {
-        Philosopher.thinkTime = thinkTime;
+    public STATE getState() {
+        return STATES[(int) (long) WORD.getVolatile(seatWords, wordBase + STATE_WORD)];
     }
 
-    public static int getEatTime() {
-        return eatTime;
+    private void setState(STATE state) {
+        long now = System.nanoTime();
+        changeState(state, now);
+        beat(now);
+        if (table.isYieldOnStateChange()) {
+            Thread.yield();
+        }
     }
 
-    public static void setEatTime(int eatTime) {
-        Philosopher.eatTime = eatTime;
+    // changeState charges the time since the last change to the state being left, and at the end
+    // of each trip through PICKING_UP_FORK records how long it was blocked in Fork.pickUp and
+    // Fork.tryPickUp (not the fork time with a fork in hand, nor the strategy's own gating).
+    // It only touches preallocated arrays, so state changes do not allocate.
+    // The discrete-event Simulation drives it directly, with virtual time.
+    void changeState(STATE state, long now) {
+        STATE leaving = STATES[(int) seatWords[wordBase + STATE_WORD]];
+        long spent = now - stateEnteredNanos;
+        seatWords[wordBase + leaving.ordinal()] += spent;
+        if (leaving == STATE.PICKING_UP_FORK && state != leaving) {
+            forkWaitHistogram.record(forkWaitNanos);
+            forkWaitNanos = 0;
+        }
+        stateEnteredNanos = now;
+        WORD.setVolatile(seatWords, wordBase + STATE_WORD, (long) state.ordinal());
+        if (eventLog != null) {
+            eventLog.record(now, tableSeatNumber, -1, EventLog.STATE, state.ordinal());
+        }
     }
-    
-    public int getEatTimeTotal() {
-        return eatTime * getNumberOfTimesEating();
+
+    // Start the time accounting at now; a virtual clock is not comparable with System.nanoTime()
+    void startClock(long now, boolean virtual) {
+        stateEnteredNanos = now;
+        virtualClock = virtual;
     }
-    
-    public int getThinkTimeTotal() {
-        return thinkTime * getNumberOfTimesThinking();
+
+    void recordMeal() {
+        long now = System.nanoTime();
+        beat(now);
+        recordMeal(now);
     }
 
-    public static int getForkTime() {
-        return forkTime;
+    void recordMeal(long now) {
+        int meals = (int) seatWords[wordBase + MEALS_WORD];
+        if (eventLog != null) {
+            eventLog.record(now, tableSeatNumber, -1, EventLog.MEAL, meals);
+        }
+        WORD.setOpaque(seatWords, wordBase + MEALS_WORD, (long) meals + 1); // only this seat's thread writes
+        table.mealEaten(meals);
     }
 
-    public static void setForkTime(int forkTime) {
-        Philosopher.forkTime = forkTime;
+    void setEventLog(EventLog.Writer eventLog) {
+        this.eventLog = eventLog;
     }
 
-    public STATE getState() {
-        return state;
+    // Log a fork pick up or put down (the Simulation calls this with virtual time)
+    void logFork(Fork fork, int kind, long now) {
+        logFork(fork, kind, now, 0);
     }
 
-    // setState could be instrumented to report what percentage of the time is
-    // spent
-    // in each state.
-    private void setState(STATE state) {
-        this.state = state;
-        Thread.yield();
+    // A pick up is logged with the microseconds it was blocked (at most the 24 bits of the value)
+    private void logFork(Fork fork, int kind, long now, long waitedNanos) {
+        if (eventLog != null) {
+            eventLog.record(now, tableSeatNumber, fork.getIndex(), kind, (int) Math.min(0xffffff, waitedNanos / 1000));
+        }
+    }
+
+    // A fork came into hand after waitedNanos queued for it (the Simulation, in virtual time)
+    void forkTaken(Fork fork, long waitedNanos, long now) {
+        forkWaitNanos += waitedNanos;
+        logFork(fork, EventLog.FORK_PICKED_UP, now, waitedNanos);
+    }
+
+    void recordThought() {
+        numberOfTimesThinking++;
     }
     
 }
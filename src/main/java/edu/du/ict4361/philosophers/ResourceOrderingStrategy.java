@@ -0,0 +1,38 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// ResourceOrderingStrategy.java
+//
+// Dijkstra's resource ordering: every Philosopher picks up the lower numbered fork first.
+// All seats but the last go left first; the last seat goes right first (fork 0),
+// so a cycle of philosophers each holding one fork can never form.
+// The same holds for any number of forks per seat: pick them up lowest number first.
+////////////////////////////////////
+public class ResourceOrderingStrategy implements ForkStrategy {
+
+    @Override
+    public String getName() {
+        return "ordering";
+    }
+
+    @Override
+    public boolean isResizable() {
+        return true;
+    }
+
+    @Override
+    public void pickUpForks(Philosopher philosopher) {
+        for (Fork fork : philosopher.getOrderedForks()) {
+            philosopher.pickUp(fork);
+        }
+    }
+
+    // Release in the reverse order of acquisition
+    @Override
+    public void putDownForks(Philosopher philosopher) {
+        Fork[] forks = philosopher.getOrderedForks();
+        for (int k = forks.length - 1; k >= 0; k--) {
+            philosopher.putDown(forks[k]);
+        }
+    }
+}
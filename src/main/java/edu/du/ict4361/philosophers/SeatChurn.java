@@ -0,0 +1,224 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// SeatChurn.java
+//
+// Seats joining and leaving a running Table. The party goes on while, every interval, a
+// Philosopher joins at a random position or one leaves (alternately, so the table size stays
+// around its start). For each resize it prints how long the resize took and the meals per second
+// in a window just before it and in one that starts with it (and lasts at least as long as the
+// resize): the dip is how much throughput the rewiring cost. A leave includes the wait for the
+// leaving seat to finish its meal; a seat that does not stop in time stays and is reported. For example
+//   SeatChurn --philosophers 20 --strategy ordering --wait-mode park --resizes 10
+////////////////////////////////////
+
+import java.util.Random;
+
+public class SeatChurn {
+    private int seats = 20;
+    private long thinkNanos = 10_000_000;
+    private long eatNanos = 10_000_000;
+    private long forkNanos = 10_000_000;
+    private String strategy = "ordering";
+    private ForkType forkType = ForkType.SEMAPHORE;
+    private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+    private WaitMode waitMode = WaitMode.SLEEP;
+    private int resizes = 10;
+    private long intervalMillis = 1000; // between resizes
+    private long windowMillis = 500;    // throughput measured over this long before a resize and from its start
+    private long seed = System.nanoTime();
+
+    public static void usage() {
+        System.out.println("Usage");
+        System.out.println("SeatChurn"
+                           + " --philosophers num"
+                           + " --think-time time"
+                           + " --eat-time time"
+                           + " --fork-time time"
+                           + " --strategy naive|ordering|backoff|batch"
+                           + " --fork-type semaphore|fair|atomic"
+                           + " --threads platform|virtual"
+                           + " --wait-mode sleep|park|spin"
+                           + " --resizes num"
+                           + " --interval ms"
+                           + " --window ms"
+                           + " --seed num");
+        System.out.println("  Times are milliseconds, or with a unit: 250us, 800ns, 1.5ms.");
+    }
+
+    public void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "-p":
+            case "--philosophers":
+                i++;
+                seats = Integer.valueOf(args[i]);
+                break;
+            case "-t":
+            case "--think-time":
+                i++;
+                thinkNanos = WaitMode.parseDuration(args[i]);
+                break;
+            case "-e":
+            case "--eat-time":
+                i++;
+                eatNanos = WaitMode.parseDuration(args[i]);
+                break;
+            case "-f":
+            case "--fork-time":
+                i++;
+                forkNanos = WaitMode.parseDuration(args[i]);
+                break;
+            case "-S":
+            case "--strategy":
+                i++;
+                strategy = args[i];
+                break;
+            case "--fork-type":
+                i++;
+                forkType = ForkType.forName(args[i]);
+                break;
+            case "--threads":
+                i++;
+                executionMode = ExecutionMode.forName(args[i]);
+                break;
+            case "--wait-mode":
+                i++;
+                waitMode = WaitMode.forName(args[i]);
+                break;
+            case "--resizes":
+                i++;
+                resizes = Integer.valueOf(args[i]);
+                break;
+            case "--interval":
+                i++;
+                intervalMillis = Long.valueOf(args[i]);
+                break;
+            case "--window":
+                i++;
+                windowMillis = Long.valueOf(args[i]);
+                break;
+            case "--seed":
+                i++;
+                seed = Long.valueOf(args[i]);
+                break;
+            case "-h": case "--help":
+                usage();
+                System.exit(0);
+                break;
+            default:
+                System.err.println("Command line option " + args[i] + " not understood. Ignored.");
+                break;
+            }
+        }
+    }
+
+    private Table newTable() {
+        Table table = new Table(seats);
+        table.setThinkNanos(thinkNanos);
+        table.setEatNanos(eatNanos);
+        table.setForkNanos(forkNanos);
+        table.setForkType(forkType);
+        table.setExecutionMode(executionMode);
+        table.setWaitMode(waitMode);
+        table.setStaggeredStart(false);
+        table.setForkStrategy(ForkStrategy.forName(strategy, table));
+        if (!table.isResizable()) {
+            throw new IllegalArgumentException("Seats cannot join or leave with the " + strategy + " strategy");
+        }
+        table.populateTable();
+        return table;
+    }
+
+    // Meals per second over the next window
+    private double measure(Table table) throws InterruptedException {
+        return measureSince(table, table.getTotalMeals(), System.nanoTime());
+    }
+
+    // Meals per second from start (with meals eaten by then) to the end of the window that began there
+    private double measureSince(Table table, long meals, long start) throws InterruptedException {
+        long left = start + windowMillis * 1_000_000L - System.nanoTime();
+        if (left > 0) {
+            Thread.sleep(left / 1_000_000L, (int) (left % 1_000_000L));
+        }
+        return (table.getTotalMeals() - meals) / ((System.nanoTime() - start) / 1e9);
+    }
+
+    public void run() throws InterruptedException {
+        Random random = new Random(seed);
+        Table table = newTable();
+        table.startTable();
+        Thread.sleep(intervalMillis); // past the start
+        double dips = 0;
+        long slowest = 0;
+        int failedLeaves = 0;
+        for (int r = 0; r < resizes; r++) {
+            double before = measure(table);
+            boolean join = (r % 2 == 0);
+            int position;
+            boolean done = true;
+            long meals = table.getTotalMeals();
+            long start = System.nanoTime();
+            if (join) {
+                position = random.nextInt(table.getNumberOfPhilosophers() + 1);
+                table.joinSeat(position);
+            } else {
+                position = random.nextInt(table.getNumberOfPhilosophers());
+                done = table.leaveSeat(position);
+            }
+            long latency = System.nanoTime() - start;
+            double during = measureSince(table, meals, start); // the window spans the resize
+            if (!done) {
+                failedLeaves++;
+            }
+            double dip = (before > 0) ? (before - during) / before : 0.0;
+            dips += dip;
+            slowest = Math.max(slowest, latency);
+
+            StringBuffer sb = new StringBuffer(100);
+            sb.append(String.format("%4d  %-5s", r + 1, join ? "join" : "leave"));
+            sb.append(String.format("%9d", position));
+            sb.append(String.format("%7d", table.getNumberOfPhilosophers()));
+            sb.append(String.format("%12.3f", latency / 1e6));
+            sb.append(String.format("%12.1f", before));
+            sb.append(String.format("%12.1f", during));
+            sb.append(String.format("%8.1f%%", dip * 100));
+            if (!done) {
+                sb.append("  did not stop in time, still seated");
+            }
+            System.out.println(sb.toString());
+            Thread.sleep(Math.max(0, intervalMillis - 2 * windowMillis));
+        }
+        ShutdownReport shutdown = table.stop();
+
+        StringBuffer sb = new StringBuffer(300);
+        sb.append("Resizes:                  ").append(resizes)
+          .append(", average dip ").append(String.format("%.1f%%", resizes == 0 ? 0.0 : dips / resizes * 100))
+          .append(", slowest resize ").append(String.format("%.3f", slowest / 1e6)).append(" ms")
+          .append(failedLeaves == 0 ? "" : ", " + failedLeaves + " leaves failed").append("\n");
+        sb.append("Meals:                    ").append(table.getTotalMeals())
+          .append(" (min ").append(table.getMinimumMeals()).append(", max ").append(table.getMaximumMeals())
+          .append(" of the seats present)").append("\n");
+        sb.append("Fairness (Jain's index):  ").append(String.format("%.4f", table.getFairnessIndex())).append("\n");
+        sb.append("Shutdown:                 ").append(shutdown.isClean() ? "clean" : shutdown.getStragglers() + " did not stop");
+        System.out.println(sb.toString());
+    }
+
+    public static void main(String[] args) throws Exception {
+        SeatChurn churn = new SeatChurn();
+        churn.parseArgs(args);
+        System.out.println("Seat churn: " + churn.seats + " philosophers to start, strategy " + churn.strategy
+                           + ", think/eat/fork " + WaitMode.formatDuration(churn.thinkNanos)
+                           + " / " + WaitMode.formatDuration(churn.eatNanos)
+                           + " / " + WaitMode.formatDuration(churn.forkNanos)
+                           + ", " + churn.waitMode.name().toLowerCase() + " waits, a resize every "
+                           + churn.intervalMillis + " ms, measured over " + churn.windowMillis + " ms");
+        System.out.println("   #  Op    Position  Seats Resize (ms)      Before      During      Dip");
+        System.out.println("                                                (meals/s)   (meals/s)");
+        try {
+            churn.run();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// SeatRing.java
+//
+// The seats of a Table, their Forks and the Topology that wires them, as one snapshot.
+// A Table keeps its current SeatRing in a volatile field. When a seat joins or leaves a running
+// dinner, the Table builds a new ring and publishes it (copy-on-write): every reader reads the
+// field once and sees one consistent arrangement, without a lock. Every ring has an epoch,
+// one higher than the ring it replaced, so a Philosopher notices a new ring with one read.
+//
+// Positions are array indexes, and they shift when seats come and go. Seat ids (what the Forks know
+// their holders by) never change: getPosition maps a seat id to the seat's current position.
+//
+// On a ring, seat p uses forks p and p+1. A seat joining at p brings a new fork: it takes the fork
+// on its left from its left neighbor as it is, and shares the new fork with its right neighbor,
+// whose left fork changes. A seat leaving takes one of its forks with it, and the neighbor that
+// used that fork is rewired to the other one. Either way only one neighbor is rewired.
+//
+// The arrays of a Table's first ring are filled in by populateTable. Nothing modifies a ring after
+// it has been published.
+////////////////////////////////////
+
+import java.util.Arrays;
+
+public final class SeatRing {
+    private final int epoch;
+    private final Topology topology;
+    private final Philosopher[] philosophers;
+    private final Fork[] forks;
+    private final int idBase;     // seat ids start here (the Table's seat base)
+    private final int[] position; // by seat id - idBase: the seat's position, or -1 (left, or not seated)
+
+    SeatRing(Topology topology, int idBase) {
+        this(0, topology, new Philosopher[topology.getNumberOfSeats()], new Fork[topology.getNumberOfForks()],
+             idBase, identity(topology.getNumberOfSeats()));
+    }
+
+    private SeatRing(int epoch, Topology topology, Philosopher[] philosophers, Fork[] forks, int idBase, int[] position) {
+        this.epoch = epoch;
+        this.topology = topology;
+        this.philosophers = philosophers;
+        this.forks = forks;
+        this.idBase = idBase;
+        this.position = position;
+    }
+
+    private static int[] identity(int seats) {
+        int[] position = new int[seats];
+        for (int i = 0; i < seats; i++) {
+            position[i] = i;
+        }
+        return position;
+    }
+
+    // A ring with phil seated at position (0 .. seats) and fork added next to it
+    SeatRing withSeat(int at, Philosopher phil, Fork fork) {
+        int seats = philosophers.length;
+        Philosopher[] p = new Philosopher[seats + 1];
+        System.arraycopy(philosophers, 0, p, 0, at);
+        p[at] = phil;
+        System.arraycopy(philosophers, at, p, at + 1, seats - at);
+        int forkAt = (at < seats) ? at + 1 : seats; // the new seat's right fork, or at the end its left
+        Fork[] f = new Fork[forks.length + 1];
+        System.arraycopy(forks, 0, f, 0, forkAt);
+        f[forkAt] = fork;
+        System.arraycopy(forks, forkAt, f, forkAt + 1, forks.length - forkAt);
+        return new SeatRing(epoch + 1, Topology.ring(seats + 1), p, f, idBase, positions(p, phil.getSeatId()));
+    }
+
+    // A ring without the seat at position (and one of its forks)
+    SeatRing withoutSeat(int at) {
+        int seats = philosophers.length;
+        Philosopher[] p = new Philosopher[seats - 1];
+        System.arraycopy(philosophers, 0, p, 0, at);
+        System.arraycopy(philosophers, at + 1, p, at, seats - 1 - at);
+        int forkAt = (at < seats - 1) ? at + 1 : at; // its right fork, or at the end its left
+        Fork[] f = new Fork[forks.length - 1];
+        System.arraycopy(forks, 0, f, 0, forkAt);
+        System.arraycopy(forks, forkAt + 1, f, forkAt, forks.length - 1 - forkAt);
+        return new SeatRing(epoch + 1, Topology.ring(seats - 1), p, f, idBase, positions(p, -1));
+    }
+
+    // Positions by seat id for the seats p (room for newId, the highest id so far if it is new)
+    private int[] positions(Philosopher[] p, int newId) {
+        int[] next = new int[Math.max(position.length, newId - idBase + 1)];
+        Arrays.fill(next, -1);
+        for (int i = 0; i < p.length; i++) {
+            next[p[i].getSeatId() - idBase] = i;
+        }
+        return next;
+    }
+
+    public int getEpoch() {
+        return epoch;
+    }
+
+    public Topology getTopology() {
+        return topology;
+    }
+
+    public int getNumberOfSeats() {
+        return philosophers.length;
+    }
+
+    public int getNumberOfForks() {
+        return forks.length;
+    }
+
+    public Philosopher getPhilosopher(int seat) {
+        if (seat >= 0 && seat < philosophers.length) {
+            return philosophers[seat];
+        }
+        return null;
+    }
+
+    public Fork getFork(int index) {
+        if (index >= 0 && index < forks.length) {
+            return forks[index];
+        }
+        return null;
+    }
+
+    public int getForkCount(int seat) {
+        return topology.getForkCount(seat);
+    }
+
+    public int getForkIndex(int seat, int k) {
+        return topology.getFork(seat, k);
+    }
+
+    // Position of the seat with this id, or -1 if it is not at this ring
+    public int getPosition(int seatId) {
+        int i = seatId - idBase;
+        return (i >= 0 && i < position.length) ? position[i] : -1;
+    }
+
+    public Philosopher getPhilosopherById(int seatId) {
+        int seat = getPosition(seatId);
+        return (seat < 0) ? null : philosophers[seat];
+    }
+
+    // One past the highest seat id handed out so far
+    public int getSeatIdLimit() {
+        return idBase + position.length;
+    }
+
+    // The arrays themselves, for the Table's loops over every seat or fork; not to be modified
+    Philosopher[] philosophers() {
+        return philosophers;
+    }
+
+    Fork[] forks() {
+        return forks;
+    }
+
+    // Filled in by populateTable on the first ring, and by Table.shareFork before that
+    void setPhilosopher(int seat, Philosopher phil) {
+        philosophers[seat] = phil;
+    }
+
+    void setFork(int index, Fork fork) {
+        forks[index] = fork;
+    }
+}
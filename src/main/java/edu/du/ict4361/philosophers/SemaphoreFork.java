@@ -0,0 +1,126 @@
+package edu.du.ict4361.philosophers;
+
+/////////////////////////////////////
+// SemaphoreFork.java
+// Author: M Schwartz
+//
+// This implementation of a Fork is a semaphore.
+// Threads (Philosophers) trying to acquire the fork may wait if the semaphore is in use.
+// Threads are expected to release the fork, and thus the semaphore, when done.
+//
+// When a semaphore is acquired, the caller blocks until it is available--or the acquisition is interrupted.
+// Shutting down our Philosopher's Diner interrupts the "pickUp"s still waiting; they return false.
+// tryPickUp gives up after a timeout instead, so a Philosopher can back off rather than block forever.
+//
+// The current holder is noted by hir seat number at the table.
+//   -1 means no one is holding the fork
+//   -2 means shutdown is in progress.
+// The holder is volatile so status readers see the current holder, not a stale one.
+// It only goes back to -1 with a compare-and-set (putDown, forceRelease), so a fork reclaimed
+// from an unresponsive holder is released once, whoever gets there first.
+/////////////////////////////////////
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class SemaphoreFork extends Fork {
+    private static final VarHandle HOLDER;
+    static {
+        try {
+            HOLDER = MethodHandles.lookup().findVarHandle(SemaphoreFork.class, "currentHolder", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Semaphore semaphore;
+    private volatile int currentHolder = -1;
+    
+    public SemaphoreFork(String name) {
+        this(name, false);
+    }
+
+    // A fair semaphore hands the fork to the Philosopher that has waited longest
+    public SemaphoreFork(String name, boolean fair) {
+        super(name);
+        semaphore = new Semaphore(1, fair);
+    }
+    
+    @Override
+    public boolean pickUp(int seatNumber) {
+        if (currentHolder != seatNumber ) {
+          try {
+              boolean contended = !semaphore.tryAcquire(0, TimeUnit.NANOSECONDS); // respects fairness, unlike tryAcquire()
+              if (contended) {
+                  semaphore.acquire();
+              }
+              currentHolder = seatNumber;
+              acquired(contended);
+              return true;
+          } catch ( InterruptedException ie) {
+              Thread.currentThread().interrupt(); // The caller decides whether that is an error
+              return false;
+          }
+        } else { // Can't pick up the fork if I have already picked it up.
+            System.err.println("Thread "+name+": attempt to pick up fork already picked up!"+
+                    " ("+currentHolder+" != "+seatNumber+" )");
+            return true;
+        }
+    }
+    
+    // Try to pick up the fork, waiting at most timeout milliseconds. True if the fork was picked up.
+    @Override
+    public boolean tryPickUp(int seatNumber, long timeout) {
+        if (currentHolder != seatNumber ) {
+          try {
+              boolean contended = !semaphore.tryAcquire(0, TimeUnit.NANOSECONDS); // respects fairness, unlike tryAcquire()
+              if (!contended || semaphore.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                  currentHolder = seatNumber;
+                  acquired(contended);
+                  return true;
+              }
+          } catch ( InterruptedException ie) {
+              Thread.currentThread().interrupt(); // The caller decides whether that is an error
+          }
+          return false;
+        } else { // Can't pick up the fork if I have already picked it up.
+            System.err.println("Thread "+name+": attempt to pick up fork already picked up!"+
+                    " ("+currentHolder+" != "+seatNumber+" )");
+            return true;
+        }
+    }
+    
+    @Override
+    public void putDown(int seatNumber) {
+        if ( seatNumber == -2 ) { // Special value for shutdown. Put it down.
+            currentHolder = -2;
+            semaphore.release();
+        } else if ( currentHolder == seatNumber ) { // I current have it. Put it down.
+            long held = heldNanos();
+            if (HOLDER.compareAndSet(this, seatNumber, -1)) { // unless it was just reclaimed
+                released(held);
+                semaphore.release();
+            }
+        } else if ( currentHolder == -1 ) {  // No one has it. That's an error.
+            System.err.println("Thread "+name+": attempt to put down fork never picked up!"+
+                    " ("+currentHolder+" != "+seatNumber+" )");            
+        }
+    }
+    
+    @Override
+    public boolean forceRelease(int holder) {
+        if (holder >= 0 && HOLDER.compareAndSet(this, holder, -1)) {
+            semaphore.release();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int getCurrentHolder() {
+        return currentHolder;
+    }
+
+}
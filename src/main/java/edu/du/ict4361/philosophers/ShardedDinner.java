@@ -0,0 +1,206 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// ShardedDinner.java
+//
+// Scaling runs of a ShardedTable: the same population of Philosophers, split into 1, 2, 4, ...
+// shards (each a Table with its own executor, joined by bridge forks), one run per shard count.
+// Prints one row per shard count: meals per second (and the speedup over the first row),
+// fairness over all seats, the slowest and fastest shard in meals per seat per second, how often
+// a pick up had to wait on a bridge fork and on a fork inside a shard, deadlocks found by the
+// global wait-for graph detector, and how long the stop took. For example
+//   ShardedDinner --philosophers 1000 --shards 1,2,4,8 --strategy ordering --wait-mode park
+////////////////////////////////////
+
+public class ShardedDinner {
+    private int seats = 1000;
+    private int[] shardCounts = { 1, 2, 4, 8 };
+    private long thinkNanos = 10_000_000;
+    private long eatNanos = 10_000_000;
+    private long forkNanos = 10_000_000;
+    private String strategy = "ordering";
+    private ForkType forkType = ForkType.SEMAPHORE;
+    private Layout layout = Layout.COMPACT;
+    private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+    private WaitMode waitMode = WaitMode.SLEEP;
+    private boolean yieldOnStateChange = true;
+    private int duration = 5000; // milliseconds per shard count
+    private boolean recover = false;
+
+    public static void usage() {
+        System.out.println("Usage");
+        System.out.println("ShardedDinner"
+                           + " --philosophers num"
+                           + " --shards list"
+                           + " --think-time time"
+                           + " --eat-time time"
+                           + " --fork-time time"
+                           + " --strategy naive|ordering|batch"
+                           + " --fork-type semaphore|fair|atomic"
+                           + " --layout compact|padded"
+                           + " --threads platform|virtual"
+                           + " --wait-mode sleep|park|spin"
+                           + " --no-yield"
+                           + " --stress"
+                           + " --duration ms"
+                           + " --recover");
+        System.out.println("  The shard counts are a list (1,2,4,8) or an inclusive range start:end:step."
+                           + " Times are milliseconds, or with a unit: 250us, 800ns, 1.5ms.");
+    }
+
+    public void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "-p":
+            case "--philosophers":
+                i++;
+                seats = Integer.valueOf(args[i]);
+                break;
+            case "--shards":
+                i++;
+                shardCounts = SweepRunner.parseInts(args[i]);
+                break;
+            case "-t":
+            case "--think-time":
+                i++;
+                thinkNanos = WaitMode.parseDuration(args[i]);
+                break;
+            case "-e":
+            case "--eat-time":
+                i++;
+                eatNanos = WaitMode.parseDuration(args[i]);
+                break;
+            case "-f":
+            case "--fork-time":
+                i++;
+                forkNanos = WaitMode.parseDuration(args[i]);
+                break;
+            case "-S":
+            case "--strategy":
+                i++;
+                strategy = args[i];
+                break;
+            case "--fork-type":
+                i++;
+                forkType = ForkType.forName(args[i]);
+                break;
+            case "--layout":
+                i++;
+                layout = Layout.forName(args[i]);
+                break;
+            case "--threads":
+                i++;
+                executionMode = ExecutionMode.forName(args[i]);
+                break;
+            case "--wait-mode":
+                i++;
+                waitMode = WaitMode.forName(args[i]);
+                break;
+            case "--no-yield":
+                yieldOnStateChange = false;
+                break;
+            case "--stress":
+                waitMode = WaitMode.SPIN;
+                yieldOnStateChange = false;
+                break;
+            case "--duration":
+                i++;
+                duration = Integer.valueOf(args[i]);
+                break;
+            case "--recover":
+                recover = true;
+                break;
+            case "-h": case "--help":
+                usage();
+                System.exit(0);
+                break;
+            default:
+                System.err.println("Command line option " + args[i] + " not understood. Ignored.");
+                break;
+            }
+        }
+    }
+
+    private ShardedTable newTable(int shards) {
+        ShardedTable table = new ShardedTable(seats, shards);
+        table.configure(shard -> {
+            shard.setThinkNanos(thinkNanos);
+            shard.setEatNanos(eatNanos);
+            shard.setForkNanos(forkNanos);
+            shard.setForkType(forkType);
+            shard.setLayout(layout);
+            shard.setExecutionMode(executionMode);
+            shard.setWaitMode(waitMode);
+            shard.setYieldOnStateChange(yieldOnStateChange);
+            shard.setStaggeredStart(false);
+        });
+        table.setForkStrategy(strategy);
+        table.setDeadlockDetection(recover);
+        table.populate();
+        return table;
+    }
+
+    // One run; returns its meals per second
+    private double run(int shards, double baseline) throws InterruptedException {
+        ShardedTable table = newTable(shards);
+        DeadlockDetector detector = table.getDeadlockDetector();
+        table.start();
+        boolean deadlocked = detector.awaitDeadlock(duration) && !recover;
+        long nanos = System.nanoTime() - table.getStartedNanos();
+        ShutdownReport shutdown = table.stop();
+
+        double seconds = nanos / 1e9;
+        double mealsPerSecond = table.getTotalMeals() / Math.max(1e-9, seconds);
+        double slowest = Double.MAX_VALUE;
+        double fastest = 0;
+        for (int s = 0; s < shards; s++) {
+            Table shard = table.getShard(s);
+            double perSeat = shard.getTotalMeals() / Math.max(1e-9, seconds) / shard.getNumberOfPhilosophers();
+            slowest = Math.min(slowest, perSeat);
+            fastest = Math.max(fastest, perSeat);
+        }
+        StringBuffer sb = new StringBuffer(200);
+        sb.append(String.format("%6d", shards));
+        sb.append(String.format("%12.1f", mealsPerSecond));
+        sb.append(String.format("%9.2fx", baseline > 0 ? mealsPerSecond / baseline : 1.0));
+        sb.append(String.format("%10.4f", table.getFairnessIndex()));
+        sb.append(String.format("%9.3f -%6.3f", slowest, fastest));
+        sb.append(String.format("%9.3f", table.getBridgeContention()));
+        sb.append(String.format("%10.3f", table.getInteriorContention()));
+        sb.append(String.format("%10d", detector.getDeadlockCount()));
+        sb.append(String.format("%10.1f", shutdown.getStopNanos() / 1e6));
+        if (deadlocked) {
+            sb.append("  deadlocked after ").append(String.format("%.3f", detector.getFirstDetectionNanos() / 1e9)).append(" seconds");
+        }
+        if (!shutdown.isClean()) {
+            sb.append("  ").append(shutdown.getStragglers().size()).append(" seats did not stop");
+        }
+        System.out.println(sb.toString());
+        return mealsPerSecond;
+    }
+
+    public static void main(String[] args) throws Exception {
+        ShardedDinner dinner = new ShardedDinner();
+        dinner.parseArgs(args);
+        System.out.println("Sharded dinner: " + dinner.seats + " philosophers, strategy " + dinner.strategy
+                           + ", think/eat/fork " + WaitMode.formatDuration(dinner.thinkNanos)
+                           + " / " + WaitMode.formatDuration(dinner.eatNanos)
+                           + " / " + WaitMode.formatDuration(dinner.forkNanos)
+                           + ", " + dinner.waitMode.name().toLowerCase() + " waits, "
+                           + dinner.duration + " milliseconds per run");
+        System.out.println("Shards     Meals/s  Speedup  Fairness  Meals/seat/s by shard  Bridge  Interior"
+                           + "  Deadlocks  Stop (ms)");
+        System.out.println("                                         slowest - fastest   contention");
+        double baseline = 0;
+        for (int shards : dinner.shardCounts) {
+            try {
+                double mealsPerSecond = dinner.run(shards, baseline);
+                if (baseline == 0) {
+                    baseline = mealsPerSecond;
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println(shards + " shards: " + e.getMessage());
+            }
+        }
+    }
+}
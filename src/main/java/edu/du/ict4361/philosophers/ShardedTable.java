@@ -0,0 +1,274 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// ShardedTable.java
+//
+// One big round table split into shards, so a large population is not one contention domain.
+// The seats are cut into N contiguous pieces; each piece is a Table of its own (a path Topology:
+// k seats, k+1 forks) with its own Philosophers, strategy instance and executor, that is, its own
+// group of threads. Neighboring shards are linked by bridge forks: the last fork of shard i is
+// the first fork of shard i+1 (and the last shard links back to the first), so the shards
+// together still form the ring, and a seat at a shard boundary competes with the next shard.
+//
+// Seats and forks are numbered across shards (each shard's seat base), so
+//   - fork holders are unique seat ids, and a bridge fork knows which shard's seat holds it
+//   - resource ordering uses the global fork numbers and stays deadlock free across shards
+//   - one DeadlockDetector over all shards follows wait-for chains through the bridges
+// Statistics (meals, fairness, fork waits, state shares) are aggregated over the shards.
+//
+// Only strategies that work on any Topology can run sharded (naive, ordering, batch): the others
+// keep ring-wide state. With 1 shard, the single Table is the plain ring.
+////////////////////////////////////
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+public class ShardedTable {
+    private final int seats;
+    private final Table[] shards;
+    private final int[] seatBase;     // first seat id of each shard
+    private final Fork[] bridges;     // bridges[i] is the first fork of shard i (null with 1 shard)
+    private DeadlockDetector deadlockDetector;
+    private long startedNanos;
+
+    public ShardedTable(int seats, int numberOfShards) {
+        if (numberOfShards < 1 || numberOfShards > seats) {
+            throw new IllegalArgumentException("Need 1 to " + seats + " shards, not " + numberOfShards);
+        }
+        if (seats < 2) {
+            throw new IllegalArgumentException("Must have at least 2 philosophers");
+        }
+        this.seats = seats;
+        shards = new Table[numberOfShards];
+        seatBase = new int[numberOfShards];
+        bridges = (numberOfShards > 1) ? new Fork[numberOfShards] : null;
+        int base = 0;
+        for (int i = 0; i < numberOfShards; i++) {
+            int size = seats / numberOfShards + (i < seats % numberOfShards ? 1 : 0);
+            shards[i] = (numberOfShards == 1) ? new Table(seats) : new Table(Topology.path(size));
+            shards[i].setSeatBase(base);
+            seatBase[i] = base;
+            base += size;
+        }
+    }
+
+    // Apply the same configuration (times, fork type, layout, thread and wait modes ...) to every shard
+    public void configure(Consumer<Table> settings) {
+        for (Table shard : shards) {
+            settings.accept(shard);
+        }
+    }
+
+    // A strategy instance per shard
+    public void setForkStrategy(String name) {
+        for (Table shard : shards) {
+            shard.setForkStrategy(ForkStrategy.forName(name, shard));
+        }
+    }
+
+    // One wait-for graph detector across the shards
+    public void setDeadlockDetection(boolean recover) {
+        deadlockDetector = new DeadlockDetector(this, recover);
+        for (Table shard : shards) {
+            shard.setDeadlockDetector(deadlockDetector);
+        }
+    }
+
+    public DeadlockDetector getDeadlockDetector() {
+        return deadlockDetector;
+    }
+
+    // Create the bridge forks (with the fork type and layout of their shard), then each shard's own
+    public void populate() {
+        if (bridges != null) {
+            for (int i = 0; i < shards.length; i++) {
+                bridges[i] = shards[i].getForkType().newFork("Fork " + (seatBase[i] + 1), shards[i].getLayout());
+                bridges[i].setIndex(seatBase[i]);
+            }
+            for (int i = 0; i < shards.length; i++) {
+                Table shard = shards[i];
+                shard.shareFork(0, bridges[i]);
+                shard.shareFork(shard.getNumberOfForks() - 1, bridges[(i + 1) % shards.length]);
+            }
+        }
+        for (Table shard : shards) {
+            shard.populateTable();
+        }
+    }
+
+    public void start() {
+        startedNanos = System.nanoTime();
+        for (Table shard : shards) {
+            shard.startTable();
+        }
+    }
+
+    // Stop all shards at once (each drains, interrupts and joins its own Philosophers), one report for all
+    public ShutdownReport stop() {
+        long start = System.nanoTime();
+        for (Table shard : shards) {
+            shard.endParty(); // no shard starts a meal while the others are being stopped
+        }
+        ExecutorService stoppers = Executors.newFixedThreadPool(shards.length);
+        List<CompletableFuture<ShutdownReport>> stopping = new ArrayList<>();
+        try {
+            for (Table shard : shards) {
+                stopping.add(CompletableFuture.supplyAsync(shard::stop, stoppers));
+            }
+            int drained = 0;
+            int interrupted = 0;
+            long drainNanos = 0;
+            long meals = 0;
+            List<String> stragglers = new ArrayList<>();
+            List<String> failures = new ArrayList<>();
+            for (CompletableFuture<ShutdownReport> future : stopping) {
+                ShutdownReport report = future.join();
+                if (report == null) {
+                    continue; // a shard that never ran
+                }
+                drained += report.getDrained();
+                interrupted += report.getInterrupted();
+                drainNanos = Math.max(drainNanos, report.getDrainNanos());
+                meals += report.getMealsWhileDraining();
+                stragglers.addAll(report.getStragglers());
+                failures.addAll(report.getFailures());
+            }
+            return new ShutdownReport(seats, drained, interrupted, stragglers, failures,
+                                      drainNanos, System.nanoTime() - start, meals);
+        } finally {
+            stoppers.shutdown();
+        }
+    }
+
+    /// Shards and seats
+
+    public int getNumberOfShards() {
+        return shards.length;
+    }
+
+    public Table getShard(int shard) {
+        return shards[shard];
+    }
+
+    public int getNumberOfPhilosophers() {
+        return seats;
+    }
+
+    // The Philosopher with this seat id (null if there is none)
+    public Philosopher getPhilosopher(int seatId) {
+        if (seatId < 0 || seatId >= seats) {
+            return null;
+        }
+        int shard = shardOf(seatId);
+        return shards[shard].getPhilosopher(seatId - seatBase[shard]);
+    }
+
+    private int shardOf(int seatId) {
+        int low = 0;
+        int high = shards.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (seatBase[mid] <= seatId) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    public long getStartedNanos() {
+        return startedNanos;
+    }
+
+    /// Aggregated statistics
+
+    public long getTotalMeals() {
+        long sum = 0;
+        for (Table shard : shards) {
+            sum += shard.getTotalMeals();
+        }
+        return sum;
+    }
+
+    public int getMinimumMeals() {
+        int min = Integer.MAX_VALUE;
+        for (Table shard : shards) {
+            min = Math.min(min, shard.getMinimumMeals());
+        }
+        return min;
+    }
+
+    public int getMaximumMeals() {
+        int max = 0;
+        for (Table shard : shards) {
+            max = Math.max(max, shard.getMaximumMeals());
+        }
+        return max;
+    }
+
+    // Jain's fairness index over every seat of every shard
+    public double getFairnessIndex() {
+        double sum = getTotalMeals();
+        long squares = 0;
+        for (Table shard : shards) {
+            squares += shard.getMealStatistics().getSumOfSquares();
+        }
+        return squares == 0 ? 1.0 : (sum * sum) / (seats * (double) squares);
+    }
+
+    public LatencyHistogram getForkWaitHistogram() {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (Table shard : shards) {
+            merged.add(shard.getForkWaitHistogram());
+        }
+        return merged;
+    }
+
+    // Fraction of all Philosopher time spent in a state
+    public double getStateShare(Philosopher.STATE state) {
+        long in = 0;
+        long all = 0;
+        for (Table shard : shards) {
+            for (Philosopher.STATE s : Philosopher.STATE.values()) {
+                long t = shard.getStateTimeTotal(s);
+                all += t;
+                if (s == state) {
+                    in += t;
+                }
+            }
+        }
+        return all == 0 ? 0.0 : (double) in / all;
+    }
+
+    // Share of the pick ups of the bridge forks (or of the forks inside the shards) that had to wait
+    public double getBridgeContention() {
+        long acquisitions = 0;
+        long contended = 0;
+        if (bridges != null) {
+            for (Fork bridge : bridges) {
+                acquisitions += bridge.getAcquisitions();
+                contended += bridge.getContendedAcquisitions();
+            }
+        }
+        return acquisitions == 0 ? 0.0 : (double) contended / acquisitions;
+    }
+
+    public double getInteriorContention() {
+        long acquisitions = 0;
+        long contended = 0;
+        for (Table shard : shards) {
+            // A shard's own forks are 0 .. forks-2 (the last is the next shard's bridge); fork 0 is a bridge
+            int own = (bridges == null) ? shard.getNumberOfForks() : shard.getNumberOfForks() - 1;
+            for (int f = (bridges == null) ? 0 : 1; f < own; f++) {
+                acquisitions += shard.getFork(f).getAcquisitions();
+                contended += shard.getFork(f).getContendedAcquisitions();
+            }
+        }
+        return acquisitions == 0 ? 0.0 : (double) contended / acquisitions;
+    }
+}
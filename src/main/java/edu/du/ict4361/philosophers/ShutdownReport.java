@@ -0,0 +1,94 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// ShutdownReport.java
+//
+// What happened when a Table stopped (Table.stop):
+//   - drained:     seats that left on their own before the drain deadline (finished their meal,
+//                  or were cut short while only thinking)
+//   - interrupted: seats that had to be interrupted at the drain deadline and then left
+//   - stragglers:  seats still running at the stop deadline; their forks were forced down and
+//                  the Table cannot be started again
+//   - failures:    seats whose loop ended with an exception
+// plus how long draining and the whole stop took, and the meals finished while draining.
+////////////////////////////////////
+
+import java.util.List;
+
+public class ShutdownReport {
+    private final int seats;
+    private final int drained;
+    private final int interrupted;
+    private final List<String> stragglers;
+    private final List<String> failures;
+    private final long drainNanos;
+    private final long stopNanos;
+    private final long mealsWhileDraining;
+
+    ShutdownReport(int seats, int drained, int interrupted, List<String> stragglers, List<String> failures,
+                   long drainNanos, long stopNanos, long mealsWhileDraining) {
+        this.seats = seats;
+        this.drained = drained;
+        this.interrupted = interrupted;
+        this.stragglers = stragglers;
+        this.failures = failures;
+        this.drainNanos = drainNanos;
+        this.stopNanos = stopNanos;
+        this.mealsWhileDraining = mealsWhileDraining;
+    }
+
+    public int getNumberOfSeats() {
+        return seats;
+    }
+
+    public int getDrained() {
+        return drained;
+    }
+
+    public int getInterrupted() {
+        return interrupted;
+    }
+
+    // Names of the Philosophers still running at the stop deadline
+    public List<String> getStragglers() {
+        return stragglers;
+    }
+
+    // "name: exception" of every Philosopher whose loop threw
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    public long getDrainNanos() {
+        return drainNanos;
+    }
+
+    public long getStopNanos() {
+        return stopNanos;
+    }
+
+    public long getMealsWhileDraining() {
+        return mealsWhileDraining;
+    }
+
+    // Every seat left in time: the Table can be started again
+    public boolean isClean() {
+        return stragglers.isEmpty();
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder(160);
+        sb.append(seats).append(" seats stopped in ").append(String.format("%.3f", stopNanos / 1e6)).append(" ms (");
+        sb.append(drained).append(" drained in ").append(String.format("%.3f", drainNanos / 1e6)).append(" ms, ");
+        sb.append(interrupted).append(" interrupted, ");
+        sb.append(stragglers.size()).append(" still running), ");
+        sb.append(mealsWhileDraining).append(" meals finished while draining");
+        if (!stragglers.isEmpty()) {
+            sb.append("; forced down the forks of ").append(stragglers);
+        }
+        for (String failure : failures) {
+            sb.append("; ").append(failure);
+        }
+        return sb.toString();
+    }
+}
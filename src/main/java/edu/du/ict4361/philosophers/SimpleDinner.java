@@ -37,10 +37,10 @@ public class SimpleDinner {
     
     public static void main(String[] args) {
         SimpleDinner dinner = new SimpleDinner(numberOfPhilosophers);
-        SimpleDinner.setThinkTime(thinkTime);
-        SimpleDinner.setEatTime(eatTime);
-        SimpleDinner.setForkTime(forkTime);
-        Table.setPauseTime(waitTime);
+        dinner.setThinkTime(thinkTime);
+        dinner.setEatTime(eatTime);
+        dinner.setForkTime(forkTime);
+        dinner.table.setPauseTime(waitTime);
         
         dinner.table.populateTable();
         
@@ -59,32 +59,32 @@ public class SimpleDinner {
             }
             System.out.println(dinner.table.getTableStatus());
         }
-        dinner.table.setPartyIsOn(false); // Release locks so Philosophers can exit
+        System.out.println("Shutdown: " + dinner.table.stop().describe());
         dinner.printSummaryResult();
     }
 
-    public static int getThinkTime() {
-        return Philosopher.getThinkTime();
+    public int getThinkTime() {
+        return table.getThinkTime();
     }
 
-    public static void setThinkTime(int thinkTime) {
-        Philosopher.setThinkTime(thinkTime);
+    public void setThinkTime(int thinkTime) {
+        table.setThinkTime(thinkTime);
     }
 
-    public static int getEatTime() {
-        return Philosopher.getEatTime();
+    public int getEatTime() {
+        return table.getEatTime();
     }
 
-    public static void setEatTime(int eatTime) {
-        Philosopher.setEatTime(eatTime);
+    public void setEatTime(int eatTime) {
+        table.setEatTime(eatTime);
     }
 
-    public static int getForkTime() {
-        return Philosopher.getForkTime();
+    public int getForkTime() {
+        return table.getForkTime();
     }
 
-    public static void setForkTime(int forkTime) {
-        Philosopher.setForkTime(forkTime);
+    public void setForkTime(int forkTime) {
+        table.setForkTime(forkTime);
     }
     
     // Print the configuration of the Dinner
@@ -100,7 +100,7 @@ public class SimpleDinner {
         sb.append("\n");
         sb.append("  Fork time:              "+getForkTime()+" milliseconds");
         sb.append("\n");
-        sb.append("  Inter-launch wait time: "+Table.getPauseTime()+" milliseconds");
+        sb.append("  Inter-launch wait time: "+table.getPauseTime()+" milliseconds");
         sb.append("\n");
         sb.append("  Status interval:        "+statusTime+" milliseconds");
         sb.append("\n");
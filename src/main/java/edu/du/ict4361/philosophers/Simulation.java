@@ -0,0 +1,393 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// Simulation.java
+//
+// A single-threaded discrete-event simulation of a Table, in virtual time.
+//
+// The threaded Table sleeps for every think, eat and fork time. The Simulation runs the same
+// protocol, on the same populated Table (its Forks, its Philosophers and their STATE machine),
+// but instead of sleeping it puts timestamped events in a priority queue and jumps the clock
+// from one event to the next. Nothing ever blocks:
+//   - picking up a fork is Fork.tryPickUp(seat, 0); if the fork is taken, the seat queues on it
+//   - putting a fork down hands it straight to the first queued seat
+// Per seat the events follow Philosopher.eat(): think, pick up the first fork (forkTime),
+// pick up the second fork (forkTime), eat, put down the first fork (forkTime), put down
+// the second fork (forkTime), count the meal, think again. With another Topology a seat goes
+// through all of its forks the same way; the batch strategy spends forkTime once per batch. Meal counts, state residency and
+// fork wait histograms (the time queued on forks) end up in the Philosophers, so the Table statistics work as usual.
+// Every think, eat and fork time is drawn from the seat (Philosopher.nextThinkNanos ...), so a
+// WorkloadProfile shapes a simulated dinner as it does a threaded one, bursts in virtual time.
+// With fork leases a seat eats again at EAT_DONE while no seat queues for its forks.
+//
+// Strategies that are an acquisition order are simulated: naive, ordering, batch, asymmetric, and
+// waiter (at most n-1 seats reaching for forks). If the queue runs dry, every seat is waiting: a deadlock.
+//
+// The event queue is a binary heap over primitive arrays: one pending event per seat at most,
+// no objects per event, so a run handles millions of events per second.
+////////////////////////////////////
+
+import java.util.Arrays;
+
+public class Simulation {
+    // Event types
+    private static final int THINK_DONE = 0;
+    private static final int FORK_TAKEN = 1;
+    private static final int EAT_DONE = 2;
+    private static final int FORK_PUT_DOWN = 3;
+
+    private final Table table;
+    private final int seats;
+    private final String strategy;
+
+    // Per seat, the fork numbers in pick up order and in put down order:
+    // seat s uses pickOrder[orderStart[s]] .. pickOrder[orderStart[s+1]-1]
+    private final int[] orderStart;
+    private final int[] pickOrder;
+    private final int[] putDownOrder;
+    private final boolean batch;
+
+    // Queues of seats waiting for each fork (and for the waiter): singly linked through nextWaiter
+    private final int[] forkQueueHead;
+    private final int[] forkQueueTail;
+    private final int[] nextWaiter;
+    private final long[] queuedSince; // when the seat queued on the fork it waits for (its fork wait)
+    private int waiterQueueHead = -1;
+    private int waiterQueueTail = -1;
+    private int waiterPermits;
+
+    // Pending events: a binary heap ordered by (time, sequence)
+    private final long[] eventTime;
+    private final long[] eventSequence;
+    private final long[] eventPayload;
+    private int eventCount;
+    private long sequence;
+
+    private final long pauseNanos;
+    private final int leaseMeals;
+    private final int[] leaseCount; // meals of each seat's current lease (with leases)
+
+    private long now;
+    private long eventsProcessed;
+    private boolean deadlocked;
+
+    public Simulation(Table table) {
+        this.table = table;
+        this.seats = table.getNumberOfPhilosophers();
+        this.strategy = table.getForkStrategy().getName();
+        if (!isSupported(strategy)) {
+            throw new IllegalArgumentException("The simulation does not support the " + strategy + " strategy");
+        }
+        batch = "batch".equals(strategy);
+        orderStart = new int[seats + 1];
+        for (int seat = 0; seat < seats; seat++) {
+            int k = table.getForkCount(seat);
+            if (k > MAX_STEPS) {
+                throw new IllegalArgumentException("The simulation handles at most " + MAX_STEPS + " forks per seat");
+            }
+            orderStart[seat + 1] = orderStart[seat] + k;
+        }
+        pickOrder = new int[orderStart[seats]];
+        putDownOrder = new int[orderStart[seats]];
+        for (int seat = 0; seat < seats; seat++) {
+            int start = orderStart[seat];
+            int k = orderStart[seat + 1] - start;
+            for (int i = 0; i < k; i++) {
+                pickOrder[start + i] = table.getForkIndex(seat, i);
+            }
+            switch (strategy) {
+            case "ordering":
+            case "batch":
+                Arrays.sort(pickOrder, start, start + k);
+                break;
+            case "asymmetric":
+                if (seat % 2 != 0) {
+                    int t = pickOrder[start]; pickOrder[start] = pickOrder[start + 1]; pickOrder[start + 1] = t;
+                }
+                break;
+            default:
+                break;
+            }
+            // The naive and waiter strategies put the forks down in the Topology's order (left first);
+            // the others reverse the pick up
+            boolean reverse = !("naive".equals(strategy) || "waiter".equals(strategy));
+            for (int i = 0; i < k; i++) {
+                putDownOrder[start + i] = reverse ? pickOrder[start + k - 1 - i] : pickOrder[start + i];
+            }
+        }
+        int forks = table.getNumberOfForks();
+        forkQueueHead = new int[forks];
+        forkQueueTail = new int[forks];
+        nextWaiter = new int[seats];
+        queuedSince = new long[seats];
+        Arrays.fill(forkQueueHead, -1);
+        Arrays.fill(forkQueueTail, -1);
+        waiterPermits = "waiter".equals(strategy) ? seats - 1 : Integer.MAX_VALUE;
+
+        eventTime = new long[seats];
+        eventSequence = new long[seats];
+        eventPayload = new long[seats];
+
+        pauseNanos = table.isStaggeredStart() ? table.getPauseTime() * 1_000_000L : 0;
+        leaseMeals = table.getLeaseMeals();
+        leaseCount = new int[seats];
+
+        // Seats sit down one after the other, as in startTable
+        for (int seat = 0; seat < seats; seat++) {
+            Philosopher phil = table.getPhilosopher(seat);
+            long start = seat * pauseNanos;
+            phil.startClock(start, true);
+            phil.changeState(Philosopher.STATE.THINKING, start);
+            schedule(start + phil.nextThinkNanos(start), seat, THINK_DONE, 0);
+        }
+    }
+
+    public static boolean isSupported(String strategy) {
+        switch (strategy) {
+        case "naive":
+        case "ordering":
+        case "asymmetric":
+        case "waiter":
+        case "batch":
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /// Event queue
+
+    // seat << 16 | type << 12 | step, where step is the fork (0 .. MAX_STEPS) the event is about
+    private static final int MAX_STEPS = 0xfff;
+
+    private static long payload(int seat, int type, int step) {
+        return ((long) seat << 16) | (type << 12) | step;
+    }
+
+    private void schedule(long time, int seat, int type, int step) {
+        int i = eventCount++;
+        long seq = sequence++;
+        long pay = payload(seat, type, step);
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (eventTime[parent] < time || (eventTime[parent] == time && eventSequence[parent] < seq)) {
+                break;
+            }
+            eventTime[i] = eventTime[parent];
+            eventSequence[i] = eventSequence[parent];
+            eventPayload[i] = eventPayload[parent];
+            i = parent;
+        }
+        eventTime[i] = time;
+        eventSequence[i] = seq;
+        eventPayload[i] = pay;
+    }
+
+    // Remove the earliest event; the clock moves to its time. Returns its payload.
+    private long next() {
+        long result = eventPayload[0];
+        now = eventTime[0];
+        int last = --eventCount;
+        long time = eventTime[last];
+        long seq = eventSequence[last];
+        long pay = eventPayload[last];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= last) {
+                break;
+            }
+            if (child + 1 < last && (eventTime[child + 1] < eventTime[child]
+                    || (eventTime[child + 1] == eventTime[child] && eventSequence[child + 1] < eventSequence[child]))) {
+                child++;
+            }
+            if (time < eventTime[child] || (time == eventTime[child] && seq < eventSequence[child])) {
+                break;
+            }
+            eventTime[i] = eventTime[child];
+            eventSequence[i] = eventSequence[child];
+            eventPayload[i] = eventPayload[child];
+            i = child;
+        }
+        eventTime[i] = time;
+        eventSequence[i] = seq;
+        eventPayload[i] = pay;
+        return result;
+    }
+
+    /// The protocol
+
+    private void reachForForks(int seat) {
+        table.getPhilosopher(seat).changeState(Philosopher.STATE.PICKING_UP_FORK, now);
+        if (waiterPermits > 0) {
+            waiterPermits--;
+            reachForFork(seat, 0);
+        } else {
+            waiterQueueTail = enqueue(seat, waiterQueueHead == -1 ? -1 : waiterQueueTail);
+            if (waiterQueueHead == -1) {
+                waiterQueueHead = seat;
+            }
+        }
+    }
+
+    private int enqueue(int seat, int tail) {
+        nextWaiter[seat] = -1;
+        if (tail != -1) {
+            nextWaiter[tail] = seat;
+        }
+        return seat;
+    }
+
+    private int forkCount(int seat) {
+        return orderStart[seat + 1] - orderStart[seat];
+    }
+
+    // How long picking up fork number step takes: forkTime, or in a batch only for the last fork
+    private long pickUpNanos(int seat, int step) {
+        return (batch && step < forkCount(seat) - 1) ? 0 : table.getPhilosopher(seat).nextForkNanos();
+    }
+
+    // Pick up the fork of the given step (0 for the first fork), or queue on it
+    private void reachForFork(int seat, int step) {
+        int f = pickOrder[orderStart[seat] + step];
+        if (table.getFork(f).tryPickUp(seat, 0)) {
+            table.getPhilosopher(seat).forkTaken(table.getFork(f), 0, now);
+            schedule(now + pickUpNanos(seat, step), seat, FORK_TAKEN, step);
+        } else {
+            queuedSince[seat] = now;
+            forkQueueTail[f] = enqueue(seat, forkQueueTail[f]);
+            if (forkQueueHead[f] == -1) {
+                forkQueueHead[f] = seat;
+            }
+        }
+    }
+
+    // Put fork f down and hand it to the first seat waiting for it
+    private void release(int seat, int f) {
+        Fork fork = table.getFork(f);
+        fork.putDown(seat);
+        table.getPhilosopher(seat).logFork(fork, EventLog.FORK_PUT_DOWN, now);
+        int waiter = forkQueueHead[f];
+        if (waiter != -1) {
+            forkQueueHead[f] = nextWaiter[waiter];
+            if (forkQueueHead[f] == -1) {
+                forkQueueTail[f] = -1;
+            }
+            fork.tryPickUp(waiter, 0);
+            table.getPhilosopher(waiter).forkTaken(fork, now - queuedSince[waiter], now);
+            int step = 0;
+            while (pickOrder[orderStart[waiter] + step] != f) {
+                step++;
+            }
+            schedule(now + pickUpNanos(waiter, step), waiter, FORK_TAKEN, step);
+        }
+    }
+
+    private boolean forksWanted(int seat) {
+        for (int i = orderStart[seat]; i < orderStart[seat + 1]; i++) {
+            if (forkQueueHead[pickOrder[i]] != -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void releaseWaiter() {
+        if (waiterQueueHead != -1) {
+            int seat = waiterQueueHead;
+            waiterQueueHead = nextWaiter[seat];
+            reachForFork(seat, 0);
+        } else {
+            waiterPermits++;
+        }
+    }
+
+    private void handle(long payload) {
+        int seat = (int) (payload >>> 16);
+        int type = (int) (payload >>> 12) & 0xf;
+        int step = (int) payload & MAX_STEPS;
+        Philosopher phil = table.getPhilosopher(seat);
+        switch (type) {
+        case THINK_DONE:
+            phil.changeState(Philosopher.STATE.IDLE, now);
+            phil.recordThought();
+            reachForForks(seat);
+            break;
+        case FORK_TAKEN:
+            if (step + 1 < forkCount(seat)) {
+                reachForFork(seat, step + 1);
+            } else {
+                phil.changeState(Philosopher.STATE.EATING, now);
+                schedule(now + phil.nextEatNanos(), seat, EAT_DONE, 0);
+            }
+            break;
+        case EAT_DONE:
+            if (leaseMeals > 1) {
+                // With a lease, eat again with the forks in hand, unless a seat queues for one of them
+                boolean wanted = forksWanted(seat);
+                if (++leaseCount[seat] < leaseMeals && !wanted) {
+                    phil.recordMeal(now);
+                    schedule(now + phil.nextEatNanos(), seat, EAT_DONE, 0);
+                    break;
+                }
+                phil.countLease(leaseCount[seat] - 1, wanted && leaseCount[seat] < leaseMeals);
+                leaseCount[seat] = 0;
+            }
+            phil.changeState(Philosopher.STATE.PUTTING_DOWN_FORK, now);
+            schedule(now + phil.nextForkNanos(), seat, FORK_PUT_DOWN, 0);
+            break;
+        case FORK_PUT_DOWN:
+            if (batch) {
+                for (int i = 0; i < forkCount(seat); i++) {
+                    release(seat, putDownOrder[orderStart[seat] + i]);
+                }
+            } else {
+                release(seat, putDownOrder[orderStart[seat] + step]);
+            }
+            if (!batch && step + 1 < forkCount(seat)) {
+                schedule(now + phil.nextForkNanos(), seat, FORK_PUT_DOWN, step + 1);
+            } else {
+                releaseWaiter();
+                phil.recordMeal(now);
+                phil.changeState(Philosopher.STATE.IDLE, now);
+                phil.changeState(Philosopher.STATE.THINKING, now);
+                schedule(now + phil.nextThinkNanos(now), seat, THINK_DONE, 0);
+            }
+            break;
+        default:
+            throw new IllegalStateException("Unknown event type " + type);
+        }
+    }
+
+    // Run until the virtual clock passes duration nanoseconds (or the table deadlocks).
+    // Returns the virtual time reached.
+    public long run(long durationNanos) {
+        while (eventCount > 0 && eventTime[0] <= durationNanos) {
+            handle(next());
+            eventsProcessed++;
+        }
+        if (eventCount == 0) {
+            deadlocked = true; // nobody has anything to do but wait
+        } else {
+            now = durationNanos;
+        }
+        // Charge the time up to now to the state each seat is in (the state does not change)
+        for (int seat = 0; seat < seats; seat++) {
+            Philosopher phil = table.getPhilosopher(seat);
+            phil.changeState(phil.getState(), now);
+        }
+        return now;
+    }
+
+    public long getVirtualTime() {
+        return now;
+    }
+
+    public long getEventsProcessed() {
+        return eventsProcessed;
+    }
+
+    public boolean isDeadlocked() {
+        return deadlocked;
+    }
+}
@@ -0,0 +1,458 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// SweepRunner.java
+//
+// Runs a grid of Dinner configurations in one JVM, several at a time, and writes one row per
+// configuration (meals per second, fairness, time to deadlock, ...) to a CSV or JSON file.
+//
+// Every Table carries its own configuration, so the points of the grid do not interfere:
+// each gets a fresh Table, its own strategy instance and a wait-for graph DeadlockDetector
+// (without recovery), runs for --duration milliseconds or until it deadlocks, and is shut down.
+// The points run on a ForkJoinPool of --parallelism workers. With --simulate each point is
+// a discrete-event Simulation in virtual time instead, which is CPU-bound and takes milliseconds.
+//
+// Values are lists (5,10,20) or inclusive ranges (start:end:step), e.g.
+//   SweepRunner --seats 5:50:5 --think-time 0,10,100 --strategy naive,ordering --output sweep.csv
+// Topologies are a list of Topology names (ring,torus:10x10,kforks:100:3); grid and torus fix
+// their own number of seats, the others use --seats.
+////////////////////////////////////
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SweepRunner {
+
+    // One configuration of the grid and, once it ran, its results
+    static class Point {
+        int seats;              // grid and torus topologies replace it with their own
+        final String topology;
+        final int thinkTime;
+        final int eatTime;
+        final int forkTime;
+        final String strategy;
+        final ForkType forkType;
+        final int maxConsecutive;
+        final double targetUtilization; // 0: fixed think time
+        final int leaseMeals;           // 1: no fork leases
+
+        int forks;
+        long meals;
+        double mealsPerSecond;
+        double fairness;
+        int minimumMeals;
+        int maximumMeals;
+        boolean deadlocked;
+        double timeToDeadlockMs = -1;
+        double forkWaitP99Ms;
+        double runMs;
+        double convergenceMs = -1;    // with a target utilization: until the think time controller settled
+        double steadyMealsPerSecond;  // and meals per second from then on
+        long leasedMeals;             // with leases: meals eaten without another pick up
+        long leasesYielded;           // and leases ended early because a neighbor waited
+        String error = "";
+
+        Point(int seats, String topology, int thinkTime, int eatTime, int forkTime, String strategy, ForkType forkType,
+              int maxConsecutive, double targetUtilization, int leaseMeals) {
+            this.seats = seats;
+            this.topology = topology;
+            this.thinkTime = thinkTime;
+            this.eatTime = eatTime;
+            this.forkTime = forkTime;
+            this.strategy = strategy;
+            this.forkType = forkType;
+            this.maxConsecutive = maxConsecutive;
+            this.targetUtilization = targetUtilization;
+            this.leaseMeals = leaseMeals;
+        }
+    }
+
+    // Grid and run settings
+    private int[] seats = { 5 };
+    private String[] topologies = { "ring" };
+    private int[] thinkTimes = { 10 };
+    private int[] eatTimes = { 10 };
+    private int[] forkTimes = { 10 };
+    private String[] strategies = { "naive" };
+    private ForkType[] forkTypes = { ForkType.SEMAPHORE };
+    private int[] maxConsecutives = { 0 };
+    private double[] targetUtilizations = { 0 };
+    private int[] leaseMeals = { 1 };
+    private int duration = 2000; // milliseconds per point
+    private int pauseTime = 0;
+    private boolean staggeredStart = false;
+    private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+    private WaitMode waitMode = WaitMode.SLEEP;
+    private boolean yieldOnStateChange = true;
+    private boolean simulate = false;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private String output = "sweep.csv";
+
+    private final AtomicInteger finished = new AtomicInteger();
+
+    public static void usage() {
+        System.out.println("Usage");
+        System.out.println("SweepRunner"
+                           + " --seats list"
+                           + " --topology list"
+                           + " --think-time list"
+                           + " --eat-time list"
+                           + " --fork-time list"
+                           + " --strategy list"
+                           + " --fork-type list"
+                           + " --max-consecutive list"
+                           + " --target-utilization list"
+                           + " --lease-meals list"
+                           + " --duration ms"
+                           + " --wait-time ms"
+                           + " --launch staggered|immediate"
+                           + " --threads platform|virtual"
+                           + " --wait-mode sleep|park|spin"
+                           + " --no-yield"
+                           + " --simulate"
+                           + " --parallelism num"
+                           + " --output file.csv|file.json");
+        System.out.println("  A list is comma separated values (5,10,20) or an inclusive range start:end:step (5:50:5)."
+                           + " Every combination is run.");
+    }
+
+    // "5,10,20" or "5:50:5" (or a mix: "2,5:50:5")
+    static int[] parseInts(String spec) {
+        List<Integer> values = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] range = part.split(":");
+            if (range.length == 1) {
+                values.add(Integer.valueOf(range[0].trim()));
+            } else {
+                int start = Integer.parseInt(range[0].trim());
+                int end = Integer.parseInt(range[1].trim());
+                int step = (range.length > 2) ? Integer.parseInt(range[2].trim()) : 1;
+                if (step <= 0) {
+                    throw new IllegalArgumentException("Range step must be positive: " + part);
+                }
+                for (int v = start; v <= end; v += step) {
+                    values.add(v);
+                }
+            }
+        }
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "-p":
+            case "--seats":
+            case "--philosophers":
+                i++;
+                seats = parseInts(args[i]);
+                break;
+            case "--topology":
+                i++;
+                topologies = args[i].split(",");
+                break;
+            case "-t":
+            case "--think-time":
+                i++;
+                thinkTimes = parseInts(args[i]);
+                break;
+            case "-e":
+            case "--eat-time":
+                i++;
+                eatTimes = parseInts(args[i]);
+                break;
+            case "-f":
+            case "--fork-time":
+                i++;
+                forkTimes = parseInts(args[i]);
+                break;
+            case "-S":
+            case "--strategy":
+                i++;
+                strategies = args[i].split(",");
+                break;
+            case "--fork-type": {
+                i++;
+                String[] names = args[i].split(",");
+                forkTypes = new ForkType[names.length];
+                for (int n = 0; n < names.length; n++) {
+                    forkTypes[n] = ForkType.forName(names[n]);
+                }
+                break;
+            }
+            case "--max-consecutive":
+                i++;
+                maxConsecutives = parseInts(args[i]);
+                break;
+            case "--target-utilization": {
+                i++;
+                String[] values = args[i].split(",");
+                targetUtilizations = new double[values.length];
+                for (int n = 0; n < values.length; n++) {
+                    targetUtilizations[n] = Double.parseDouble(values[n].trim());
+                }
+                break;
+            }
+            case "--lease-meals":
+                i++;
+                leaseMeals = parseInts(args[i]);
+                break;
+            case "--duration":
+                i++;
+                duration = Integer.valueOf(args[i]);
+                break;
+            case "-w":
+            case "--wait-time":
+                i++;
+                pauseTime = Integer.valueOf(args[i]);
+                break;
+            case "--launch":
+                i++;
+                staggeredStart = !"immediate".equals(args[i]);
+                break;
+            case "--threads":
+                i++;
+                executionMode = ExecutionMode.forName(args[i]);
+                break;
+            case "--wait-mode":
+                i++;
+                waitMode = WaitMode.forName(args[i]);
+                break;
+            case "--no-yield":
+                yieldOnStateChange = false;
+                break;
+            case "--simulate":
+                simulate = true;
+                break;
+            case "--parallelism":
+                i++;
+                parallelism = Integer.valueOf(args[i]);
+                break;
+            case "-o":
+            case "--output":
+                i++;
+                output = args[i];
+                break;
+            case "-h": case "--help":
+                usage();
+                System.exit(0);
+                break;
+            default:
+                System.err.println("Command line option " + args[i] + " not understood. Ignored.");
+                break;
+            }
+        }
+    }
+
+    // Every combination, in a fixed order (seats outermost)
+    List<Point> grid() {
+        List<Point> points = new ArrayList<>();
+        for (int n : seats) {
+            for (String topology : topologies) {
+                for (int think : thinkTimes) {
+                    for (int eat : eatTimes) {
+                        for (int fork : forkTimes) {
+                            for (String strategy : strategies) {
+                                for (ForkType type : forkTypes) {
+                                    for (int bound : maxConsecutives) {
+                                        for (double target : targetUtilizations) {
+                                            for (int lease : leaseMeals) {
+                                                points.add(new Point(n, topology, think, eat, fork, strategy, type, bound, target, lease));
+                                            }
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return points;
+    }
+
+    private Table newTable(Point point) {
+        Table table = new Table(Topology.forName(point.topology, point.seats));
+        table.setThinkTime(point.thinkTime);
+        table.setEatTime(point.eatTime);
+        table.setForkTime(point.forkTime);
+        table.setPauseTime(pauseTime);
+        table.setStaggeredStart(staggeredStart);
+        table.setExecutionMode(executionMode);
+        table.setWaitMode(waitMode);
+        table.setYieldOnStateChange(yieldOnStateChange);
+        table.setForkType(point.forkType);
+        table.setLeaseMeals(point.leaseMeals);
+        ForkStrategy strategy = ForkStrategy.forName(point.strategy, table);
+        if (strategy instanceof FairStrategy) {
+            ((FairStrategy) strategy).setMaxConsecutive(point.maxConsecutive);
+        }
+        table.setForkStrategy(strategy);
+        if (point.targetUtilization > 0 && !simulate) {
+            table.setThinkTimeController(new ThinkTimeController(table, point.targetUtilization));
+        }
+        return table;
+    }
+
+    void run(Point point, int total) {
+        long start = System.nanoTime();
+        try {
+            Table table = newTable(point);
+            point.seats = table.getNumberOfPhilosophers();
+            point.forks = table.getNumberOfForks();
+            double seconds;
+            if (simulate) {
+                table.populateTable();
+                Simulation simulation = new Simulation(table);
+                long reached = simulation.run(duration * 1_000_000L);
+                seconds = reached / 1e9;
+                point.deadlocked = simulation.isDeadlocked();
+                if (point.deadlocked) {
+                    point.timeToDeadlockMs = reached / 1e6;
+                }
+            } else {
+                DeadlockDetector detector = new DeadlockDetector(table, false);
+                table.setDeadlockDetector(detector);
+                table.populateTable();
+                table.startTable();
+                detector.awaitDeadlock(duration); // Returns early if the table deadlocks
+                seconds = (System.nanoTime() - table.getStartedNanos()) / 1e9;
+                table.stop();
+                point.deadlocked = detector.isDeadlocked();
+                if (point.deadlocked) {
+                    point.timeToDeadlockMs = detector.getFirstDetectionNanos() / 1e6;
+                }
+                ThinkTimeController controller = table.getThinkTimeController();
+                if (controller != null && controller.isConverged()) {
+                    point.convergenceMs = controller.getConvergenceNanos() / 1e6;
+                    point.steadyMealsPerSecond = controller.getSteadyMealsPerSecond();
+                }
+            }
+            point.meals = table.getTotalMeals();
+            point.mealsPerSecond = point.meals / Math.max(1e-9, seconds);
+            point.fairness = table.getFairnessIndex();
+            point.minimumMeals = table.getMinimumMeals();
+            point.maximumMeals = table.getMaximumMeals();
+            point.forkWaitP99Ms = table.getForkWaitHistogram().getValueAtPercentile(99) / 1e6;
+            point.leasedMeals = table.getTotalLeasedMeals();
+            point.leasesYielded = table.getTotalLeasesYielded();
+        } catch (InterruptedException e) {
+            point.error = "interrupted";
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            point.error = e.getMessage();
+        }
+        point.runMs = (System.nanoTime() - start) / 1e6;
+        System.out.println("  [" + finished.incrementAndGet() + "/" + total + "] " + describe(point));
+    }
+
+    private static String describe(Point p) {
+        if (!p.error.isEmpty()) {
+            return p.seats + " seats, " + p.topology + ", " + p.strategy + ": " + p.error;
+        }
+        return p.seats + " seats, " + p.topology + " (" + p.forks + " forks), think/eat/fork " + p.thinkTime + "/" + p.eatTime + "/" + p.forkTime + " ms, "
+               + p.strategy + (p.maxConsecutive > 0 ? " (bound " + p.maxConsecutive + ")" : "")
+               + ", " + p.forkType.name().toLowerCase()
+               + (p.targetUtilization > 0 ? ", target utilization " + p.targetUtilization : "")
+               + (p.leaseMeals > 1 ? ", leases of " + p.leaseMeals : "") + ": "
+               + String.format("%.1f", p.mealsPerSecond) + " meals/s, fairness " + String.format("%.3f", p.fairness)
+               + ", spread " + (p.maximumMeals - p.minimumMeals)
+               + (p.convergenceMs >= 0 ? ", converged after " + String.format("%.0f", p.convergenceMs) + " ms to "
+                  + String.format("%.1f", p.steadyMealsPerSecond) + " meals/s" : "")
+               + (p.leaseMeals > 1 ? ", " + p.leasedMeals + " leased meals, " + p.leasesYielded + " leases yielded" : "")
+               + (p.deadlocked ? ", deadlocked after " + String.format("%.1f", p.timeToDeadlockMs) + " ms" : "");
+    }
+
+    public List<Point> runAll() throws InterruptedException, ExecutionException {
+        List<Point> points = grid();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> points.parallelStream().forEach(point -> run(point, points.size()))).get();
+        } finally {
+            pool.shutdown();
+        }
+        return points;
+    }
+
+    /// Output
+
+    private static String csvField(String s) {
+        if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0) {
+            return "\"" + s.replace("\"", "\"\"") + "\"";
+        }
+        return s;
+    }
+
+    private static String jsonString(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    public void write(List<Point> points) throws IOException {
+        boolean json = output.endsWith(".json");
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(output)))) {
+            if (json) {
+                out.println("[");
+            } else {
+                out.println("seats,topology,forks,think_ms,eat_ms,fork_ms,strategy,fork_type,max_consecutive,target_utilization,lease_meals,mode,duration_ms,meals,meals_per_second,"
+                            + "fairness,min_meals,max_meals,meal_spread,deadlocked,time_to_deadlock_ms,fork_wait_p99_ms,convergence_ms,steady_meals_per_second,leased_meals,leases_yielded,run_ms,error");
+            }
+            String mode = simulate ? "simulated" : executionMode.name().toLowerCase();
+            for (int i = 0; i < points.size(); i++) {
+                Point p = points.get(i);
+                if (json) {
+                    out.println("  {\"seats\": " + p.seats + ", \"topology\": " + jsonString(p.topology)
+                                + ", \"forks\": " + p.forks + ", \"think_ms\": " + p.thinkTime + ", \"eat_ms\": " + p.eatTime
+                                + ", \"fork_ms\": " + p.forkTime + ", \"strategy\": " + jsonString(p.strategy)
+                                + ", \"fork_type\": " + jsonString(p.forkType.name().toLowerCase())
+                                + ", \"max_consecutive\": " + p.maxConsecutive
+                                + ", \"target_utilization\": " + p.targetUtilization
+                                + ", \"lease_meals\": " + p.leaseMeals
+                                + ", \"mode\": " + jsonString(mode) + ", \"duration_ms\": " + duration
+                                + ", \"meals\": " + p.meals + ", \"meals_per_second\": " + p.mealsPerSecond
+                                + ", \"fairness\": " + p.fairness + ", \"min_meals\": " + p.minimumMeals
+                                + ", \"max_meals\": " + p.maximumMeals + ", \"meal_spread\": " + (p.maximumMeals - p.minimumMeals)
+                                + ", \"deadlocked\": " + p.deadlocked
+                                + ", \"time_to_deadlock_ms\": " + p.timeToDeadlockMs
+                                + ", \"fork_wait_p99_ms\": " + p.forkWaitP99Ms
+                                + ", \"convergence_ms\": " + p.convergenceMs
+                                + ", \"steady_meals_per_second\": " + p.steadyMealsPerSecond
+                                + ", \"leased_meals\": " + p.leasedMeals + ", \"leases_yielded\": " + p.leasesYielded
+                                + ", \"run_ms\": " + p.runMs
+                                + ", \"error\": " + jsonString(p.error) + "}"
+                                + (i < points.size() - 1 ? "," : ""));
+                } else {
+                    out.println(p.seats + "," + csvField(p.topology) + "," + p.forks + "," + p.thinkTime + "," + p.eatTime + "," + p.forkTime + ","
+                                + csvField(p.strategy) + "," + p.forkType.name().toLowerCase() + "," + p.maxConsecutive + ","
+                                + p.targetUtilization + "," + p.leaseMeals + "," + mode + "," + duration + "," + p.meals + "," + p.mealsPerSecond + "," + p.fairness + ","
+                                + p.minimumMeals + "," + p.maximumMeals + "," + (p.maximumMeals - p.minimumMeals) + ","
+                                + p.deadlocked + ","
+                                + p.timeToDeadlockMs + "," + p.forkWaitP99Ms + "," + p.convergenceMs + ","
+                                + p.steadyMealsPerSecond + "," + p.leasedMeals + "," + p.leasesYielded + "," + p.runMs + "," + csvField(p.error));
+                }
+            }
+            if (json) {
+                out.println("]");
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        SweepRunner sweep = new SweepRunner();
+        sweep.parseArgs(args);
+        List<Point> grid = sweep.grid();
+        System.out.println("Sweep: " + grid.size() + " configurations, " + sweep.parallelism + " at a time, "
+                           + (sweep.simulate ? "simulated for " : "up to ") + sweep.duration + " milliseconds each");
+        long start = System.nanoTime();
+        List<Point> points = sweep.runAll();
+        sweep.write(points);
+        System.out.println("Sweep done in " + String.format("%.1f", (System.nanoTime() - start) / 1e9)
+                           + " seconds; results in " + sweep.output);
+    }
+}
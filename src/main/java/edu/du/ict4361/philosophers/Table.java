@@ -5,17 +5,49 @@ package edu.du.ict4361.philosophers;
 // Author: M Schwartz
 //
 // Table represents a round table with the same number of Philosophers and Forks
+//     (or, given a Topology, any arrangement of seats and the Forks each seat needs).
 // Table holds the Philosophers and the Forks, and associates them.
 // The Table creates and assigns the Philosophers to a fixed array.
 // The Table creates and assigns the Forks to a fixed array.
-// The Table creates and maintains a thread for each Philosopher
-//     (so it can shut them down later)
+// The Table runs each Philosopher on its own thread of an executor
+//     (so it can shut them down later). The threads are platform or virtual threads
+//     (ExecutionMode), launched in startTable, either one at a time with a
+//     pause in between (staggered) or all at once.
+// stop() ends the dinner in bounded time and joins every Philosopher:
+//     drain    - no new meals start, thinking Philosophers stop at once, meals in progress finish
+//     deadline - whoever is still at the table after the drain time is interrupted, and its waits and
+//                pick ups return at once (it puts down what it holds and leaves without eating)
+//     join     - within the stop time; a seat still running after that is a straggler: its forks are
+//                forced down the old way and the Table cannot be started again
+//     report   - a ShutdownReport of the above
+//     After a clean stop the same Table can be started again (meal counts and times carry on).
 // The Table uses the array positions to represent seats at the table,
 //     and the association of left and right Forks to each Philosopher
+//     (the first and second Fork of the seat in the Topology)
+// The seats, the Forks and the Topology form one SeatRing, replaced as a whole (copy-on-write) when
+//     a seat joins or leaves a running ring Table (joinSeat, leaveSeat). Readers never lock: each reads
+//     the current ring once. A Philosopher picks up its new Forks between meals (see Philosopher).
+//     Seats that left still count in the totals (departed).
 //
+// The Table also holds its configuration: think, eat and fork times (nanosecond resolution, and how the
+//     Philosophers wait them out: WaitMode), launch pause, thread and fork types,
+//     and the memory Layout of the Forks and Philosophers (compact, or padded against false sharing).
+// An optional ThinkTimeController adapts the think time of each seat while the Table runs.
+// An optional ForkLeaseMonitor reclaims the forks of seats that died or stalled holding them,
+//     and an optional FaultInjector makes seats die or stall on purpose.
 // Some statistical functions are added to the Table for a summary report.
+// Meal statistics (MealStatistics) are updated as each meal is eaten, so polling them is cheap.
 ////////////////////////////////////
+
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * The table is the coordinating class for the dining philosophers.
@@ -24,25 +56,74 @@ import java.util.Arrays;
  *
  */
 public class Table {
-    private final Philosopher[] philosophers;
-    private final Fork[] forks;
-    private final Thread[] philosopherThreads;
-    
+    private volatile SeatRing ring;
+    private final MealStatistics mealStatistics;
+    private final List<Philosopher> departed = new CopyOnWriteArrayList<>(); // seats that left
+    private int nextSeatId;    // ids (and fork numbers) for seats joining later, from the seat base on
+    private int nextForkIndex;
+    private int leavingSeats;  // asked to leave by a leaveSeat still waiting for them
+
+    // The running Philosophers (null when the Table is not running), and how the last stop went
+    private ThreadPoolExecutor executor;
+    private final List<String> threadNames = new ArrayList<>(); // the pool's k-th thread runs the k-th seat launched
+    private ShutdownReport lastShutdown;
+    private boolean restartable = true;
+
     // Volatile boolean on whether to keep going
     private volatile boolean partyIsOn = true;
     
-    private static int pauseTime = 90;
+    private static final long DEFAULT_STOP_MILLIS = 2000;
+
+    // Configuration of this Table (each Table has its own, so one JVM can run several dinners)
+    private long thinkNanos = 3_000_000_000L;
+    private long eatNanos = 3_000_000_000L;
+    private long forkNanos = 3_000_000_000L;
+    private WaitMode waitMode = WaitMode.SLEEP;
+    private boolean yieldOnStateChange = true; // the original Thread.yield() after every state change
+    private int pauseTime = 90;
+    private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+    private boolean staggeredStart = true;
+    private ForkType forkType = ForkType.SEMAPHORE;
+    private Layout layout = Layout.COMPACT;
+    private int leaseMeals = 1; // meals per fork lease (1: put the forks down after every meal)
+
+    // When startTable began (System.nanoTime), and how long it took to launch every Philosopher
+    private long startedNanos;
+    private long startupNanos;
+
+    // How Philosophers pick up their forks (the original left-then-right by default)
+    private ForkStrategy forkStrategy = new NaiveStrategy();
+
+    // Optional wait-for graph deadlock detection (null: none)
+    private DeadlockDetector deadlockDetector;
+
+    // Seat ids (and fork numbers) start here: non-zero for a shard of a ShardedTable
+    private int seatBase = 0;
+
+    // Optional think time control (null: the fixed think time)
+    private ThinkTimeController thinkTimeController;
+
+    // Reclaims the forks of unresponsive seats, and injects failures (null: none)
+    private ForkLeaseMonitor forkLeaseMonitor;
+    private FaultInjector faultInjector;
+
+    // Optional binary event log (null: none); set before populateTable
+    private EventLog eventLog;
+
+    // Optional per seat timing distributions and bursts (null: constant times); set before populateTable
+    private WorkloadProfile workloadProfile;
 
     // Question: Will thread priorities matter?
     public Table(int numberOfSeats) {
         // Must have at least 2 philosophers
-        if (numberOfSeats >= 2) {
-            philosophers = new Philosopher[numberOfSeats];
-            forks = new Fork[numberOfSeats];
-            philosopherThreads = new Thread[numberOfSeats];
-        } else {
-            throw new IllegalArgumentException("Must have at least 2 philosophers");
-        }
+        this(Topology.ring(numberOfSeats));
+    }
+
+    public Table(Topology topology) {
+        ring = new SeatRing(topology, 0);
+        mealStatistics = new MealStatistics(topology.getNumberOfSeats());
+        nextSeatId = topology.getNumberOfSeats();
+        nextForkIndex = topology.getNumberOfForks();
     }
     
     // Helper function to cause a thread to sleeps and ignore
@@ -56,145 +137,705 @@ public class Table {
         }
     }
     
-    public void startTable() {
-        for (Thread thread: philosopherThreads)  {
-            thread.start();
-            waitTime(pauseTime); // Pause briefly to avoid out-of-the-gate deadlock (if > forkTime)
+    // Start (or, after a clean stop, restart) the Philosophers
+    public synchronized void startTable() {
+        if (executor != null) {
+            throw new IllegalStateException("The table is already running");
+        }
+        if (!restartable) {
+            throw new IllegalStateException("The table cannot be restarted: " + lastShutdown.getStragglers()
+                                            + " did not stop in time");
+        }
+        long start = System.nanoTime();
+        startedNanos = start;
+        partyIsOn = true;
+        SeatRing seats = ring;
+        threadNames.clear();
+        executor = executionMode.newExecutor(seats.getNumberOfSeats(), threadNames::get);
+        for (int i = 0; i < seats.getNumberOfSeats(); i++) {
+            launch(seats.getPhilosopher(i));
+            if (staggeredStart) {
+                waitTime(pauseTime); // Pause briefly to avoid out-of-the-gate deadlock (if > forkTime)
+            }
+        }
+        startupNanos = System.nanoTime() - start;
+        if (thinkTimeController != null) {
+            thinkTimeController.start();
+        }
+        if (forkLeaseMonitor != null) {
+            forkLeaseMonitor.start();
+        }
+        if (faultInjector != null) {
+            faultInjector.start();
+        }
+    }
+
+    private void launch(Philosopher phil) {
+        threadNames.add(phil.getName());
+        phil.setSeatFuture(executor.submit(phil));
+    }
+
+    // Stop with the default times: the default drain (none if the DeadlockDetector already
+    // found a deadlock: a deadlocked table has nothing to drain), then 2 seconds.
+    public ShutdownReport stop() {
+        boolean deadlocked = deadlockDetector != null && deadlockDetector.isDeadlocked();
+        return stop(deadlocked ? 0 : getDefaultDrainMillis(), DEFAULT_STOP_MILLIS);
+    }
+
+    // Long enough to finish a meal in progress and put its forks down
+    public long getDefaultDrainMillis() {
+        return (eatNanos + 2 * forkNanos) / 1_000_000 + 10;
+    }
+
+    // Drain for up to drainMillis, then interrupt whoever is left and wait up to stopMillis more.
+    // Returns the report, or the last one (null if it never ran) if the Table is not running.
+    public synchronized ShutdownReport stop(long drainMillis, long stopMillis) {
+        partyIsOn = false;
+        if (executor == null) {
+            return lastShutdown;
+        }
+        if (thinkTimeController != null) {
+            thinkTimeController.stop();
+        }
+        if (faultInjector != null) {
+            faultInjector.stop();
+        }
+        if (forkLeaseMonitor != null) {
+            forkLeaseMonitor.stop();
+        }
+        long start = System.nanoTime();
+        long mealsBefore = getTotalMeals();
+        Philosopher[] philosophers = ring.philosophers(); // no seat joins or leaves while we hold the lock
+        int seats = philosophers.length;
+        boolean[] done = new boolean[seats];
+        List<String> failures = new ArrayList<>();
+
+        // Drain: a thinking Philosopher holds no forks, so it can go right away
+        for (Philosopher phil : philosophers) {
+            if (phil.getState() == Philosopher.STATE.THINKING) {
+                phil.interrupt();
+            }
+        }
+        int drained = join(philosophers, done, start + drainMillis * 1_000_000L, failures);
+        long drainNanos = System.nanoTime() - start;
+        long mealsWhileDraining = getTotalMeals() - mealsBefore;
+
+        // Deadline: interrupt the rest, they leave without eating
+        int interrupted = 0;
+        if (drained < seats) {
+            for (int i = 0; i < seats; i++) {
+                if (!done[i]) {
+                    philosophers[i].interrupt();
+                }
+            }
+            interrupted = join(philosophers, done, System.nanoTime() + stopMillis * 1_000_000L, failures);
+        }
+
+        List<String> stragglers = new ArrayList<>();
+        for (int i = 0; i < seats; i++) {
+            if (!done[i]) {
+                stragglers.add(philosophers[i].getName());
+            }
+        }
+        if (!stragglers.isEmpty()) {
+            // Last resort: force every fork down so the stragglers can get out of a pick up
+            System.err.println("Table: " + stragglers.size() + " philosophers did not stop in time. Forcing the forks down.");
+            for (Fork f : ring.forks()) {
+                f.putDown(-2); // Special "seat number" for shutdown
+            }
+            restartable = false;
+            executor.shutdownNow();
+        } else {
+            executor.shutdown();
+        }
+        executor = null;
+        lastShutdown = new ShutdownReport(seats, drained, interrupted, stragglers, failures,
+                                          drainNanos, System.nanoTime() - start, mealsWhileDraining);
+        return lastShutdown;
+    }
+
+    // Wait (until the deadline, System.nanoTime) for the seats not done yet; returns how many finished
+    private int join(Philosopher[] philosophers, boolean[] done, long deadline, List<String> failures) {
+        int finished = 0;
+        for (int i = 0; i < done.length; i++) {
+            if (done[i]) {
+                continue;
+            }
+            try {
+                philosophers[i].getSeatFuture().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                continue;
+            } catch (ExecutionException e) {
+                failures.add(philosophers[i].getName() + ": " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return finished; // whoever stops the Table was itself interrupted: report what we have
+            }
+            done[i] = true;
+            finished++;
+        }
+        return finished;
+    }
+
+    // True between startTable and stop
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    // The report of the last stop (null if the Table never stopped)
+    public synchronized ShutdownReport getLastShutdown() {
+        return lastShutdown;
+    }
+
+    ///  Seats joining and leaving
+
+    // Seats can join and leave a ring Table whose strategy keeps no state by seat (and with no
+    // ThinkTimeController or EventLog, which are sized for the first seats)
+    public boolean isResizable() {
+        return ring.getTopology().isRing() && seatBase == 0 && forkStrategy.isResizable()
+               && thinkTimeController == null && eventLog == null;
+    }
+
+    private void checkResizable() {
+        if (!isResizable()) {
+            throw new IllegalArgumentException("Seats can only join or leave a ring table with the naive, ordering,"
+                                               + " backoff or batch strategy (and no think-time controller or event log)");
         }
     }
 
+    // A new Philosopher (and a new Fork on its right) at position 0 .. getNumberOfPhilosophers().
+    // On a running Table the seat starts at once; its right neighbor takes the new Fork before its next meal.
+    public synchronized Philosopher joinSeat(int position) {
+        checkResizable();
+        SeatRing seats = ring;
+        if (position < 0 || position > seats.getNumberOfSeats()) {
+            throw new IllegalArgumentException("No position " + position + " at a table of " + seats.getNumberOfSeats());
+        }
+        Fork fork = forkType.newFork("Fork " + (nextForkIndex + 1), layout);
+        fork.setIndex(nextForkIndex++); // the highest fork number: resource ordering stays deadlock free
+        Philosopher phil = new Philosopher("Phil " + (nextSeatId + 1), this);
+        phil.setSeatId(nextSeatId++);
+        if (workloadProfile != null) {
+            workloadProfile.configure(phil, phil.getSeatId());
+        }
+        SeatRing joined = seats.withSeat(position, phil, fork);
+        phil.seat(joined, position);
+        mealStatistics.seatJoined();
+        ring = joined;
+        if (executor != null) {
+            threadNames.add(phil.getName());
+            // One more thread; those of seats that left time out
+            executor.setMaximumPoolSize(threadNames.size());
+            executor.setCorePoolSize(threadNames.size());
+            executor.setKeepAliveTime(1, TimeUnit.SECONDS);
+            executor.allowCoreThreadTimeOut(true);
+            phil.setSeatFuture(executor.submit(phil));
+        }
+        return phil;
+    }
+
+    // The Philosopher at position leaves after the meal in hand (at most drainMillis, then it is
+    // interrupted and has stopMillis more). Its Forks but one stay with its neighbors.
+    // False if it did not stop in time: it then stays at the table, marked as leaving.
+    // The wait holds no lock: other seats join and leave meanwhile, and the seat is taken out of
+    // the ring current at the end, wherever it sits by then.
+    public boolean leaveSeat(int position, long drainMillis, long stopMillis) {
+        Philosopher phil;
+        Future<?> future;
+        synchronized (this) {
+            checkResizable();
+            SeatRing seats = ring;
+            if (position < 0 || position >= seats.getNumberOfSeats()) {
+                throw new IllegalArgumentException("No position " + position + " at a table of " + seats.getNumberOfSeats());
+            }
+            if (seats.getNumberOfSeats() - leavingSeats <= 2) {
+                throw new IllegalArgumentException("Must have at least 2 philosophers");
+            }
+            phil = seats.getPhilosopher(position);
+            phil.leave();
+            leavingSeats++;
+            future = (executor != null) ? phil.getSeatFuture() : null;
+        }
+        boolean stopped = true;
+        if (future != null) {
+            try {
+                try {
+                    future.get(drainMillis, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    phil.interrupt();
+                    future.get(stopMillis, TimeUnit.MILLISECONDS);
+                }
+            } catch (TimeoutException e) {
+                System.err.println("Table: " + phil.getName() + " did not leave in time.");
+                stopped = false;
+            } catch (ExecutionException e) {
+                System.err.println("Table: " + phil.getName() + " failed: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = false;
+            }
+        }
+        synchronized (this) {
+            leavingSeats--;
+            SeatRing seats = ring;
+            int at = seats.getPosition(phil.getSeatId());
+            if (!stopped || at < 0) { // still seated, or another leaveSeat of the same seat took it out
+                return stopped;
+            }
+            mealStatistics.seatLeft(phil.getNumberOfTimesEating());
+            departed.add(phil);
+            ring = seats.withoutSeat(at);
+            return true;
+        }
+    }
+
+    public boolean leaveSeat(int position) {
+        return leaveSeat(position, DEFAULT_STOP_MILLIS, DEFAULT_STOP_MILLIS);
+    }
+
     public void populateTable() {
-        for (int i = 0; i < philosophers.length; i++) {
-            forks[i] = new Fork("Fork " + (i + 1));
-            philosophers[i] = new Philosopher("Phil " + (i + 1), this);
-            philosophers[i].setSeatNumber(i);
-            philosopherThreads[i] = new Thread(philosophers[i]);
+        SeatRing seats = ring;
+        for (int i = 0; i < seats.getNumberOfForks(); i++) {
+            if (seats.getFork(i) == null) { // not a Fork shared with another Table
+                Fork fork = forkType.newFork("Fork " + (seatBase + i + 1), layout);
+                fork.setIndex(seatBase + i);
+                seats.setFork(i, fork);
+            }
+        }
+        for (int i = 0; i < seats.getNumberOfSeats(); i++) {
+            Philosopher phil = new Philosopher("Phil " + (seatBase + i + 1), this);
+            seats.setPhilosopher(i, phil);
+            phil.setSeatId(seatBase + i);
+            phil.setSeatNumber(i);
+            if (eventLog != null) {
+                phil.setEventLog(eventLog.newWriter());
+            }
+            if (workloadProfile != null) {
+                workloadProfile.configure(phil, i);
+            }
         }
     }
 
+    // The current seats and Forks, as one consistent snapshot
+    public SeatRing getSeatRing() {
+        return ring;
+    }
+
     public Philosopher getPhilosopher(int seat) {
-        if (seat >= 0 && seat < philosophers.length) {
-            return philosophers[seat];
-        }
-        return null;
+        return ring.getPhilosopher(seat);
+    }
+
+    // The Philosopher with this seat id (fork holders are seat ids), or null if it is not at the table
+    public Philosopher getPhilosopherById(int seatId) {
+        return ring.getPhilosopherById(seatId);
+    }
+
+    // One past the highest seat id so far (seat ids are never reused)
+    public int getSeatIdLimit() {
+        return ring.getSeatIdLimit();
     }
 
     public Fork getLeftFork(int seat) {
-        if (seat >= 0 && seat < philosophers.length) {
-            return forks[seat];
+        SeatRing seats = ring;
+        if (seat >= 0 && seat < seats.getNumberOfSeats()) {
+            return seats.getFork(seats.getForkIndex(seat, 0));
         }
         return null;
     }
 
     public Fork getRightFork(int seat) {
-        seat = (seat + 1) % philosophers.length;
-        if (seat >= 0 && seat < philosophers.length) {
-            return forks[seat];
+        SeatRing seats = ring;
+        if (seat >= 0 && seat < seats.getNumberOfSeats() && seats.getForkCount(seat) > 1) {
+            return seats.getFork(seats.getForkIndex(seat, 1));
         }
         return null;
     }
 
+    public Fork getFork(int index) {
+        return ring.getFork(index);
+    }
+
+    // Fork numbers (array positions), used by strategies that order or own forks
+    public int getLeftForkIndex(int seat) {
+        return ring.getForkIndex(seat, 0);
+    }
+
+    public int getRightForkIndex(int seat) {
+        return ring.getForkIndex(seat, 1);
+    }
+
+    // All the Forks of a seat: getForkCount(seat) of them, numbered by getForkIndex(seat, 0 ..)
+    public int getForkCount(int seat) {
+        return ring.getForkCount(seat);
+    }
+
+    public int getForkIndex(int seat, int k) {
+        return ring.getForkIndex(seat, k);
+    }
+
+    // Use a Fork of another Table at this position (a bridge between shards); before populateTable
+    void shareFork(int index, Fork fork) {
+        ring.setFork(index, fork);
+    }
+
+    public int getSeatBase() {
+        return seatBase;
+    }
+
+    // Number this Table's seats (and the forks it creates) from base on, as one shard of a bigger table;
+    // set before populateTable
+    void setSeatBase(int seatBase) {
+        this.seatBase = seatBase;
+        ring = new SeatRing(ring.getTopology(), seatBase);
+    }
+
+    public MealStatistics getMealStatistics() {
+        return mealStatistics;
+    }
+
+    public Topology getTopology() {
+        return ring.getTopology();
+    }
+
+    public int getNumberOfForks() {
+        return ring.getNumberOfForks();
+    }
+
     /// Reporting functions 
     public String getTableStatus() {
         if (!isPartyIsOn()) {
             return "Party is over";
         }
-        StringBuffer sb = new StringBuffer();
-        sb.append("Table status: table has ");
-        sb.append(philosophers.length);
-        sb.append(" seats");
-        sb.append("\n");
-        for (Philosopher phil : philosophers) {
-            sb.append("  ");
-            sb.append(phil.getStatus());
-            sb.append("\n");
-        }
+        StringBuilder sb = new StringBuilder();
+        TableStatusRenderer.renderFull(this, snapshot(new TableSnapshot()), sb);
         return sb.toString();
     }
 
+    // Capture seat states, meal counts and fork holders consistently into a reusable snapshot
+    public TableSnapshot snapshot(TableSnapshot into) {
+        return into.capture(this);
+    }
+
     /// Getters and setters
     
-    public static void setPauseTime(int amt) {
+    public void setPauseTime(int amt) {
         pauseTime = amt;
     }
-    public static int getPauseTime() {
+    public int getPauseTime() {
         return pauseTime;
     }
 
+    public ForkStrategy getForkStrategy() {
+        return forkStrategy;
+    }
+
+    public void setForkStrategy(ForkStrategy forkStrategy) {
+        this.forkStrategy = forkStrategy;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(ExecutionMode mode) {
+        executionMode = mode;
+    }
+
+    public boolean isStaggeredStart() {
+        return staggeredStart;
+    }
+
+    public void setStaggeredStart(boolean staggered) {
+        staggeredStart = staggered;
+    }
+
+    public ForkType getForkType() {
+        return forkType;
+    }
+
+    // Set before populateTable
+    public void setForkType(ForkType type) {
+        forkType = type;
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    // Set before populateTable
+    public void setLayout(Layout layout) {
+        this.layout = layout;
+    }
+
+    public long getStartedNanos() {
+        return startedNanos;
+    }
+
+    public long getStartupNanos() {
+        return startupNanos;
+    }
+
+    public ThinkTimeController getThinkTimeController() {
+        return thinkTimeController;
+    }
+
+    // Started and stopped with the Table
+    public void setThinkTimeController(ThinkTimeController thinkTimeController) {
+        this.thinkTimeController = thinkTimeController;
+    }
+
+    public ForkLeaseMonitor getForkLeaseMonitor() {
+        return forkLeaseMonitor;
+    }
+
+    public void setForkLeaseMonitor(ForkLeaseMonitor forkLeaseMonitor) {
+        this.forkLeaseMonitor = forkLeaseMonitor;
+    }
+
+    public FaultInjector getFaultInjector() {
+        return faultInjector;
+    }
+
+    public void setFaultInjector(FaultInjector faultInjector) {
+        this.faultInjector = faultInjector;
+    }
+
+    public WorkloadProfile getWorkloadProfile() {
+        return workloadProfile;
+    }
+
+    public void setWorkloadProfile(WorkloadProfile workloadProfile) {
+        this.workloadProfile = workloadProfile;
+    }
+
+    public EventLog getEventLog() {
+        return eventLog;
+    }
+
+    public void setEventLog(EventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    public DeadlockDetector getDeadlockDetector() {
+        return deadlockDetector;
+    }
+
+    public void setDeadlockDetector(DeadlockDetector deadlockDetector) {
+        this.deadlockDetector = deadlockDetector;
+    }
+
     public int getNumberOfPhilosophers() {
-        return philosophers.length;
+        return ring.getNumberOfSeats();
     }
     
     public boolean isPartyIsOn() {
         return partyIsOn;
     }
 
+    // Ending the party stops the Table (with the default drain and stop times)
     public void setPartyIsOn(boolean partyIsOn) {
-        this.partyIsOn = partyIsOn;
         if (partyIsOn == false) {
-            System.out.println("Table: Shutting down. Interrupting all philosophers.");
-            for (Thread thread: philosopherThreads) {
-                thread.interrupt();
-            }
-            for (Fork f : forks) {
-                f.putDown(-2); // Special "seat number" for shutdown
-            }
+            stop();
+        } else {
+            this.partyIsOn = true;
         }
     }
 
-    public Integer getTotalMeals() {
-        return Arrays.stream(philosophers).map(item -> item.getNumberOfTimesEating()).reduce((a, b) -> a + b)
-                .orElse(-1);
+    // No new meals, without stopping yet: a ShardedTable ends the party on every shard before stopping them
+    void endParty() {
+        partyIsOn = false;
+    }
+
+    // Meal statistics are kept up to date as meals are eaten, without a lock: reading them is O(1)
+    void mealEaten(int mealsBefore) {
+        mealStatistics.mealEaten(mealsBefore);
+    }
+
+    public long getTotalMeals() {
+        return mealStatistics.getTotal();
     }
 
-    public static int getThinkTime() {
-        return Philosopher.getThinkTime();
+    // How long the Philosophers at this Table think, eat and handle a fork (milliseconds)
+    public int getThinkTime() {
+        return (int) (thinkNanos / 1_000_000);
     }
 
-    public static void setThinkTime(int thinkTime) {
-        Philosopher.setThinkTime(thinkTime);
+    public void setThinkTime(int thinkTime) {
+        thinkNanos = thinkTime * 1_000_000L;
     }
 
-    public static int getEatTime() {
-        return Philosopher.getEatTime();
+    public int getEatTime() {
+        return (int) (eatNanos / 1_000_000);
     }
 
-    public static void setEatTime(int eatTime) {
-        Philosopher.setEatTime(eatTime);
+    public void setEatTime(int eatTime) {
+        eatNanos = eatTime * 1_000_000L;
     }
 
-    public static int getForkTime() {
-        return Philosopher.getForkTime();
+    public int getForkTime() {
+        return (int) (forkNanos / 1_000_000);
     }
 
-    public static void setForkTime(int forkTime) {
-        Philosopher.setForkTime(forkTime);
+    public void setForkTime(int forkTime) {
+        forkNanos = forkTime * 1_000_000L;
+    }
+
+    // The same times in nanoseconds, for sub-millisecond runs (with WaitMode PARK or SPIN)
+    public long getThinkNanos() {
+        return thinkNanos;
+    }
+
+    public void setThinkNanos(long thinkNanos) {
+        this.thinkNanos = thinkNanos;
+    }
+
+    public long getEatNanos() {
+        return eatNanos;
+    }
+
+    public void setEatNanos(long eatNanos) {
+        this.eatNanos = eatNanos;
+    }
+
+    public long getForkNanos() {
+        return forkNanos;
+    }
+
+    public void setForkNanos(long forkNanos) {
+        this.forkNanos = forkNanos;
+    }
+
+    public int getLeaseMeals() {
+        return leaseMeals;
+    }
+
+    // Up to this many meals in a row while nobody waits for the forks in hand (see Philosopher)
+    public void setLeaseMeals(int leaseMeals) {
+        if (leaseMeals < 1) {
+            throw new IllegalArgumentException("A lease is at least 1 meal: " + leaseMeals);
+        }
+        this.leaseMeals = leaseMeals;
+    }
+
+    public WaitMode getWaitMode() {
+        return waitMode;
+    }
+
+    public void setWaitMode(WaitMode waitMode) {
+        this.waitMode = waitMode;
+    }
+
+    public boolean isYieldOnStateChange() {
+        return yieldOnStateChange;
+    }
+
+    // false skips the Thread.yield() after each state change (stress runs)
+    public void setYieldOnStateChange(boolean yieldOnStateChange) {
+        this.yieldOnStateChange = yieldOnStateChange;
     }
     
     ///  Statistics-related functions
+
+    // The seats at the table and those that left, for totals
+    private Philosopher[] everySeat() {
+        Philosopher[] seated = ring.philosophers();
+        if (departed.isEmpty()) {
+            return seated;
+        }
+        List<Philosopher> all = new ArrayList<>(Arrays.asList(seated));
+        all.addAll(departed);
+        return all.toArray(new Philosopher[0]);
+    }
     public int getMaximumMeals() {
-        int max = 0;
+        return mealStatistics.getMaximum();
+    }
+    public int getMinimumMeals() {
+        return mealStatistics.getMinimum();
+    }
+    public long getTotalRetries() {
+        long sum = 0;
+        Philosopher[] philosophers = everySeat();
         for (int i=0; i<philosophers.length; i++) {
-            if ( philosophers[i].getNumberOfTimesEating() > max ) {
-                max = philosophers[i].getNumberOfTimesEating();
-            }
+                sum += philosophers[i].getNumberOfRetries();
         }
-        return max;
+        return sum;
     }
-    public int getMinimumMeals() {
-        int min = Integer.MAX_VALUE;
+    public long getTotalBackoffTime() {
+        long sum = 0;
+        Philosopher[] philosophers = everySeat();
         for (int i=0; i<philosophers.length; i++) {
-            if ( philosophers[i].getNumberOfTimesEating() < min ) {
-                min = philosophers[i].getNumberOfTimesEating();
-            }
+                sum += philosophers[i].getBackoffTimeTotal();
         }
-        return min;
+        return sum;
     }
-    public double getAverageMeals() {
-        int sum = 0;
+    public long getTotalLeases() {
+        long sum = 0;
+        Philosopher[] philosophers = everySeat();
+        for (int i=0; i<philosophers.length; i++) {
+                sum += philosophers[i].getLeases();
+        }
+        return sum;
+    }
+    public long getTotalLeasedMeals() {
+        long sum = 0;
+        Philosopher[] philosophers = everySeat();
+        for (int i=0; i<philosophers.length; i++) {
+                sum += philosophers[i].getLeasedMeals();
+        }
+        return sum;
+    }
+    public long getTotalLeasesYielded() {
+        long sum = 0;
+        Philosopher[] philosophers = everySeat();
+        for (int i=0; i<philosophers.length; i++) {
+                sum += philosophers[i].getLeasesYielded();
+        }
+        return sum;
+    }
+
+    // Meals that did not count because the forks were reclaimed by the ForkLeaseMonitor
+    public long getTotalReclaimedMeals() {
+        long sum = 0;
+        Philosopher[] philosophers = everySeat();
+        for (int i=0; i<philosophers.length; i++) {
+                sum += philosophers[i].getReclaimedMeals();
+        }
+        return sum;
+    }
+    // Nanoseconds all Philosophers together spent in a state
+    public long getStateTimeTotal(Philosopher.STATE state) {
+        long sum = 0;
+        Philosopher[] philosophers = everySeat();
+        for (int i=0; i<philosophers.length; i++) {
+                sum += philosophers[i].getStateTime(state);
+        }
+        return sum;
+    }
+    // Fraction of all Philosopher time spent in a state
+    public double getStateShare(Philosopher.STATE state) {
+        long all = 0;
+        for (Philosopher.STATE s : Philosopher.STATE.values()) {
+            all += getStateTimeTotal(s);
+        }
+        return all == 0 ? 0.0 : (double) getStateTimeTotal(state) / all;
+    }
+    // Fork wait latencies of every seat merged into one histogram
+    public LatencyHistogram getForkWaitHistogram() {
+        LatencyHistogram merged = new LatencyHistogram();
+        Philosopher[] philosophers = everySeat();
         for (int i=0; i<philosophers.length; i++) {
-                sum += philosophers[i].getNumberOfTimesEating();
+                merged.add(philosophers[i].getForkWaitHistogram());
         }
-        return (double)sum / philosophers.length;
+        return merged;
+    }
+    public double getAverageMeals() {
+        return mealStatistics.getAverage();
+    }
+    public double getMealVariance() {
+        return mealStatistics.getVariance();
+    }
+    // Jain's fairness index of the meal counts: 1.0 is perfectly fair
+    public double getFairnessIndex() {
+        return mealStatistics.getFairnessIndex();
     }
 }
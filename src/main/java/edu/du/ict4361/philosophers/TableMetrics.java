@@ -0,0 +1,316 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// TableMetrics.java
+//
+// Live metrics of a running Table, read straight from the counters the Table, the Forks and the
+// Philosophers already keep: MealStatistics, Fork acquisition/contention/held-time counts and
+// Philosopher state residency. Reading them takes no fork and never builds a status string,
+// so scraping a busy table does not slow the Philosophers down.
+//
+// Published two ways:
+//   - as a JMX MBean (register())
+//   - as Prometheus text (writePrometheus()), served by MetricsServer
+// Per-fork series are only written for tables up to PER_FORK_LIMIT forks; bigger tables get totals.
+////////////////////////////////////
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class TableMetrics implements TableMetricsMBean {
+    public static final String OBJECT_NAME = "edu.du.ict4361.philosophers:type=Table";
+    public static final int PER_FORK_LIMIT = 1000;
+
+    private static final Philosopher.STATE[] STATES = Philosopher.STATE.values();
+
+    private final Table table;
+
+    // For getRecentMealsPerSecond: the previous reading
+    private long lastMeals;
+    private long lastNanos = System.nanoTime();
+
+    public TableMetrics(Table table) {
+        this.table = table;
+    }
+
+    // Register as an MBean with the platform MBean server (replacing a previous Table's)
+    public void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+    }
+
+    public void unregister() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+    }
+
+    /// Meals
+
+    @Override
+    public int getNumberOfPhilosophers() {
+        return table.getNumberOfPhilosophers();
+    }
+
+    @Override
+    public int getNumberOfForks() {
+        return table.getNumberOfForks();
+    }
+
+    @Override
+    public long getMealsTotal() {
+        return table.getTotalMeals();
+    }
+
+    @Override
+    public int getMinimumMeals() {
+        return table.getMinimumMeals();
+    }
+
+    @Override
+    public int getMaximumMeals() {
+        return table.getMaximumMeals();
+    }
+
+    @Override
+    public double getFairnessIndex() {
+        return table.getFairnessIndex();
+    }
+
+    @Override
+    public double getMealsPerSecond() {
+        long started = table.getStartedNanos();
+        if (started == 0) {
+            return 0.0;
+        }
+        return table.getTotalMeals() / Math.max(1e-9, (System.nanoTime() - started) / 1e9);
+    }
+
+    @Override
+    public synchronized double getRecentMealsPerSecond() {
+        long now = System.nanoTime();
+        long meals = table.getTotalMeals();
+        double rate = (meals - lastMeals) / Math.max(1e-9, (now - lastNanos) / 1e9);
+        lastMeals = meals;
+        lastNanos = now;
+        return rate;
+    }
+
+    /// Forks
+
+    @Override
+    public long getForkAcquisitions() {
+        long sum = 0;
+        for (Fork fork : table.getSeatRing().forks()) {
+            sum += fork.getAcquisitions();
+        }
+        return sum;
+    }
+
+    @Override
+    public long getForkContendedAcquisitions() {
+        long sum = 0;
+        for (Fork fork : table.getSeatRing().forks()) {
+            sum += fork.getContendedAcquisitions();
+        }
+        return sum;
+    }
+
+    @Override
+    public double getForkContentionRatio() {
+        long acquisitions = getForkAcquisitions();
+        return acquisitions == 0 ? 0.0 : (double) getForkContendedAcquisitions() / acquisitions;
+    }
+
+    @Override
+    public int getForksInUse() {
+        int inUse = 0;
+        for (Fork fork : table.getSeatRing().forks()) {
+            if (fork.getCurrentHolder() >= 0) {
+                inUse++;
+            }
+        }
+        return inUse;
+    }
+
+    @Override
+    public long[] getForkAcquisitionCounts() {
+        SeatRing ring = table.getSeatRing();
+        long[] counts = new long[ring.getNumberOfForks()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = ring.getFork(i).getAcquisitions();
+        }
+        return counts;
+    }
+
+    @Override
+    public long[] getForkContendedCounts() {
+        SeatRing ring = table.getSeatRing();
+        long[] counts = new long[ring.getNumberOfForks()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = ring.getFork(i).getContendedAcquisitions();
+        }
+        return counts;
+    }
+
+    /// Philosopher states
+
+    @Override
+    public double getThinkingSeconds() {
+        return table.getStateTimeTotal(Philosopher.STATE.THINKING) / 1e9;
+    }
+
+    @Override
+    public double getEatingSeconds() {
+        return table.getStateTimeTotal(Philosopher.STATE.EATING) / 1e9;
+    }
+
+    @Override
+    public double getPickingUpForkSeconds() {
+        return table.getStateTimeTotal(Philosopher.STATE.PICKING_UP_FORK) / 1e9;
+    }
+
+    @Override
+    public double getPuttingDownForkSeconds() {
+        return table.getStateTimeTotal(Philosopher.STATE.PUTTING_DOWN_FORK) / 1e9;
+    }
+
+    @Override
+    public double getIdleSeconds() {
+        return table.getStateTimeTotal(Philosopher.STATE.IDLE) / 1e9;
+    }
+
+    @Override
+    public double getEatingShare() {
+        return table.getStateShare(Philosopher.STATE.EATING);
+    }
+
+    @Override
+    public double getForkWaitP99Millis() {
+        return table.getForkWaitHistogram().getValueAtPercentile(99) / 1e6;
+    }
+
+    @Override
+    public long getRetries() {
+        return table.getTotalRetries();
+    }
+
+    /// Deadlock detection
+
+    @Override
+    public long getDeadlocksDetected() {
+        DeadlockDetector detector = table.getDeadlockDetector();
+        return detector == null ? 0 : detector.getDeadlockCount();
+    }
+
+    @Override
+    public String getLastDeadlockCycle() {
+        DeadlockDetector detector = table.getDeadlockDetector();
+        int[] cycle = (detector == null) ? null : detector.getLastCycle();
+        return cycle == null ? "" : Arrays.toString(cycle);
+    }
+
+    /// Prometheus text exposition format
+
+    private static void family(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, double value) {
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, long value) {
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    public void writePrometheus(StringBuilder sb) {
+        SeatRing ring = table.getSeatRing(); // one arrangement of seats and forks, however they change
+        int seats = ring.getNumberOfSeats();
+        int forks = ring.getNumberOfForks();
+
+        family(sb, "philosophers_seats", "gauge", "Number of philosophers at the table");
+        sample(sb, "philosophers_seats", seats);
+        family(sb, "philosophers_forks", "gauge", "Number of forks at the table");
+        sample(sb, "philosophers_forks", forks);
+        family(sb, "philosophers_meals_total", "counter", "Meals eaten by all philosophers");
+        sample(sb, "philosophers_meals_total", getMealsTotal());
+        family(sb, "philosophers_meals_per_second", "gauge", "Meals per second since the table started");
+        sample(sb, "philosophers_meals_per_second", getMealsPerSecond());
+        family(sb, "philosophers_meals_min", "gauge", "Fewest meals eaten by one philosopher");
+        sample(sb, "philosophers_meals_min", getMinimumMeals());
+        family(sb, "philosophers_meals_max", "gauge", "Most meals eaten by one philosopher");
+        sample(sb, "philosophers_meals_max", getMaximumMeals());
+        family(sb, "philosophers_fairness_index", "gauge", "Jain's fairness index of the meal counts");
+        sample(sb, "philosophers_fairness_index", getFairnessIndex());
+
+        int[] seatsInState = new int[STATES.length];
+        for (int seat = 0; seat < seats; seat++) {
+            seatsInState[ring.getPhilosopher(seat).getState().ordinal()]++;
+        }
+        family(sb, "philosophers_state_seats", "gauge", "Philosophers currently in each state");
+        for (Philosopher.STATE state : STATES) {
+            sb.append("philosophers_state_seats{state=\"").append(state).append("\"} ")
+              .append(seatsInState[state.ordinal()]).append('\n');
+        }
+        family(sb, "philosophers_state_seconds_total", "counter", "Time all philosophers spent in each state");
+        for (Philosopher.STATE state : STATES) {
+            sb.append("philosophers_state_seconds_total{state=\"").append(state).append("\"} ")
+              .append(table.getStateTimeTotal(state) / 1e9).append('\n');
+        }
+
+        LatencyHistogram forkWait = table.getForkWaitHistogram();
+        family(sb, "philosophers_fork_wait_seconds", "summary", "Time from reaching for the forks to eating");
+        for (double quantile : new double[] { 0.5, 0.9, 0.99, 0.999 }) {
+            sb.append("philosophers_fork_wait_seconds{quantile=\"").append(quantile).append("\"} ")
+              .append(forkWait.getValueAtPercentile(quantile * 100) / 1e9).append('\n');
+        }
+        sample(sb, "philosophers_fork_wait_seconds_sum", forkWait.getMean() * forkWait.getTotalCount() / 1e9);
+        sample(sb, "philosophers_fork_wait_seconds_count", forkWait.getTotalCount());
+
+        family(sb, "philosophers_forks_in_use", "gauge", "Forks currently held");
+        sample(sb, "philosophers_forks_in_use", getForksInUse());
+        family(sb, "philosophers_forks_acquisitions_total", "counter", "Fork pick ups, all forks");
+        sample(sb, "philosophers_forks_acquisitions_total", getForkAcquisitions());
+        family(sb, "philosophers_forks_contended_total", "counter", "Fork pick ups that had to wait, all forks");
+        sample(sb, "philosophers_forks_contended_total", getForkContendedAcquisitions());
+        if (forks <= PER_FORK_LIMIT) {
+            family(sb, "philosophers_fork_acquisitions_total", "counter", "Pick ups of each fork");
+            for (int i = 0; i < forks; i++) {
+                sb.append("philosophers_fork_acquisitions_total{fork=\"").append(i + 1).append("\"} ")
+                  .append(ring.getFork(i).getAcquisitions()).append('\n');
+            }
+            family(sb, "philosophers_fork_contended_total", "counter", "Pick ups of each fork that had to wait");
+            for (int i = 0; i < forks; i++) {
+                sb.append("philosophers_fork_contended_total{fork=\"").append(i + 1).append("\"} ")
+                  .append(ring.getFork(i).getContendedAcquisitions()).append('\n');
+            }
+            family(sb, "philosophers_fork_held_seconds_total", "counter", "Time each fork was held");
+            for (int i = 0; i < forks; i++) {
+                sb.append("philosophers_fork_held_seconds_total{fork=\"").append(i + 1).append("\"} ")
+                  .append(ring.getFork(i).getHeldNanosTotal() / 1e9).append('\n');
+            }
+        }
+
+        family(sb, "philosophers_retries_total", "counter", "Second fork timeouts (back-off strategies)");
+        sample(sb, "philosophers_retries_total", getRetries());
+        DeadlockDetector detector = table.getDeadlockDetector();
+        if (detector != null) {
+            family(sb, "philosophers_deadlocks_total", "counter", "Wait-for cycles found by the deadlock detector");
+            sample(sb, "philosophers_deadlocks_total", detector.getDeadlockCount());
+            family(sb, "philosophers_first_deadlock_seconds", "gauge", "Time from the table start to the first deadlock, -1 if none");
+            sample(sb, "philosophers_first_deadlock_seconds",
+                   detector.getFirstDetectionNanos() < 0 ? -1.0 : detector.getFirstDetectionNanos() / 1e9);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// TableMetricsMBean.java
+//
+// The JMX management interface of TableMetrics (a standard MBean: the attributes are the getters).
+// Registered as edu.du.ict4361.philosophers:type=Table; browse it with jconsole or VisualVM.
+////////////////////////////////////
+public interface TableMetricsMBean {
+    int getNumberOfPhilosophers();
+    int getNumberOfForks();
+
+    long getMealsTotal();
+    int getMinimumMeals();
+    int getMaximumMeals();
+    double getFairnessIndex();
+    double getMealsPerSecond();        // since the Table started
+    double getRecentMealsPerSecond();  // since the previous read of this attribute
+
+    long getForkAcquisitions();
+    long getForkContendedAcquisitions();
+    double getForkContentionRatio();
+    int getForksInUse();
+    long[] getForkAcquisitionCounts();
+    long[] getForkContendedCounts();
+
+    double getThinkingSeconds();
+    double getEatingSeconds();
+    double getPickingUpForkSeconds();
+    double getPuttingDownForkSeconds();
+    double getIdleSeconds();
+    double getEatingShare();
+    double getForkWaitP99Millis();
+
+    long getRetries();
+
+    long getDeadlocksDetected();
+    String getLastDeadlockCycle();
+}
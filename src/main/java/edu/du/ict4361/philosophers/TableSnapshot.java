@@ -0,0 +1,180 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// TableSnapshot.java
+//
+// A point-in-time copy of a Table: each seat's state and meal count, and each fork's holder,
+// in primitive arrays that are reused from one capture to the next (no garbage per tick).
+//
+// Reading the seats one after the other while the Philosophers keep going can mix moments:
+// a seat shown EATING while its neighbor holds its fork. What must agree is each seat with the
+// forks it needs, so capture() makes one pass over everything and then checks each seat locally:
+// it reads the seat, the holders of its forks, and the seat again. A seat that moved is stored
+// anew and checked again, and so are the seats a changed fork holder concerns (the holder it had
+// and the one it has now). Every seat then agrees with its forks, at a moment of its own; that
+// costs one more read of each seat and its forks plus the re-reads of whatever moved, however
+// big the table. A seat still moving after MAX_REREADS is left as read, and isConsistent() says so.
+// All the reads are of the one SeatRing the Table had when capture() started, so seats joining or
+// leaving meanwhile do not shift positions under it (getSeatRing() is the arrangement shown).
+// Fork holdings are always taken from the one forkHolders array, so two seats never both
+// appear to hold the same fork.
+////////////////////////////////////
+
+import java.util.Arrays;
+
+public class TableSnapshot {
+    private static final int MAX_REREADS = 4;
+    private static final Philosopher.STATE[] STATES = Philosopher.STATE.values();
+
+    private SeatRing ring;
+    private int seats = -1;
+    private int forks = -1;
+    private int[] states;
+    private int[] meals;
+    private int[] forkHolders;
+    // The seats still to check, a ring buffer, and how often each was re-read
+    private int[] queue;
+    private boolean[] queued;
+    private int[] rereads;
+    private int head;
+    private int size;
+
+    private int unsettled;
+    private long capturedNanos;
+
+    private void allocate(int n, int m) {
+        if (seats != n) {
+            seats = n;
+            states = new int[n];
+            meals = new int[n];
+            queue = new int[n];
+            queued = new boolean[n];
+            rereads = new int[n];
+        }
+        if (forks != m) {
+            forks = m;
+            forkHolders = new int[m];
+        }
+    }
+
+    private void collect() {
+        for (int seat = 0; seat < seats; seat++) {
+            Philosopher phil = ring.getPhilosopher(seat);
+            states[seat] = phil.getState().ordinal();
+            meals[seat] = phil.getNumberOfTimesEating();
+        }
+        for (int fork = 0; fork < forks; fork++) {
+            forkHolders[fork] = ring.getFork(fork).getCurrentHolder();
+        }
+    }
+
+    private void check(int seat) {
+        if (!queued[seat] && rereads[seat] <= MAX_REREADS) {
+            queued[seat] = true;
+            queue[(head + size++) % seats] = seat;
+        }
+    }
+
+    // A fork changed hands: the seat that held it, or holds it now, must agree with it again
+    private void concerns(int seatId, int except) {
+        if (seatId >= 0) {
+            int seat = ring.getPosition(seatId);
+            if (seat >= 0 && seat != except) {
+                check(seat);
+            }
+        }
+    }
+
+    // Read the seat, the holders of its forks and the seat again; true if nothing moved since stored
+    private boolean reread(int seat) {
+        Philosopher phil = ring.getPhilosopher(seat);
+        int state = phil.getState().ordinal();
+        int meal = phil.getNumberOfTimesEating();
+        boolean same = state == states[seat] && meal == meals[seat];
+        states[seat] = state;
+        meals[seat] = meal;
+        for (int k = 0; k < ring.getForkCount(seat); k++) {
+            int fork = ring.getForkIndex(seat, k);
+            int holder = ring.getFork(fork).getCurrentHolder();
+            if (holder != forkHolders[fork]) {
+                concerns(forkHolders[fork], seat);
+                concerns(holder, seat);
+                forkHolders[fork] = holder;
+                same = false;
+            }
+        }
+        return same && phil.getState().ordinal() == state && phil.getNumberOfTimesEating() == meal;
+    }
+
+    public TableSnapshot capture(Table table) {
+        ring = table.getSeatRing();
+        allocate(ring.getNumberOfSeats(), ring.getNumberOfForks());
+        collect();
+        Arrays.fill(rereads, 0);
+        head = 0;
+        size = 0;
+        for (int seat = 0; seat < seats; seat++) {
+            check(seat);
+        }
+        while (size > 0) {
+            int seat = queue[head];
+            head = (head + 1) % seats;
+            size--;
+            queued[seat] = false;
+            if (!reread(seat)) {
+                rereads[seat]++;
+                check(seat);
+            }
+        }
+        unsettled = 0;
+        for (int seat = 0; seat < seats; seat++) {
+            if (rereads[seat] > MAX_REREADS) {
+                unsettled++;
+            }
+        }
+        capturedNanos = System.nanoTime();
+        return this;
+    }
+
+    // The seats and forks the snapshot was taken of
+    public SeatRing getSeatRing() {
+        return ring;
+    }
+
+    public int getNumberOfSeats() {
+        return seats;
+    }
+
+    public int getNumberOfForks() {
+        return forks;
+    }
+
+    public Philosopher.STATE getState(int seat) {
+        return STATES[states[seat]];
+    }
+
+    public int getStateOrdinal(int seat) {
+        return states[seat];
+    }
+
+    public int getMeals(int seat) {
+        return meals[seat];
+    }
+
+    public int getForkHolder(int fork) {
+        return forkHolders[fork];
+    }
+
+    public boolean isConsistent() {
+        return unsettled == 0;
+    }
+
+    // Seats still moving after MAX_REREADS, left as last read
+    public int getUnsettledSeats() {
+        return unsettled;
+    }
+
+    public long getCapturedNanos() {
+        return capturedNanos;
+    }
+}
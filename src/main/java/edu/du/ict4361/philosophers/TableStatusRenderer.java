@@ -0,0 +1,183 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// TableStatusRenderer.java
+//
+// Writes the status of a Table from a TableSnapshot into a reusable StringBuilder,
+// and from there to a Writer through a reusable char buffer: no String per seat, no
+// StringBuffer per call, so a status report of a large table does not leave megabytes
+// of garbage behind every tick.
+//
+//   FULL    - one line per seat, the same text as Philosopher.getStatus()
+//   COMPACT - a few lines for the whole table: seats per state, forks in use, meal spread
+//             (all counted from the one snapshot, so the lines describe the same moment)
+//   NONE    - nothing
+////////////////////////////////////
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+public class TableStatusRenderer {
+
+    public enum Mode { FULL, COMPACT, NONE }
+
+    private static final Philosopher.STATE[] STATES = Philosopher.STATE.values();
+
+    private final StringBuilder text = new StringBuilder();
+    private final TableSnapshot snapshot = new TableSnapshot();
+    private final int[] stateCounts = new int[STATES.length];
+    private char[] buffer = new char[8192];
+
+    public static Mode modeFor(String name) {
+        switch (name) {
+        case "full":
+            return Mode.FULL;
+        case "compact":
+            return Mode.COMPACT;
+        case "none":
+            return Mode.NONE;
+        default:
+            throw new IllegalArgumentException("Unknown status mode: " + name);
+        }
+    }
+
+    // Capture the table and render it; the returned builder is reused by the next call
+    public StringBuilder render(Table table, Mode mode) {
+        text.setLength(0);
+        if (mode == Mode.NONE) {
+            return text;
+        }
+        if (!table.isPartyIsOn()) {
+            text.append("Party is over");
+            return text;
+        }
+        snapshot.capture(table);
+        if (mode == Mode.FULL) {
+            renderFull(table, snapshot, text);
+        } else {
+            renderCompact(table, snapshot, text);
+        }
+        return text;
+    }
+
+    public static void renderFull(Table table, TableSnapshot snapshot, StringBuilder sb) {
+        int seats = snapshot.getNumberOfSeats();
+        sb.append("Table status: table has ").append(seats).append(" seats").append('\n');
+        for (int seat = 0; seat < seats; seat++) {
+            sb.append("  ");
+            renderSeat(table, snapshot, seat, sb);
+            sb.append('\n');
+        }
+    }
+
+    // Same wording as Philosopher.getStatus(), from the snapshot
+    public static void renderSeat(Table table, TableSnapshot snapshot, int seat, StringBuilder sb) {
+        SeatRing ring = snapshot.getSeatRing();
+        Philosopher phil = ring.getPhilosopher(seat);
+        if (ring.getForkCount(seat) != 2) {
+            sb.append(phil.getName());
+            sb.append(" is assigned ").append(ring.getForkCount(seat)).append(" forks and ");
+            sb.append(" has eaten ").append(snapshot.getMeals(seat));
+            sb.append(" times, and currently is holding ").append(forksHeld(table, snapshot, seat));
+            sb.append(" of them in state ").append(snapshot.getState(seat));
+            return;
+        }
+        int leftIndex = ring.getForkIndex(seat, 0);
+        int rightIndex = ring.getForkIndex(seat, 1);
+        Fork leftFork = ring.getFork(leftIndex);
+        Fork rightFork = ring.getFork(rightIndex);
+        sb.append(phil.getName());
+        sb.append(" is assigned forks l: ").append(leftFork.getName());
+        sb.append(" and r: ").append(rightFork.getName());
+        sb.append(" and  has eaten ").append(snapshot.getMeals(seat));
+        sb.append(" times, and currently is holding ");
+        int id = phil.getSeatId(); // fork holders are seat ids
+        boolean left = snapshot.getForkHolder(leftIndex) == id;
+        boolean right = snapshot.getForkHolder(rightIndex) == id;
+        if (left && right) {
+            sb.append("both forks");
+        } else if (!left && !right) {
+            sb.append("neither fork");
+        } else if (left) {
+            sb.append("the left fork (").append(leftFork.getName()).append(") ");
+        } else {
+            sb.append("the right fork (").append(rightFork.getName()).append(") ");
+        }
+        sb.append(" in state ").append(snapshot.getState(seat));
+        if (phil.getNumberOfRetries() > 0) {
+            sb.append(" (retried ").append(phil.getNumberOfRetries())
+              .append(" times, backed off ").append(phil.getBackoffTimeTotal()).append(" ms)");
+        }
+    }
+
+    // How many of its forks the seat holds in the snapshot
+    private static int forksHeld(Table table, TableSnapshot snapshot, int seat) {
+        SeatRing ring = snapshot.getSeatRing();
+        int held = 0;
+        int id = ring.getPhilosopher(seat).getSeatId();
+        for (int k = 0; k < ring.getForkCount(seat); k++) {
+            if (snapshot.getForkHolder(ring.getForkIndex(seat, k)) == id) {
+                held++;
+            }
+        }
+        return held;
+    }
+
+    public void renderCompact(Table table, TableSnapshot snapshot, StringBuilder sb) {
+        int seats = snapshot.getNumberOfSeats();
+        int forks = snapshot.getNumberOfForks();
+        Arrays.fill(stateCounts, 0);
+        int forksInUse = 0;
+        int allForks = 0;
+        long meals = 0;
+        int minMeals = seats == 0 ? 0 : Integer.MAX_VALUE;
+        int maxMeals = 0;
+        for (int seat = 0; seat < seats; seat++) {
+            stateCounts[snapshot.getStateOrdinal(seat)]++;
+            int eaten = snapshot.getMeals(seat);
+            meals += eaten;
+            minMeals = Math.min(minMeals, eaten);
+            maxMeals = Math.max(maxMeals, eaten);
+            if (forksHeld(table, snapshot, seat) == snapshot.getSeatRing().getForkCount(seat)) {
+                allForks++;
+            }
+        }
+        for (int fork = 0; fork < forks; fork++) {
+            if (snapshot.getForkHolder(fork) >= 0) {
+                forksInUse++;
+            }
+        }
+        sb.append("Table status: table has ").append(seats).append(" seats");
+        if (snapshot.isConsistent()) {
+            sb.append(" (consistent snapshot)");
+        } else {
+            sb.append(" (snapshot: ").append(snapshot.getUnsettledSeats()).append(" seats still moving)");
+        }
+        sb.append('\n');
+        sb.append("  States:");
+        for (int s = 0; s < STATES.length; s++) {
+            sb.append(' ').append(STATES[s]).append(' ').append(stateCounts[s]);
+        }
+        sb.append('\n');
+        sb.append("  Forks in use: ").append(forksInUse).append(" of ").append(forks)
+          .append(", seats holding all their forks: ").append(allForks).append('\n');
+        sb.append("  Meals: total ").append(meals)
+          .append(", min ").append(minMeals)
+          .append(", max ").append(maxMeals).append('\n');
+    }
+
+    // Copy the rendered text to out without turning it into a String
+    public void writeTo(Writer out) throws IOException {
+        int length = text.length();
+        if (buffer.length < Math.min(length, 1 << 20)) {
+            buffer = new char[Math.min(length, 1 << 20)];
+        }
+        for (int start = 0; start < length; start += buffer.length) {
+            int end = Math.min(length, start + buffer.length);
+            text.getChars(start, end, buffer, 0);
+            out.write(buffer, 0, end - start);
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,291 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// ThinkTimeController.java
+//
+// Adapts each Philosopher's think time while the Table runs, to hold the Forks at a target
+// utilization (the share of time a fork is in somebody's hand) instead of relying on a lucky
+// choice of fixed times.
+//
+// Every period it measures, from the counters the Forks and Philosophers keep anyway:
+//   - the fork utilization: fork held time over the period, divided by forks * period
+//   - per seat, the share of the period spent waiting to pick up forks (contention)
+// and adjusts each seat's think time:
+//   - a seat that waited more than contentionLimit of the period backs off: its think time is
+//     multiplied by backoffFactor (at least one meal first), the multiplicative decrease of AIMD
+//   - every other seat tracks the target: utilization is about inversely proportional to a seat's
+//     cycle (think time plus one meal: eat time and two fork times), so the cycle is scaled by
+//     (utilization / target) ^ GAIN, at most halved or doubled per period. GAIN < 1 damps it.
+// The law: cycle *= clamp((u / target) ^ GAIN, 1/2, 2); if contended, think = max(think, meal) * backoffFactor.
+//
+// The controller has converged once the utilization (smoothed over a few periods) has stayed
+// within TOLERANCE of the target for STABLE_PERIODS periods in a row; from then on, meals per
+// second are counted as the steady state. The Table starts and stops the controller with itself.
+// Only threaded tables are controlled; the Simulation keeps the fixed think time.
+////////////////////////////////////
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class ThinkTimeController {
+    public static final long DEFAULT_PERIOD_MILLIS = 100;
+    static final double TOLERANCE = 0.05;
+    static final int STABLE_PERIODS = 10;
+    private static final double SMOOTHING = 0.3; // weight of the newest period in the smoothed utilization
+    private static final double GAIN = 0.5;
+
+    private final Table table;
+    private final double target;
+    private long periodMillis = DEFAULT_PERIOD_MILLIS;
+    private double contentionLimit = 0.9;
+    private double backoffFactor = 2.0;
+    private long maxThinkNanos = 10_000_000_000L;
+
+    private ScheduledExecutorService scheduler;
+
+    // Control state, only touched by the scheduler thread (and by start/stop around it)
+    private long[] think;     // each seat's think time
+    private long[] lastWait;  // each seat's PICKING_UP_FORK nanoseconds at the last period
+    private long lastHeld;
+    private long lastNanos;
+    private long startNanos;
+    private long startMeals;
+    private int stable;
+    private long stableSinceNanos;
+    private long stableSinceMeals;
+    private long increases;
+    private long decreases;
+
+    // Results, read by other threads
+    private volatile double utilization;   // last period
+    private volatile double smoothed = -1; // -1: no period yet
+    private volatile long convergedNanos = -1; // when the steady state began (System.nanoTime), -1: not yet
+    private volatile long convergedMeals;
+    private volatile long endNanos = -1;
+    private volatile long endMeals;
+
+    public ThinkTimeController(Table table, double target) {
+        if (target <= 0 || target > 1) {
+            throw new IllegalArgumentException("Target utilization must be in (0, 1]: " + target);
+        }
+        this.table = table;
+        this.target = target;
+    }
+
+    public double getTarget() {
+        return target;
+    }
+
+    public long getPeriodMillis() {
+        return periodMillis;
+    }
+
+    public void setPeriodMillis(long periodMillis) {
+        this.periodMillis = Math.max(1, periodMillis);
+    }
+
+    public double getContentionLimit() {
+        return contentionLimit;
+    }
+
+    // A seat that waited for forks more than this share of a period backs off, whatever the utilization
+    public void setContentionLimit(double contentionLimit) {
+        this.contentionLimit = contentionLimit;
+    }
+
+    public double getBackoffFactor() {
+        return backoffFactor;
+    }
+
+    public void setBackoffFactor(double backoffFactor) {
+        this.backoffFactor = Math.max(1.0, backoffFactor);
+    }
+
+    public long getMaxThinkNanos() {
+        return maxThinkNanos;
+    }
+
+    public void setMaxThinkNanos(long maxThinkNanos) {
+        this.maxThinkNanos = maxThinkNanos;
+    }
+
+    // Called by Table.startTable once the Philosophers are running.
+    // A restarted Table keeps the think times learned so far.
+    synchronized void start() {
+        int seats = table.getNumberOfPhilosophers();
+        if (think == null) {
+            think = new long[seats];
+            for (int seat = 0; seat < seats; seat++) {
+                think[seat] = table.getThinkNanos();
+            }
+        }
+        lastWait = new long[seats];
+        for (int seat = 0; seat < seats; seat++) {
+            Philosopher phil = table.getPhilosopher(seat);
+            phil.setThinkNanos(think[seat]);
+            lastWait[seat] = phil.getStateTime(Philosopher.STATE.PICKING_UP_FORK);
+        }
+        lastHeld = heldNanos();
+        lastNanos = System.nanoTime();
+        startNanos = lastNanos;
+        startMeals = table.getTotalMeals();
+        stable = 0;
+        smoothed = -1;
+        convergedNanos = -1;
+        endNanos = -1;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Think time controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::adjust, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Called by Table.stop before the Table drains, so the drain is not taken for contention
+    synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(periodMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        endNanos = System.nanoTime();
+        endMeals = table.getTotalMeals();
+    }
+
+    private long heldNanos() {
+        long sum = 0;
+        for (int f = 0; f < table.getNumberOfForks(); f++) {
+            sum += table.getFork(f).getHeldNanosTotal();
+        }
+        return sum;
+    }
+
+    // One control period
+    private void adjust() {
+        long now = System.nanoTime();
+        long elapsed = now - lastNanos;
+        if (elapsed <= 0) {
+            return;
+        }
+        long held = heldNanos();
+        double u = (double) (held - lastHeld) / ((double) elapsed * table.getNumberOfForks());
+        lastHeld = held;
+        long meal = Math.max(1_000, table.getEatNanos() + 2 * table.getForkNanos());
+        double scale = Math.min(2.0, Math.max(0.5, Math.pow(u / target, GAIN)));
+        for (int seat = 0; seat < think.length; seat++) {
+            Philosopher phil = table.getPhilosopher(seat);
+            long wait = phil.getStateTime(Philosopher.STATE.PICKING_UP_FORK);
+            double waitShare = (double) (wait - lastWait[seat]) / elapsed;
+            lastWait[seat] = wait;
+            long next;
+            if (waitShare > contentionLimit) {
+                next = (long) (Math.max(think[seat], meal) * backoffFactor);
+            } else {
+                next = (long) ((think[seat] + meal) * scale) - meal;
+            }
+            next = Math.min(maxThinkNanos, Math.max(0, next));
+            if (next > think[seat]) {
+                increases++;
+            } else if (next < think[seat]) {
+                decreases++;
+            }
+            think[seat] = next;
+            phil.setThinkNanos(next);
+        }
+        utilization = u;
+        smoothed = (smoothed < 0) ? u : SMOOTHING * u + (1 - SMOOTHING) * smoothed;
+
+        if (Math.abs(smoothed - target) <= TOLERANCE) {
+            if (stable++ == 0) {
+                stableSinceNanos = lastNanos;
+                stableSinceMeals = table.getTotalMeals();
+            }
+            if (stable >= STABLE_PERIODS && convergedNanos < 0) {
+                convergedMeals = stableSinceMeals;
+                convergedNanos = stableSinceNanos;
+            }
+        } else {
+            stable = 0;
+        }
+        lastNanos = now;
+    }
+
+    // Fork utilization in the last period, and smoothed over the last few (-1 before the first period)
+    public double getUtilization() {
+        return utilization;
+    }
+
+    public double getSmoothedUtilization() {
+        return smoothed;
+    }
+
+    public boolean isConverged() {
+        return convergedNanos >= 0;
+    }
+
+    // Nanoseconds from the start until the utilization settled near the target (-1: not yet)
+    public long getConvergenceNanos() {
+        long converged = convergedNanos;
+        return converged < 0 ? -1 : converged - startNanos;
+    }
+
+    // Meals per second since the controller converged (0 if it did not)
+    public double getSteadyMealsPerSecond() {
+        long converged = convergedNanos;
+        if (converged < 0) {
+            return 0;
+        }
+        long end = endNanos;
+        long meals = (end < 0) ? table.getTotalMeals() : endMeals;
+        long nanos = ((end < 0) ? System.nanoTime() : end) - converged;
+        return (meals - convergedMeals) / Math.max(1e-9, nanos / 1e9);
+    }
+
+    // Meals per second over the whole controlled run
+    public double getMealsPerSecond() {
+        long end = endNanos;
+        long meals = (end < 0) ? table.getTotalMeals() : endMeals;
+        long nanos = ((end < 0) ? System.nanoTime() : end) - startNanos;
+        return (meals - startMeals) / Math.max(1e-9, nanos / 1e9);
+    }
+
+    public long getIncreases() {
+        return increases;
+    }
+
+    public long getDecreases() {
+        return decreases;
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder(200);
+        sb.append("target utilization ").append(String.format("%.2f", target));
+        if (isConverged()) {
+            sb.append(", converged after ").append(String.format("%.3f", getConvergenceNanos() / 1e9)).append(" seconds");
+            sb.append(", steady state ").append(String.format("%.2f", getSteadyMealsPerSecond())).append(" meals/s");
+        } else {
+            sb.append(", did not converge");
+        }
+        sb.append(" (").append(String.format("%.2f", getMealsPerSecond())).append(" meals/s overall)");
+        sb.append(", utilization ").append(String.format("%.2f", Math.max(0, smoothed)));
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        long sum = 0;
+        for (int seat = 0; seat < table.getNumberOfPhilosophers(); seat++) {
+            long t = table.getPhilosopher(seat).getThinkNanos();
+            min = Math.min(min, t);
+            max = Math.max(max, t);
+            sum += t;
+        }
+        sb.append(", think time ").append(String.format("%.3f", min / 1e6));
+        sb.append(" to ").append(String.format("%.3f", max / 1e6));
+        sb.append(" ms (average ").append(String.format("%.3f", sum / 1e6 / Math.max(1, table.getNumberOfPhilosophers()))).append(")");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,194 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// TimingDistribution.java
+//
+// How a think, eat or fork time varies from one draw to the next. The Table's time (or a seat's,
+// see WorkloadProfile) is the mean, and every draw is a fresh sample:
+//   constant        - always the mean (the original behavior)
+//   exponential     - memoryless, as arrivals of independent work
+//   lognormal[:s]   - right skewed, s the sigma of the underlying normal (default 1.0)
+//   pareto[:a]      - heavy tailed, a the shape (default 1.5, must be > 1 for a finite mean):
+//                     a few very long holds stall the neighbors
+//   trace:file      - replays durations from a file, one per line (250us, 1.5ms, 2s; plain numbers
+//                     are milliseconds; # starts a comment), scaled so their average is the mean.
+//                     Each thread starts at a random line and wraps around.
+// Samples come from ThreadLocalRandom: no shared generator, no contention between the seats.
+// Samples are capped at MAX_FACTOR times the mean, so one unlucky draw cannot stall a run for hours.
+////////////////////////////////////
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+public abstract class TimingDistribution {
+    static final double MAX_FACTOR = 100;
+
+    public static final TimingDistribution CONSTANT = new TimingDistribution() {
+        @Override
+        public long sample(long mean) {
+            return mean;
+        }
+
+        @Override
+        public String describe() {
+            return "constant";
+        }
+    };
+
+    // A nanosecond sample with the given mean
+    public abstract long sample(long mean);
+
+    public abstract String describe();
+
+    public boolean isConstant() {
+        return this == CONSTANT;
+    }
+
+    static long cap(double sample, long mean) {
+        return (long) Math.min(sample, mean * MAX_FACTOR);
+    }
+
+    // "exponential", "lognormal:0.5", "pareto:1.2", "trace:holds.txt", ...
+    public static TimingDistribution forName(String spec) {
+        String name = spec.trim();
+        String parameter = null;
+        int colon = name.indexOf(':');
+        if (colon >= 0) {
+            parameter = name.substring(colon + 1);
+            name = name.substring(0, colon);
+        }
+        switch (name) {
+        case "constant":
+            return CONSTANT;
+        case "exponential":
+            return new Exponential();
+        case "lognormal":
+            return new LogNormal(parameter == null ? 1.0 : Double.parseDouble(parameter));
+        case "pareto":
+            return new Pareto(parameter == null ? 1.5 : Double.parseDouble(parameter));
+        case "trace":
+            if (parameter == null) {
+                throw new IllegalArgumentException("A trace needs a file: trace:file");
+            }
+            return Trace.load(parameter);
+        default:
+            throw new IllegalArgumentException("Unknown timing distribution: " + spec);
+        }
+    }
+
+    static class Exponential extends TimingDistribution {
+        @Override
+        public long sample(long mean) {
+            return cap(-mean * Math.log(1.0 - ThreadLocalRandom.current().nextDouble()), mean);
+        }
+
+        @Override
+        public String describe() {
+            return "exponential";
+        }
+    }
+
+    static class LogNormal extends TimingDistribution {
+        private final double sigma;
+        private final double shift; // -sigma^2/2, so the mean of the samples is the mean
+
+        LogNormal(double sigma) {
+            if (sigma <= 0) {
+                throw new IllegalArgumentException("Log-normal sigma must be positive: " + sigma);
+            }
+            this.sigma = sigma;
+            this.shift = -sigma * sigma / 2;
+        }
+
+        @Override
+        public long sample(long mean) {
+            return cap(mean * Math.exp(shift + sigma * ThreadLocalRandom.current().nextGaussian()), mean);
+        }
+
+        @Override
+        public String describe() {
+            return "lognormal (sigma " + sigma + ")";
+        }
+    }
+
+    static class Pareto extends TimingDistribution {
+        private final double alpha;
+        private final double scale; // the minimum, as a share of the mean: (alpha - 1) / alpha
+
+        Pareto(double alpha) {
+            if (alpha <= 1) {
+                throw new IllegalArgumentException("Pareto shape must be above 1 for a finite mean: " + alpha);
+            }
+            this.alpha = alpha;
+            this.scale = (alpha - 1) / alpha;
+        }
+
+        @Override
+        public long sample(long mean) {
+            double u = 1.0 - ThreadLocalRandom.current().nextDouble(); // (0, 1]
+            return cap(mean * scale / Math.pow(u, 1 / alpha), mean);
+        }
+
+        @Override
+        public String describe() {
+            return "pareto (shape " + alpha + ")";
+        }
+    }
+
+    static class Trace extends TimingDistribution {
+        private final String file;
+        private final double[] relative; // each duration divided by the average
+        private final long average;
+        private final ThreadLocal<int[]> cursor;
+
+        private Trace(String file, long[] durations) {
+            this.file = file;
+            long sum = 0;
+            for (long d : durations) {
+                sum += d;
+            }
+            average = Math.max(1, sum / durations.length);
+            relative = new double[durations.length];
+            for (int i = 0; i < durations.length; i++) {
+                relative[i] = (double) durations[i] / average;
+            }
+            cursor = ThreadLocal.withInitial(() -> new int[] { ThreadLocalRandom.current().nextInt(relative.length) });
+        }
+
+        static Trace load(String file) {
+            List<Long> durations = new ArrayList<>();
+            try {
+                for (String line : Files.readAllLines(Paths.get(file))) {
+                    int hash = line.indexOf('#');
+                    String value = (hash >= 0 ? line.substring(0, hash) : line).trim();
+                    if (!value.isEmpty()) {
+                        durations.add(Math.max(0, WaitMode.parseDuration(value)));
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Cannot read trace " + file + ": " + e.getMessage());
+            }
+            if (durations.isEmpty()) {
+                throw new IllegalArgumentException("Trace " + file + " has no durations");
+            }
+            return new Trace(file, durations.stream().mapToLong(Long::longValue).toArray());
+        }
+
+        @Override
+        public long sample(long mean) {
+            int[] next = cursor.get();
+            double r = relative[next[0]];
+            next[0] = (next[0] + 1 == relative.length) ? 0 : next[0] + 1;
+            return (long) (mean * r);
+        }
+
+        @Override
+        public String describe() {
+            return "trace " + file + " (" + relative.length + " durations, average " + WaitMode.formatDuration(average) + ")";
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// Topology.java
+//
+// Which Forks each seat needs. The classic Table is a ring: seat i needs forks i and (i+1) mod n.
+// A Topology generalizes that to any adjacency list from seats to shared resources:
+//   ring           - n seats, n forks, seat i between forks i and i+1
+//   grid:RxC       - seats on an R by C grid, a fork on every edge between neighboring seats
+//   torus:RxC      - the grid with wrap-around edges (every seat needs 4 forks)
+//   random:D[:s]   - n seats, a fork on each edge of a random graph of average degree D (seed s)
+//   kforks:M:K[:s] - n seats, M forks, every seat needs K distinct forks picked at random (seed s)
+//   path           - n seats, n+1 forks, seat i between forks i and i+1: a piece of a ring
+//                    (one shard of a ShardedTable; the end forks are bridges to the neighbor shards)
+// A fork on an edge is shared by two seats; in kforks a fork can be shared by any number of them.
+//
+// The adjacency list is stored compactly (one int array and the start of each seat in it), so a
+// Topology of a few hundred thousand seats and forks costs a few megabytes.
+// The forks of a seat keep the order they were added in: the naive strategy picks them up in
+// that order (for the ring: left, then right), the ordering strategies sort them.
+////////////////////////////////////
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+public class Topology {
+    private static final long DEFAULT_SEED = 4361;
+
+    private final String description;
+    private final boolean ring;
+    private final int seats;
+    private final int forks;
+    private final int[] start;     // forks of seat s: seatForks[start[s]] .. seatForks[start[s+1]-1]
+    private final int[] seatForks;
+
+    private Topology(String description, boolean ring, int seats, int forks, int[] start, int[] seatForks) {
+        this.description = description;
+        this.ring = ring;
+        this.seats = seats;
+        this.forks = forks;
+        this.start = start;
+        this.seatForks = seatForks;
+    }
+
+    // Build the compact form from per-seat fork lists
+    private static Topology of(String description, boolean ring, int forks, int[][] forksOfSeat) {
+        int seats = forksOfSeat.length;
+        int[] start = new int[seats + 1];
+        for (int s = 0; s < seats; s++) {
+            start[s + 1] = start[s] + forksOfSeat[s].length;
+        }
+        int[] seatForks = new int[start[seats]];
+        for (int s = 0; s < seats; s++) {
+            System.arraycopy(forksOfSeat[s], 0, seatForks, start[s], forksOfSeat[s].length);
+        }
+        return new Topology(description, ring, seats, forks, start, seatForks);
+    }
+
+    public static Topology ring(int seats) {
+        if (seats < 2) {
+            throw new IllegalArgumentException("Must have at least 2 philosophers");
+        }
+        int[] start = new int[seats + 1];
+        int[] seatForks = new int[2 * seats];
+        for (int s = 0; s < seats; s++) {
+            start[s + 1] = 2 * (s + 1);
+            seatForks[2 * s] = s;
+            seatForks[2 * s + 1] = (s + 1) % seats;
+        }
+        return new Topology("ring of " + seats, true, seats, seats, start, seatForks);
+    }
+
+    // A ring cut open: forks 0 and n are the ends (a ShardedTable shares them with the next shards)
+    public static Topology path(int seats) {
+        if (seats < 1) {
+            throw new IllegalArgumentException("A path needs at least 1 seat");
+        }
+        int[] start = new int[seats + 1];
+        int[] seatForks = new int[2 * seats];
+        for (int s = 0; s < seats; s++) {
+            start[s + 1] = 2 * (s + 1);
+            seatForks[2 * s] = s;
+            seatForks[2 * s + 1] = s + 1;
+        }
+        return new Topology("path of " + seats, false, seats, seats + 1, start, seatForks);
+    }
+
+    // Seats on a rows x cols grid, a fork on each edge; the torus also wraps around
+    // (only along dimensions of at least 3, where the wrap-around edge is a new one)
+    public static Topology grid(int rows, int cols, boolean torus) {
+        int seats = rows * cols;
+        if (seats < 2) {
+            throw new IllegalArgumentException("A grid needs at least 2 seats");
+        }
+        EdgeList edges = new EdgeList(seats);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int seat = r * cols + c;
+                if (c + 1 < cols) {
+                    edges.add(seat, seat + 1);
+                } else if (torus && cols >= 3) {
+                    edges.add(seat, r * cols);
+                }
+                if (r + 1 < rows) {
+                    edges.add(seat, seat + cols);
+                } else if (torus && rows >= 3) {
+                    edges.add(seat, c);
+                }
+            }
+        }
+        return edges.toTopology((torus ? "torus " : "grid ") + rows + "x" + cols);
+    }
+
+    // A random graph: seats*degree/2 distinct edges; a seat left without an edge gets one
+    public static Topology random(int seats, double degree, long seed) {
+        if (seats < 2) {
+            throw new IllegalArgumentException("A random graph needs at least 2 seats");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        EdgeList edges = new EdgeList(seats);
+        long wanted = Math.min((long) (seats * degree / 2), (long) seats * (seats - 1) / 2);
+        Set<Long> seen = new HashSet<>();
+        while (edges.size() < wanted) {
+            int a = random.nextInt(seats);
+            int b = random.nextInt(seats);
+            if (a != b && seen.add(edgeKey(a, b))) {
+                edges.add(a, b);
+            }
+        }
+        for (int s = 0; s < seats; s++) {
+            while (edges.degree(s) == 0) {
+                int b = random.nextInt(seats);
+                if (b != s && seen.add(edgeKey(s, b))) {
+                    edges.add(s, b);
+                }
+            }
+        }
+        return edges.toTopology("random graph of " + seats + ", degree " + degree);
+    }
+
+    private static long edgeKey(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+
+    // Every seat needs k distinct forks out of m, picked at random
+    public static Topology kForks(int seats, int m, int k, long seed) {
+        if (seats < 1 || k < 1 || k > m) {
+            throw new IllegalArgumentException("kforks needs 1 <= k <= m forks");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] pool = new int[m];
+        for (int f = 0; f < m; f++) {
+            pool[f] = f;
+        }
+        int[][] forksOfSeat = new int[seats][];
+        for (int s = 0; s < seats; s++) {
+            // Partial Fisher-Yates: the first k of a shuffle
+            for (int i = 0; i < k; i++) {
+                int j = i + random.nextInt(m - i);
+                int t = pool[i]; pool[i] = pool[j]; pool[j] = t;
+            }
+            forksOfSeat[s] = Arrays.copyOf(pool, k);
+        }
+        return of(seats + " seats sharing " + m + " forks, " + k + " each", false, m, forksOfSeat);
+    }
+
+    // ring, grid:RxC, torus:RxC, random:D[:seed], kforks:M:K[:seed]; seats applies to ring, random and kforks
+    public static Topology forName(String spec, int seats) {
+        String[] parts = spec.split(":");
+        switch (parts[0]) {
+        case "ring":
+            return ring(seats);
+        case "grid":
+        case "torus": {
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Expected " + parts[0] + ":RxC, got " + spec);
+            }
+            String[] size = parts[1].split("x");
+            return grid(Integer.parseInt(size[0]), Integer.parseInt(size[size.length - 1]), "torus".equals(parts[0]));
+        }
+        case "random":
+            return random(seats, parts.length > 1 ? Double.parseDouble(parts[1]) : 2.0,
+                          parts.length > 2 ? Long.parseLong(parts[2]) : DEFAULT_SEED);
+        case "kforks":
+            if (parts.length < 3) {
+                throw new IllegalArgumentException("Expected kforks:M:K, got " + spec);
+            }
+            return kForks(seats, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                          parts.length > 3 ? Long.parseLong(parts[3]) : DEFAULT_SEED);
+        default:
+            throw new IllegalArgumentException("Unknown topology: " + spec);
+        }
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    // The classic table: the ring-only strategies (waiter, chandy, asymmetric, backoff, fair) need it
+    public boolean isRing() {
+        return ring;
+    }
+
+    public int getNumberOfSeats() {
+        return seats;
+    }
+
+    public int getNumberOfForks() {
+        return forks;
+    }
+
+    public int getForkCount(int seat) {
+        return start[seat + 1] - start[seat];
+    }
+
+    // The k-th fork (index) of a seat
+    public int getFork(int seat, int k) {
+        return seatForks[start[seat] + k];
+    }
+
+    // Edges collected per seat before they become a Topology
+    private static class EdgeList {
+        private final int[] degree;
+        private int[] a = new int[16];
+        private int[] b = new int[16];
+        private int size = 0;
+
+        EdgeList(int seats) {
+            degree = new int[seats];
+        }
+
+        void add(int x, int y) {
+            if (size == a.length) {
+                a = Arrays.copyOf(a, size * 2);
+                b = Arrays.copyOf(b, size * 2);
+            }
+            a[size] = x;
+            b[size] = y;
+            size++;
+            degree[x]++;
+            degree[y]++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int degree(int seat) {
+            return degree[seat];
+        }
+
+        // Fork e sits on edge e
+        Topology toTopology(String description) {
+            int seats = degree.length;
+            int[] start = new int[seats + 1];
+            for (int s = 0; s < seats; s++) {
+                start[s + 1] = start[s] + degree[s];
+            }
+            int[] fill = Arrays.copyOf(start, seats);
+            int[] seatForks = new int[start[seats]];
+            for (int e = 0; e < size; e++) {
+                seatForks[fill[a[e]]++] = e;
+                seatForks[fill[b[e]]++] = e;
+            }
+            return new Topology(description, false, seats, size, start, seatForks);
+        }
+    }
+}
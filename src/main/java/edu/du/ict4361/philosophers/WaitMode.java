@@ -0,0 +1,87 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// WaitMode.java
+//
+// How a Philosopher spends its think, eat and fork times:
+//   SLEEP - Thread.sleep, the original way. Sleeps are whole milliseconds (at least 1 ms for any
+//           non-zero time) and go through the OS scheduler, which then dominates short cycles.
+//   PARK  - LockSupport.parkNanos until the deadline: sub-millisecond waits that still give the
+//           core away, though the timer slack of the OS (often ~50 microseconds) remains.
+//   SPIN  - busy-wait with Thread.onSpinWait until the deadline: nanosecond resolution, one core
+//           per Philosopher. Only for stress runs with no more Philosophers than cores.
+// Zero times return at once in PARK and SPIN; SLEEP keeps the original Thread.sleep(0).
+// All three end early with InterruptedException when the Philosopher is interrupted.
+////////////////////////////////////
+
+import java.util.concurrent.locks.LockSupport;
+
+public enum WaitMode {
+    SLEEP, PARK, SPIN;
+
+    public static WaitMode forName(String name) {
+        switch (name) {
+        case "sleep":
+            return SLEEP;
+        case "park":
+            return PARK;
+        case "spin":
+            return SPIN;
+        default:
+            throw new IllegalArgumentException("Unknown wait mode: " + name);
+        }
+    }
+
+    public void pause(long nanos) throws InterruptedException {
+        if (this == SLEEP) {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+            return;
+        }
+        if (nanos <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > 0) {
+            if (this == PARK) {
+                LockSupport.parkNanos(remaining);
+            } else {
+                Thread.onSpinWait();
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    // "250us", "1.5ms", "800ns", "2s"; a plain number is milliseconds (as always). Returns nanoseconds.
+    public static long parseDuration(String text) {
+        String s = text.trim();
+        long unit = 1_000_000;
+        if (s.endsWith("ns")) {
+            unit = 1;
+            s = s.substring(0, s.length() - 2);
+        } else if (s.endsWith("us")) {
+            unit = 1_000;
+            s = s.substring(0, s.length() - 2);
+        } else if (s.endsWith("ms")) {
+            s = s.substring(0, s.length() - 2);
+        } else if (s.endsWith("s")) {
+            unit = 1_000_000_000;
+            s = s.substring(0, s.length() - 1);
+        }
+        return Math.round(Double.parseDouble(s) * unit);
+    }
+
+    // Nanoseconds as "3000 milliseconds", "250 microseconds" or "800 nanoseconds"
+    public static String formatDuration(long nanos) {
+        if (nanos % 1_000_000 == 0) {
+            return (nanos / 1_000_000) + " milliseconds";
+        }
+        if (nanos % 1_000 == 0) {
+            return (nanos / 1_000) + " microseconds";
+        }
+        return nanos + " nanoseconds";
+    }
+}
@@ -0,0 +1,67 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// WaiterStrategy.java
+//
+// A waiter (arbitrator) hands out permission to reach for forks.
+// At most n-1 Philosophers may hold or reach for forks at once, so at least one of them
+// can always get both forks. The waiter's semaphore is fair so nobody is passed over forever.
+////////////////////////////////////
+
+import java.util.concurrent.Semaphore;
+
+public class WaiterStrategy implements ForkStrategy {
+    private final Semaphore waiter;
+    private final boolean[] permitted;
+
+    public WaiterStrategy(Table table) {
+        waiter = new Semaphore(table.getNumberOfPhilosophers() - 1, true);
+        permitted = new boolean[table.getNumberOfPhilosophers()];
+    }
+
+    @Override
+    public String getName() {
+        return "waiter";
+    }
+
+    @Override
+    public void pickUpForks(Philosopher philosopher) {
+        try {
+            waiter.acquire();
+            permit(philosopher.getSeatNumber());
+        } catch (InterruptedException ie) {
+            if (philosopher.getTable().isPartyIsOn()) {
+                System.err.println("      Waiter: " + philosopher.getName() + " was interrupted waiting for permission");
+            } else {
+                Thread.currentThread().interrupt(); // Stopping: the rest of the meal returns at once
+            }
+            return; // No permit, no forks: the Philosopher skips this meal
+        }
+        philosopher.pickUp(philosopher.getLeftFork());
+        philosopher.pickUp(philosopher.getRightFork());
+    }
+
+    @Override
+    public void putDownForks(Philosopher philosopher) {
+        philosopher.putDown(philosopher.getLeftFork());
+        philosopher.putDown(philosopher.getRightFork());
+        dismiss(philosopher.getSeatNumber());
+    }
+
+    @Override
+    public void seatLost(Philosopher philosopher) {
+        dismiss(philosopher.getSeatNumber());
+    }
+
+    private synchronized void permit(int seat) {
+        permitted[seat] = true;
+    }
+
+    // The permit goes back once, whether the seat put its forks down or lost them
+    private synchronized void dismiss(int seat) {
+        if (permitted[seat]) {
+            permitted[seat] = false;
+            waiter.release();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// WorkloadProfile.java
+//
+// Per seat timing for a Table: which TimingDistribution each seat's think, eat and fork times
+// follow, how far each seat's mean is from the Table's time, and bursts in which everybody comes
+// back hungry at once. A profile is a text file, one setting per line (# starts a comment):
+//
+//   think = exponential              the distribution of every seat's think time
+//   eat = lognormal:0.8              (and eat, fork; constant by default)
+//   seats 0-4: eat = pareto:1.5      only for seats 0 to 4 (a range, one seat "7",
+//   seats %10: eat-scale = 5         or every 10th seat "%10", or "%10+3": seats 3, 13, 23, ...)
+//   burst = 2s 0.25 0.1              every 2 seconds, for the first quarter of it,
+//                                    think times are scaled by 0.1 (for every seat)
+//
+// think-scale, eat-scale and fork-scale multiply the seat's mean; later lines win over earlier ones.
+// Skewed seats (a few slow holders) and bursts reproduce contention that constant times hide.
+// Table.populateTable hands every Philosopher its settings; the Simulation draws the same samples.
+////////////////////////////////////
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+public class WorkloadProfile {
+    public enum Activity { THINK, EAT, FORK }
+
+    // A seat selector and one setting for the seats it selects
+    private static class Rule {
+        int first = 0;
+        int last = Integer.MAX_VALUE;
+        int every = 1;
+        int offset = 0;
+        Activity activity;
+        TimingDistribution distribution; // either a distribution
+        double scale = -1;               // or a scale of the mean (-1: none)
+
+        boolean selects(int seat) {
+            return seat >= first && seat <= last && seat % every == offset;
+        }
+
+        boolean selectsAll() {
+            return first == 0 && last == Integer.MAX_VALUE && every == 1;
+        }
+    }
+
+    private final String name;
+    private final List<Rule> rules = new ArrayList<>();
+    private long burstPeriodNanos = 0; // 0: no bursts
+    private long burstNanos;
+    private double burstThinkScale = 1.0;
+
+    public WorkloadProfile(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static WorkloadProfile load(String file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get(file));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read workload profile " + file + ": " + e.getMessage());
+        }
+        WorkloadProfile profile = new WorkloadProfile(Paths.get(file).getFileName().toString());
+        int number = 0;
+        for (String line : lines) {
+            number++;
+            int hash = line.indexOf('#');
+            String setting = (hash >= 0 ? line.substring(0, hash) : line).trim();
+            if (setting.isEmpty()) {
+                continue;
+            }
+            try {
+                profile.parse(setting);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(file + " line " + number + ": " + e.getMessage());
+            }
+        }
+        return profile;
+    }
+
+    // One line of a profile: "[seats selector:] key = value"
+    public void parse(String setting) {
+        Rule rule = new Rule();
+        String s = setting;
+        if (s.startsWith("seats ")) {
+            int colon = s.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Expected \"seats selector: key = value\": " + setting);
+            }
+            select(rule, s.substring("seats ".length(), colon).trim());
+            s = s.substring(colon + 1);
+        }
+        int equals = s.indexOf('=');
+        if (equals < 0) {
+            throw new IllegalArgumentException("Expected \"key = value\": " + setting);
+        }
+        String key = s.substring(0, equals).trim();
+        String value = s.substring(equals + 1).trim();
+        if (key.equals("burst")) {
+            if (!rule.selectsAll()) {
+                throw new IllegalArgumentException("A burst is for every seat: " + setting);
+            }
+            String[] parts = value.split("\\s+");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Expected \"burst = period share think-scale\": " + setting);
+            }
+            setBurst(WaitMode.parseDuration(parts[0]), Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            return;
+        }
+        boolean scale = key.endsWith("-scale");
+        rule.activity = activity(scale ? key.substring(0, key.length() - "-scale".length()) : key);
+        if (scale) {
+            rule.scale = Double.parseDouble(value);
+            if (rule.scale < 0) {
+                throw new IllegalArgumentException("A scale cannot be negative: " + setting);
+            }
+        } else {
+            rule.distribution = TimingDistribution.forName(value);
+        }
+        rules.add(rule);
+    }
+
+    private static Activity activity(String key) {
+        switch (key) {
+        case "think":
+            return Activity.THINK;
+        case "eat":
+            return Activity.EAT;
+        case "fork":
+            return Activity.FORK;
+        default:
+            throw new IllegalArgumentException("Unknown setting: " + key);
+        }
+    }
+
+    // "3", "0-9", "%10" or "%10+3"
+    private static void select(Rule rule, String selector) {
+        if (selector.startsWith("%")) {
+            String[] parts = selector.substring(1).split("\\+");
+            rule.every = Integer.parseInt(parts[0].trim());
+            rule.offset = (parts.length > 1) ? Integer.parseInt(parts[1].trim()) : 0;
+            if (rule.every < 1 || rule.offset < 0 || rule.offset >= rule.every) {
+                throw new IllegalArgumentException("Bad seat selector: " + selector);
+            }
+        } else {
+            String[] range = selector.split("-");
+            rule.first = Integer.parseInt(range[0].trim());
+            rule.last = (range.length > 1) ? Integer.parseInt(range[1].trim()) : rule.first;
+        }
+    }
+
+    // The distribution of an activity for every seat, in place of the profile's own; seat rules still win
+    public void setDistribution(Activity activity, TimingDistribution distribution) {
+        rules.removeIf(r -> r.activity == activity && r.distribution != null && r.selectsAll());
+        Rule rule = new Rule();
+        rule.activity = activity;
+        rule.distribution = distribution;
+        rules.add(0, rule);
+    }
+
+    public void setBurst(long periodNanos, double share, double thinkScale) {
+        if (periodNanos <= 0 || share < 0 || share > 1 || thinkScale < 0) {
+            throw new IllegalArgumentException("A burst needs a positive period, a share in [0, 1] and a scale >= 0");
+        }
+        burstPeriodNanos = periodNanos;
+        burstNanos = (long) (periodNanos * share);
+        burstThinkScale = thinkScale;
+    }
+
+    // Called by Table.populateTable for each seat
+    void configure(Philosopher phil, int seat) {
+        for (Activity activity : Activity.values()) {
+            TimingDistribution distribution = TimingDistribution.CONSTANT;
+            double scale = 1.0;
+            for (Rule rule : rules) {
+                if (rule.activity == activity && rule.selects(seat)) {
+                    if (rule.distribution != null) {
+                        distribution = rule.distribution;
+                    } else {
+                        scale = rule.scale;
+                    }
+                }
+            }
+            phil.setTiming(activity, distribution, scale);
+        }
+    }
+
+    public boolean hasBursts() {
+        return burstPeriodNanos > 0;
+    }
+
+    // The think time scale at this time since the start (1.0 outside bursts)
+    double getThinkScale(long nanosSinceStart) {
+        if (burstPeriodNanos == 0 || nanosSinceStart % burstPeriodNanos >= burstNanos) {
+            return 1.0;
+        }
+        return burstThinkScale;
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder(200);
+        sb.append(name);
+        for (Rule rule : rules) {
+            sb.append("; ");
+            if (rule.every > 1) {
+                sb.append("every ").append(rule.every).append(" seats from ").append(rule.offset).append(": ");
+            } else if (rule.first != 0 || rule.last != Integer.MAX_VALUE) {
+                sb.append("seats ").append(rule.first).append("-").append(rule.last).append(": ");
+            }
+            sb.append(rule.activity.name().toLowerCase());
+            if (rule.distribution != null) {
+                sb.append(" ").append(rule.distribution.describe());
+            } else {
+                sb.append(" x").append(rule.scale);
+            }
+        }
+        if (hasBursts()) {
+            sb.append("; bursts of ").append(WaitMode.formatDuration(burstNanos)).append(" every ")
+              .append(WaitMode.formatDuration(burstPeriodNanos)).append(" (think x").append(burstThinkScale).append(")");
+        }
+        return sb.toString();
+    }
+}
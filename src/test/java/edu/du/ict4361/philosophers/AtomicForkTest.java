@@ -0,0 +1,142 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// AtomicForkTest.java
+//
+// The lock-free forks, plain and padded: threads hammering one fork never hold it together, a
+// parked waiter wakes up when the fork is put down, and a forced release racing the holder's own
+// put down never takes the fork away from the next holder.
+////////////////////////////////////
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+class AtomicForkTest {
+    private static final int THREADS = 4;
+    private static final int PICK_UPS = 20_000;
+
+    private static void exclusion(Supplier<Fork> forks) throws InterruptedException {
+        Fork fork = forks.get();
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger violations = new AtomicInteger();
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int seat = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < PICK_UPS; i++) {
+                    assertTrue(fork.pickUp(seat));
+                    if (inside.incrementAndGet() != 1 || fork.getCurrentHolder() != seat) {
+                        violations.incrementAndGet();
+                    }
+                    inside.decrementAndGet();
+                    fork.putDown(seat);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, violations.get(), "two seats held the fork at once");
+        assertEquals((long) THREADS * PICK_UPS, fork.getAcquisitions());
+        assertEquals(-1, fork.getCurrentHolder());
+    }
+
+    private static void wakesParkedWaiter(Supplier<Fork> forks) throws InterruptedException {
+        Fork fork = forks.get();
+        assertTrue(fork.pickUp(0));
+        Thread waiter = new Thread(() -> fork.pickUp(1));
+        waiter.start();
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (waiter.getState() != Thread.State.WAITING) { // past the spins, parked
+            assertTrue(System.nanoTime() - deadline < 0, "the waiter never parked");
+            Thread.sleep(1);
+        }
+        fork.putDown(0);
+        waiter.join(5000);
+        assertFalse(waiter.isAlive(), "the parked waiter was not woken");
+        assertEquals(1, fork.getCurrentHolder());
+        assertEquals(1, fork.getContendedAcquisitions());
+    }
+
+    // Seat 0 picks up and puts down while a monitor keeps forcing the fork away from seat 0.
+    // Seat 1 checks that neither of them ever frees the fork while seat 1 holds it.
+    private static void forceReleaseRacesPutDown(Supplier<Fork> forks) throws InterruptedException {
+        Fork fork = forks.get();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger stolen = new AtomicInteger();
+        AtomicInteger forced = new AtomicInteger();
+        Thread holder = new Thread(() -> {
+            for (int i = 0; i < PICK_UPS; i++) {
+                fork.pickUp(0);
+                fork.putDown(0); // a no-op (with a complaint) if the monitor took the fork first
+            }
+        });
+        Thread monitor = new Thread(() -> {
+            while (!done.get()) {
+                if (fork.forceRelease(0)) {
+                    forced.incrementAndGet();
+                }
+            }
+        });
+        Thread other = new Thread(() -> {
+            for (int i = 0; i < PICK_UPS; i++) {
+                fork.pickUp(1);
+                for (int k = 0; k < 10; k++) {
+                    if (fork.getCurrentHolder() != 1) {
+                        stolen.incrementAndGet();
+                    }
+                }
+                fork.putDown(1);
+            }
+        });
+        monitor.start();
+        holder.start();
+        other.start();
+        holder.join();
+        other.join();
+        done.set(true);
+        monitor.join();
+        assertEquals(0, stolen.get(), "a put down or forced release of seat 0 freed seat 1's fork");
+        assertFalse(fork.forceRelease(0));
+        assertEquals(-1, fork.getCurrentHolder());
+        assertTrue(forced.get() <= PICK_UPS);
+    }
+
+    @Test
+    void atomicForkExcludes() throws InterruptedException {
+        exclusion(() -> new AtomicFork("Fork 1"));
+    }
+
+    @Test
+    void paddedAtomicForkExcludes() throws InterruptedException {
+        exclusion(() -> new PaddedAtomicFork("Fork 1"));
+    }
+
+    @Test
+    void atomicForkWakesParkedWaiter() throws InterruptedException {
+        wakesParkedWaiter(() -> new AtomicFork("Fork 1"));
+    }
+
+    @Test
+    void paddedAtomicForkWakesParkedWaiter() throws InterruptedException {
+        wakesParkedWaiter(() -> new PaddedAtomicFork("Fork 1"));
+    }
+
+    @Test
+    void atomicForkForceReleaseRacesPutDown() throws InterruptedException {
+        forceReleaseRacesPutDown(() -> new AtomicFork("Fork 1"));
+    }
+
+    @Test
+    void paddedAtomicForkForceReleaseRacesPutDown() throws InterruptedException {
+        forceReleaseRacesPutDown(() -> new PaddedAtomicFork("Fork 1"));
+    }
+}
@@ -0,0 +1,78 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// EventLogTest.java
+//
+// Events written through several Writers (one per seat, and the ForkLeaseMonitor's) come back
+// from EventLogReplay merged in time order: states, fork holders (including a reclaimed fork)
+// and meals, at a point in the middle of the log and at its end.
+////////////////////////////////////
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EventLogTest {
+    private static final int THINKING = Philosopher.STATE.THINKING.ordinal();
+    private static final int EATING = Philosopher.STATE.EATING.ordinal();
+    private static final int PICKING_UP_FORK = Philosopher.STATE.PICKING_UP_FORK.ordinal();
+    private static final int MEALS = 1000; // seat 2's meals: they span several chunks
+
+    @Test
+    void writtenEventsReplayInTimeOrder(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("dinner.log");
+        Table table = new Table(3);
+        try (EventLog log = new EventLog(file, table, 1024 * 1024, true)) { // virtual time: as written
+            EventLog.Writer seat0 = log.newWriter();
+            EventLog.Writer seat1 = log.newWriter();
+            EventLog.Writer seat2 = log.newWriter();
+            EventLog.Writer monitor = log.newWriter();
+
+            seat0.record(10, 0, -1, EventLog.STATE, THINKING);
+            seat0.record(20, 0, -1, EventLog.STATE, PICKING_UP_FORK);
+            seat0.record(30, 0, 0, EventLog.FORK_PICKED_UP, 0);
+            seat0.record(35, 0, 1, EventLog.FORK_PICKED_UP, 5);
+            seat0.record(40, 0, -1, EventLog.STATE, EATING);
+            seat0.record(60, 0, -1, EventLog.MEAL, 0);
+            seat0.record(70, 0, 0, EventLog.FORK_PUT_DOWN, 0);
+            seat0.record(71, 0, 1, EventLog.FORK_PUT_DOWN, 0);
+            seat0.record(75, 0, -1, EventLog.STATE, THINKING);
+
+            seat1.record(15, 1, -1, EventLog.STATE, THINKING);
+            seat1.record(50, 1, -1, EventLog.STATE, PICKING_UP_FORK);
+            seat1.record(80, 1, 1, EventLog.FORK_PICKED_UP, 45);
+            seat1.record(85, 1, 2, EventLog.FORK_PICKED_UP, 0);
+            seat1.record(90, 1, -1, EventLog.STATE, EATING);   // and stalls there, forks in hand
+            monitor.record(120, 1, 1, EventLog.FORK_RECLAIMED, 0);
+
+            for (int m = 0; m < MEALS; m++) {
+                seat2.record(1000 + m, 2, -1, EventLog.MEAL, m);
+            }
+        }
+
+        EventLogReplay replay = new EventLogReplay(file);
+        assertEquals(65, replay.replay(65));
+        assertEquals(Philosopher.STATE.EATING, replay.getState(0));
+        assertEquals(Philosopher.STATE.PICKING_UP_FORK, replay.getState(1));
+        assertEquals(0, replay.getForkHolder(0));
+        assertEquals(0, replay.getForkHolder(1));
+        assertEquals(1, replay.getMeals(0));
+
+        replay.replay(100);
+        assertEquals(-1, replay.getForkHolder(0));
+        assertEquals(1, replay.getForkHolder(1));
+        assertEquals(1, replay.getForkHolder(2));
+
+        assertEquals(1000 + MEALS - 1, replay.replay(Long.MAX_VALUE));
+        assertEquals(Philosopher.STATE.THINKING, replay.getState(0));
+        assertEquals(Philosopher.STATE.EATING, replay.getState(1));
+        assertEquals(-1, replay.getForkHolder(1)); // reclaimed
+        assertEquals(1, replay.getForkHolder(2));
+        assertEquals(MEALS, replay.getMeals(2));
+        assertEquals(9 + 6 + MEALS, replay.getEvents());
+    }
+}
@@ -0,0 +1,63 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// ForkLeaseMonitorTest.java
+//
+// A seat on a lease of several meals is paused with its forks in hand, the monitor reclaims them,
+// and a neighbor (here the test itself, so nobody adds demand) picks them up. When the seat wakes
+// up it must count no meal while the neighbor holds its forks.
+////////////////////////////////////
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ForkLeaseMonitorTest {
+    private static final int NEIGHBOR = 99;
+
+    @Test
+    void leasedHolderCountsNoMealsWithoutItsForks() throws InterruptedException {
+        Table table = new Table(Topology.path(1)); // one seat, two forks of its own
+        table.setThinkNanos(1_000_000);
+        table.setEatNanos(5_000_000);
+        table.setForkNanos(0);
+        table.setWaitMode(WaitMode.PARK);
+        table.setStaggeredStart(false);
+        table.setLeaseMeals(10);
+        table.setForkStrategy(ForkStrategy.forName("ordering", table));
+        ForkLeaseMonitor monitor = new ForkLeaseMonitor(table, 50_000_000);
+        table.setForkLeaseMonitor(monitor);
+        FaultInjector faults = FaultInjector.forPlan(table, "pause:0@100ms:400ms");
+        table.setFaultInjector(faults);
+        table.populateTable();
+        table.startTable();
+        try {
+            Philosopher phil = table.getPhilosopher(0);
+            FaultInjector.Fault pause = faults.getFaults().get(0);
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (pause.getStruckNanos() < 0
+                   || monitor.firstReclaim(phil.getSeatId(), pause.getStruckNanos()) == null) {
+                assertTrue(System.nanoTime() - deadline < 0, "the paused seat's forks were not reclaimed");
+                Thread.sleep(5);
+            }
+
+            Fork[] forks = phil.getForks();
+            for (Fork fork : forks) {
+                assertTrue(fork.pickUp(NEIGHBOR));
+            }
+            int meals = phil.getNumberOfTimesEating();
+            long awake = pause.getStruckNanos() + pause.getDurationNanos() + 200_000_000L;
+            while (System.nanoTime() - awake < 0) {
+                Thread.sleep(10);
+            }
+            assertEquals(meals, phil.getNumberOfTimesEating());
+            assertTrue(phil.getReclaimedMeals() >= 1);
+            for (Fork fork : forks) {
+                fork.putDown(NEIGHBOR);
+            }
+        } finally {
+            table.stop();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// LatencyHistogramTest.java
+//
+// Percentiles against the exact order statistics: exact below 64, within a sub-bucket (1/32)
+// above, across many powers of two, after a merge and after a trip through the text form.
+////////////////////////////////////
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+    private static final double[] PERCENTILES = { 0, 1, 10, 50, 90, 99, 99.9, 100 };
+
+    // The value at a percentile, as the histogram ranks it, from the sorted values
+    private static long exact(long[] sorted, double percentile) {
+        long rank = (long) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[(int) Math.max(1, Math.min(sorted.length, rank)) - 1];
+    }
+
+    private static void assertPercentiles(long[] values, LatencyHistogram histogram) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double p : PERCENTILES) {
+            long expected = exact(sorted, p);
+            long actual = histogram.getValueAtPercentile(p);
+            assertTrue(actual <= expected && actual >= expected - expected / 32,
+                       "p" + p + ": " + actual + " for " + expected);
+        }
+        assertEquals(values.length, histogram.getTotalCount());
+        assertEquals(sorted[sorted.length - 1], histogram.getMaxValue());
+        assertEquals((double) Arrays.stream(values).sum() / values.length, histogram.getMean(), 1e-6);
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0.0, histogram.getMean());
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[64];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+            histogram.record(i);
+        }
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertEquals(31, histogram.getValueAtPercentile(50));
+        assertEquals(63, histogram.getValueAtPercentile(100));
+        assertPercentiles(values, histogram);
+    }
+
+    @Test
+    void percentilesWithinASubBucket() {
+        SplittableRandom random = new SplittableRandom(4361);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * Math.log(1e12)); // 1 ns .. 1000 s
+            histogram.record(values[i]);
+        }
+        assertPercentiles(values, histogram);
+    }
+
+    @Test
+    void mergedAndTextHistogramsKeepThePercentiles() {
+        SplittableRandom random = new SplittableRandom(11);
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        long[] values = new long[20_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextLong(1, 50_000_000);
+            (i % 2 == 0 ? a : b).record(values[i]);
+        }
+        LatencyHistogram merged = new LatencyHistogram();
+        merged.add(a);
+        merged.add(b);
+        assertPercentiles(values, merged);
+        assertPercentiles(values, LatencyHistogram.fromText(merged.toText()));
+    }
+}
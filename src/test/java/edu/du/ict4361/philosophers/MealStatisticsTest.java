@@ -0,0 +1,77 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// MealStatisticsTest.java
+//
+// The minimum and maximum kept as meals are eaten against a scan of the per-seat counts:
+// one seat far ahead (past several chunks of levels), seats joining and leaving, and
+// seats eating from several threads at once.
+////////////////////////////////////
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class MealStatisticsTest {
+
+    private static void assertMinMax(List<Integer> meals, MealStatistics stats) {
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (int m : meals) {
+            min = Math.min(min, m);
+            max = Math.max(max, m);
+        }
+        assertEquals(meals.isEmpty() ? 0 : min, stats.getMinimum(), "minimum");
+        assertEquals(max, stats.getMaximum(), "maximum");
+    }
+
+    @Test
+    void followsMealsJoinsAndLeaves() {
+        SplittableRandom random = new SplittableRandom(4361);
+        List<Integer> meals = new ArrayList<>(List.of(0, 0, 0, 0, 0));
+        MealStatistics stats = new MealStatistics(meals.size());
+        for (int step = 0; step < 200_000; step++) {
+            int r = random.nextInt(1000);
+            if (r == 0) {
+                meals.add(0);
+                stats.seatJoined();
+            } else if (r == 1 && meals.size() > 2) {
+                stats.seatLeft(meals.remove(random.nextInt(meals.size())));
+            } else {
+                // Seat 0 eats far more often than the others: the spread crosses several chunks
+                int seat = random.nextInt(4) == 0 ? 0 : random.nextInt(meals.size());
+                int before = meals.get(seat);
+                meals.set(seat, before + 1);
+                stats.mealEaten(before);
+            }
+            assertMinMax(meals, stats);
+        }
+    }
+
+    @Test
+    void keepsUpWithConcurrentMeals() throws InterruptedException {
+        int seats = 8;
+        int mealsEach = 50_000;
+        MealStatistics stats = new MealStatistics(seats);
+        Thread[] threads = new Thread[seats];
+        for (int s = 0; s < seats; s++) {
+            int share = mealsEach * (s + 1); // every seat a different count at the end
+            threads[s] = new Thread(() -> {
+                for (int m = 0; m < share; m++) {
+                    stats.mealEaten(m);
+                }
+            });
+            threads[s].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(mealsEach, stats.getMinimum());
+        assertEquals(mealsEach * seats, stats.getMaximum());
+        assertEquals((long) mealsEach * seats * (seats + 1) / 2, stats.getTotal());
+    }
+}
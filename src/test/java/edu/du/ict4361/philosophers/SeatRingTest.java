@@ -0,0 +1,113 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// SeatRingTest.java
+//
+// Rewiring a ring as seats join and leave: in the middle and at the wrap-around end, only one
+// neighbor changes forks, seat ids map to the new positions, and the old ring stays as it was.
+////////////////////////////////////
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class SeatRingTest {
+
+    private static Table newTable(int seats) {
+        Table table = new Table(seats);
+        table.populateTable();
+        return table;
+    }
+
+    private static Fork fork(SeatRing ring, int seat, int k) {
+        return ring.getFork(ring.getForkIndex(seat, k));
+    }
+
+    private static void assertForks(SeatRing ring, int seat, Fork left, Fork right) {
+        assertSame(left, fork(ring, seat, 0), "left fork of seat " + seat);
+        assertSame(right, fork(ring, seat, 1), "right fork of seat " + seat);
+    }
+
+    @Test
+    void joinInTheMiddleRewiresTheRightNeighbor() {
+        Table table = newTable(4);
+        SeatRing ring = table.getSeatRing();
+        Philosopher phil = new Philosopher("Phil 5", table);
+        phil.setSeatId(4);
+        Fork fork = new AtomicFork("Fork 5");
+        SeatRing joined = ring.withSeat(2, phil, fork);
+
+        assertEquals(ring.getEpoch() + 1, joined.getEpoch());
+        assertEquals(5, joined.getNumberOfSeats());
+        assertEquals(5, joined.getNumberOfForks());
+        assertSame(phil, joined.getPhilosopher(2));
+        assertEquals(2, joined.getPosition(4));
+        assertEquals(3, joined.getPosition(2)); // the old seat 2 moved right
+        assertForks(joined, 1, fork(ring, 1, 0), fork(ring, 1, 1)); // left neighbor as it was
+        assertForks(joined, 2, fork(ring, 2, 0), fork);               // keeps the fork on its left
+        assertForks(joined, 3, fork, fork(ring, 2, 1));               // right neighbor gets the new fork
+        assertForks(joined, 4, fork(ring, 3, 0), fork(ring, 3, 1));
+
+        assertEquals(4, ring.getNumberOfSeats()); // copy-on-write
+        assertEquals(-1, ring.getPosition(4));
+    }
+
+    @Test
+    void joinAtTheEndRewiresTheLeftNeighbor() {
+        Table table = newTable(4);
+        SeatRing ring = table.getSeatRing();
+        Philosopher phil = new Philosopher("Phil 5", table);
+        phil.setSeatId(4);
+        Fork fork = new AtomicFork("Fork 5");
+        SeatRing joined = ring.withSeat(4, phil, fork);
+
+        assertForks(joined, 0, fork(ring, 0, 0), fork(ring, 0, 1));
+        assertForks(joined, 3, fork(ring, 3, 0), fork); // the last seat's right fork is the new one
+        assertForks(joined, 4, fork, fork(ring, 0, 0)); // and the new seat wraps around to fork 0
+    }
+
+    @Test
+    void leaveRewiresOneNeighbor() {
+        Table table = newTable(5);
+        SeatRing ring = table.getSeatRing();
+        int id = ring.getPhilosopher(1).getSeatId();
+        SeatRing left = ring.withoutSeat(1);
+
+        assertEquals(ring.getEpoch() + 1, left.getEpoch());
+        assertEquals(4, left.getNumberOfSeats());
+        assertEquals(4, left.getNumberOfForks());
+        assertEquals(-1, left.getPosition(id));
+        assertSame(ring.getPhilosopher(2), left.getPhilosopher(1));
+        assertForks(left, 0, fork(ring, 0, 0), fork(ring, 0, 1)); // left neighbor as it was
+        assertForks(left, 1, fork(ring, 1, 0), fork(ring, 2, 1)); // right neighbor takes the leaver's left fork
+        assertForks(left, 3, fork(ring, 4, 0), fork(ring, 4, 1));
+        assertEquals(5, ring.getNumberOfSeats());
+    }
+
+    @Test
+    void leaveAtTheEndRewiresTheLeftNeighbor() {
+        Table table = newTable(5);
+        SeatRing ring = table.getSeatRing();
+        SeatRing left = ring.withoutSeat(4);
+
+        assertForks(left, 0, fork(ring, 0, 0), fork(ring, 0, 1));
+        assertForks(left, 3, fork(ring, 3, 0), fork(ring, 4, 1)); // wraps around to fork 0 again
+    }
+
+    @Test
+    void joinThenLeaveRestoresTheRing() {
+        Table table = newTable(4);
+        SeatRing ring = table.getSeatRing();
+        Philosopher phil = new Philosopher("Phil 5", table);
+        phil.setSeatId(4);
+        SeatRing back = ring.withSeat(1, phil, new AtomicFork("Fork 5")).withoutSeat(1);
+
+        assertEquals(ring.getEpoch() + 2, back.getEpoch());
+        for (int seat = 0; seat < 4; seat++) {
+            assertSame(ring.getPhilosopher(seat), back.getPhilosopher(seat));
+            assertForks(back, seat, fork(ring, seat, 0), fork(ring, seat, 1));
+        }
+        assertEquals(-1, back.getPosition(4));
+    }
+}
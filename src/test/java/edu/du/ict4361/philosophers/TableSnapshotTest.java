@@ -0,0 +1,65 @@
+package edu.du.ict4361.philosophers;
+
+////////////////////////////////////
+// TableSnapshotTest.java
+//
+// Snapshots of a busy running table never show a seat at odds with its own forks: an EATING
+// seat holds both, a THINKING or IDLE seat holds neither.
+////////////////////////////////////
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TableSnapshotTest {
+
+    @Test
+    void everySeatAgreesWithItsForks() throws InterruptedException {
+        Table table = new Table(500);
+        table.setThinkNanos(100_000);
+        table.setEatNanos(100_000);
+        table.setForkNanos(0);
+        table.setWaitMode(WaitMode.PARK);
+        table.setStaggeredStart(false);
+        table.setForkStrategy(ForkStrategy.forName("ordering", table));
+        table.populateTable();
+        table.startTable();
+        try {
+            TableSnapshot snapshot = new TableSnapshot();
+            int consistent = 0;
+            for (int capture = 0; capture < 20; capture++) {
+                Thread.sleep(20);
+                snapshot.capture(table);
+                if (!snapshot.isConsistent()) {
+                    continue;
+                }
+                consistent++;
+                SeatRing ring = snapshot.getSeatRing();
+                for (int seat = 0; seat < snapshot.getNumberOfSeats(); seat++) {
+                    int id = ring.getPhilosopher(seat).getSeatId();
+                    int held = 0;
+                    for (int k = 0; k < ring.getForkCount(seat); k++) {
+                        if (snapshot.getForkHolder(ring.getForkIndex(seat, k)) == id) {
+                            held++;
+                        }
+                    }
+                    switch (snapshot.getState(seat)) {
+                    case EATING:
+                        assertEquals(ring.getForkCount(seat), held, "seat " + seat + " eats without its forks");
+                        break;
+                    case THINKING:
+                    case IDLE:
+                        assertEquals(0, held, "seat " + seat + " holds a fork while " + snapshot.getState(seat));
+                        break;
+                    default:
+                        break;
+                    }
+                }
+            }
+            assertTrue(consistent > 0, "no snapshot settled");
+        } finally {
+            table.stop();
+        }
+    }
+}